@@ -0,0 +1,113 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package benchmarks;
+
+import includes.ai.AlphaBetaPlayer;
+import includes.ai.MctsPlayer;
+import includes.ai.Solver;
+import includes.engine.Game;
+import includes.engine.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI Move Latency: one move of every Computer on the same opening position.
+ *
+ * <ol>
+ *      <li>{@link #solver()}: lookup in the solved 3x3 table</li>
+ *      <li>{@link #alphaBeta()}: fixed depth, new table for every move so nothing is cached between invocations</li>
+ *      <li>{@link #mcts()}: fixed number of playouts on one thread</li>
+ * </ol>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AiBenchmark {
+
+    /**
+     * rows:cols:win length
+     */
+    @Param({"3:3:3", "7:7:4", "15:15:5"})
+    public String board;
+
+    private Game game;
+    private final GameState state = new GameState();
+    private final SplittableRandom random = new SplittableRandom(42);
+    private AlphaBetaPlayer alphaBeta;
+    private final MctsPlayer mcts = new MctsPlayer(1, Long.MAX_VALUE / 2_000_000L, 10_000);
+
+    /**
+     * X in the middle, O next to it
+     */
+    @Setup
+    public void setup() {
+        String[] mnk = board.split(":");
+        game = Game.create(Integer.parseInt(mnk[0]), Integer.parseInt(mnk[1]), Integer.parseInt(mnk[2]));
+        int center = game.rows() / 2 * game.cols() + game.cols() / 2;
+        game.play(center);
+        game.play(center + 1);
+        state.play(4);
+        state.play(5);
+    }
+
+    /**
+     * New alpha-beta player with an empty table for every invocation
+     */
+    @Setup(Level.Invocation)
+    public void newAlphaBeta() {
+        alphaBeta = new AlphaBetaPlayer(Long.MAX_VALUE / 2_000_000L, 16, 4);
+    }
+
+    @Benchmark
+    public int solver() {
+        return Solver.bestMove(state);
+    }
+
+    @Benchmark
+    public int alphaBeta() {
+        return alphaBeta.selectMove(game, random);
+    }
+
+    @Benchmark
+    public int mcts() {
+        return mcts.selectMove(game, random);
+    }
+}
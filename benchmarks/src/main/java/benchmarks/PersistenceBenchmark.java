@@ -0,0 +1,111 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package benchmarks;
+
+import includes.engine.Game;
+import includes.io.GameFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.beans.XMLDecoder;
+import java.beans.XMLEncoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Save/Load of the same game, in memory so the disk is not measured:
+ * <ol>
+ *      <li>the XMLEncoder and XMLDecoder of the old <code>MainFrame.writeXML</code> and <code>MainFrame.readXML</code></li>
+ *      <li>the binary {@link GameFile}</li>
+ * </ol>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private Object[][] data;
+    private byte[] xml;
+    private Game game;
+    private byte[] binary;
+    private final ByteBuffer buffer = ByteBuffer.allocate(64);
+
+    /**
+     * The game of recources/data.xml: the data object holds the number of the move on every cell
+     */
+    @Setup
+    public void setup() {
+        data = new Object[][]{{1, 4, null}, {2, null, null}, {3, null, null}};
+        xml = writeXML();
+        game = Game.create(3, 3, 3);
+        for (int cell : new int[]{0, 1, 2, 3}) {
+            game.play(cell);
+        }
+        binary = GameFile.encode(game);
+    }
+
+    @Benchmark
+    public byte[] writeXML() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        XMLEncoder xenc = new XMLEncoder(out);
+        xenc.writeObject(data);
+        xenc.close();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object readXML() {
+        XMLDecoder xdec = new XMLDecoder(new ByteArrayInputStream(xml));
+        Object obj = xdec.readObject();
+        xdec.close();
+        return obj;
+    }
+
+    @Benchmark
+    public ByteBuffer writeBinary() {
+        buffer.clear();
+        GameFile.write(game, buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public Game readBinary() throws IOException {
+        return GameFile.decode(binary);
+    }
+}
@@ -0,0 +1,127 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package benchmarks;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Win Detection: the old text compare of MainFrame against the engines.
+ *
+ * <ol>
+ *      <li>{@link #legacyTextCompare()}: the 8 <code>getText() == "X"</code> chains of the old <code>MainFrame.checkWinner(int, int)</code>, on a String grid</li>
+ *      <li>{@link #bitboard()}: the lines through the cell on the 3x3 bitboard</li>
+ *      <li>{@link #mnk()}: the 4 directions through the cell on an m,n,k board of the given size</li>
+ * </ol>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinCheckBenchmark {
+
+    /**
+     * Size of the m,n,k board, 5 in a row above 3x3
+     */
+    @Param({"3", "15", "19"})
+    public int size;
+
+    private final String[][] text = new String[3][3];
+    private final GameState state = new GameState();
+    private Game game;
+    private int cell;
+
+    /**
+     * Same position on every board: X in the middle and a few stones around, nobody has won
+     */
+    @Setup
+    public void setup() {
+        int[] moves = {4, 0, 2, 6, 3, 5};
+        state.reset();
+        for (int move : moves) {
+            state.play(move);
+        }
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                int p = state.get(i * 3 + j);
+                text[i][j] = p == Game.X ? "X" : p == Game.O ? "O" : "";
+            }
+        }
+        game = Game.create(size, size, size == 3 ? 3 : 5);
+        int offset = (size / 2 - 1) * size + size / 2 - 1;
+        for (int move : moves) {
+            game.play(offset + move / 3 * size + move % 3);
+        }
+        cell = 1;
+    }
+
+    @Benchmark
+    public boolean legacyTextCompare() {
+        return checkWinner(cell / 3, cell % 3);
+    }
+
+    @Benchmark
+    public boolean bitboard() {
+        return state.isWinningMove(cell, Game.X);
+    }
+
+    @Benchmark
+    public boolean mnk() {
+        return game.isWinningMove((size / 2 - 1) * size + size / 2, Game.X);
+    }
+
+    /**
+     * The old MainFrame.checkWinner(int, int), without the message boxes
+     */
+    @SuppressWarnings("StringEquality")
+    private boolean checkWinner(int i, int j) {
+        String[][] btn = text;
+        boolean won = false;
+        won |= btn[i][0] == "X" & btn[i][1] == "X" & btn[i][2] == "X";
+        won |= btn[i][0] == "O" & btn[i][1] == "O" & btn[i][2] == "O";
+        won |= btn[0][j] == "X" & btn[1][j] == "X" & btn[2][j] == "X";
+        won |= btn[0][j] == "O" & btn[1][j] == "O" & btn[2][j] == "O";
+        won |= btn[0][0] == "X" & btn[1][1] == "X" & btn[2][2] == "X";
+        won |= btn[0][0] == "O" & btn[1][1] == "O" & btn[2][2] == "O";
+        won |= btn[2][0] == "X" & btn[1][1] == "X" & btn[0][2] == "X";
+        won |= btn[2][0] == "O" & btn[1][1] == "O" & btn[0][2] == "O";
+        return won;
+    }
+}
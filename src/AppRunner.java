@@ -23,6 +23,10 @@
  ******************************************************************************/
 
 import includes.MainFrame;
+import includes.cli.Cli;
+
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
 
 /**
  * TicTocToe Runner
@@ -33,12 +37,50 @@ public class AppRunner {
      * Method App Runner
      */
     public AppRunner() {
-        MainFrame tic = new MainFrame();
+        this(3, 3, 3);
+    }
+
+    /**
+     * Method App Runner with an m,n,k board. Without a display it only prints the commands of {@link Cli}.
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     */
+    public AppRunner(int rows, int cols, int winLength) {
+        if (GraphicsEnvironment.isHeadless()) {
+            System.err.println("There is no display for the game window, use a command like: play " + rows + " " + cols + " " + winLength);
+            System.err.println("Try: help");
+            return;
+        }
+        MainFrame tic = new MainFrame(rows, cols, winLength);
         tic.showMainFrame();
     }
 
-    public static void main(String[] args) {
-        new AppRunner();
+    /**
+     * Start the game window with no arguments (3x3) or the three arguments [rows] [cols] [win length], like 15 15 5 for Gomoku.
+     * If the first argument is not a number it is a command of the command line {@link Cli#main(String[])}:
+     * play, replay, validate, analyze, tournament, simulate, bench, server, load, tablebase or help.
+     * Every other number of arguments, or words after a number, print the usage and exit with status 2 like the command line.
+     * The command line never loads AWT or Swing, so it starts fast and works without a display.
+     *
+     * @param args String[] command line arguments
+     * @throws IOException if a command can not read its files or open its sockets
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && !args[0].matches("\\d+")) {
+            Cli.main(args);
+            return;
+        }
+        if (args.length == 0) {
+            new AppRunner();
+            return;
+        }
+        if (args.length != 3 || !args[0].matches("\\d{1,9}") || !args[1].matches("\\d{1,9}") || !args[2].matches("\\d{1,9}")) {
+            System.err.println("The game window needs no arguments or three numbers: [rows] [cols] [win length], like 15 15 5");
+            System.err.println("Try: help");
+            System.exit(2);
+        }
+        new AppRunner(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]));
     }
 }
-
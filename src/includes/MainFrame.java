@@ -24,16 +24,45 @@
 
 package includes;
 
+import includes.ai.AlphaBetaPlayer;
+import includes.ai.MctsPlayer;
+import includes.ai.Player;
+import includes.ai.QubicPlayer;
+import includes.ai.SearchStats;
+import includes.ai.Solver;
+import includes.ai.TablebasePlayer;
+import includes.ai.UltimatePlayer;
+import includes.engine.Game;
+import includes.engine.GameState;
+import includes.engine.MnkGame;
+import includes.engine.QubicGame;
+import includes.engine.UltimateGame;
+import includes.io.GameArchive;
+import includes.io.MoveJournal;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+import includes.session.GameBroadcaster;
+import includes.session.Spectator;
+import includes.io.XmlImport;
+import includes.ui.BoardComponent;
+import includes.ui.MoveListModel;
+import includes.ui.TaskRunner;
+
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.beans.XMLDecoder;
-import java.beans.XMLEncoder;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * TicTacToe.
@@ -45,38 +74,58 @@ import java.io.IOException;
  *      <p>X|O|X</p>
  * <h3>Functions in this Game:</h3>
  * <ol>
- *      <li>Two Player Game</li>
+ *      <li>Two Player Game or against the Computer {@link #opponent} {@link Solver}</li>
  *      <li>Now Playing: Show The Player Name {@link #playerName}, {@link #oPlayerName}, {@link #xPlayerName}</li>
- *      <li>Undo one Time: Go one move back! {@link #undoGame}</li>
+ *      <li>Undo and Redo: Go back and forward any number of moves {@link #undoGame} {@link #redoGame}</li>
  *      <li>New Game: Load everything from the beginning</li>
- *      <li>Load Saved Game: Load Saved Game from "recources/data.xml" {@link #btnLoadNewGame} {@link #loadNewGame()}</li>
- *      <li>Save Game: Save all Movements in "recources/data.xml" {@link #saveGame} {@link #saveGameAsXML()}</li>
+ *      <li>Load Saved Game: Load a Game by its id from the archive {@link #archiveFile}, or import the old {@link #xmlFile} {@link #loadSavedGame} {@link #openSavedGame()}</li>
+ *      <li>Save Game: Append all Movements in order to the archive {@link #archiveFile}, every save gets a new game id {@link #saveGame} {@link #saveGameToArchive()}</li>
  *      <li>Exit Game: Close the Windows {@link #exitGame} {@link #exitGameNow()}</li>
  *      <li>List of all Movements: {@link #lblLog} {@link #lblLogModel}</li>
+ *      <li>Every move and undo is written to a journal {@link #journal}, after a crash the running game comes back on the next start</li>
+ *      <li>Every move and undo is sent to the spectators of this game {@link #getSpectators()}</li>
+ *      <li>Metrics: time of every event on the EDT, of the win check and of the dialogs, also with JMX {@link Metrics}</li>
+ *      <li>No blocking work on the EDT: the Computer, saving and loading run as tasks {@link #tasks}, the journal has its own thread
+ *      {@link #journalWriter}, the progress bar {@link #progress} shows them and a click on it cancels them</li>
  * </ol>
+ * The rules live in the engine {@link Game}, this frame only shows it.
+ * The board has any size and any win length {@link #MainFrame(int, int, int)}, like 15x15 with 5 in a row,
+ * or is Ultimate TicTacToe with 9 9 0 {@link UltimateGame} or Qubic with 4 16 0 {@link QubicGame}.
  */
 
 public class MainFrame extends JFrame implements ActionListener {
 
-    private int posX;
-    private int posY;
+    private static final Histogram ACTION_NANOS = Metrics.histogram("ui.action");
+    private static final Histogram MOVE_NANOS = Metrics.histogram("ui.move");
+    private static final Histogram DIALOG_NANOS = Metrics.histogram("ui.dialog");
+    private static final LongAdder MOVES = Metrics.counter("ui.moves");
 
-    private Integer n = 0;
+    private final Game state;
+    private final Player[] computers;
+    private final SplittableRandom random = new SplittableRandom();
+    private final TaskRunner tasks;
+    private TaskRunner.Task<Integer> computerTask;
+    private GameArchive archive;
+    private final MoveJournal journal;
+    private final ExecutorService journalWriter;
+    private final GameBroadcaster spectators;
 
-    private JList lblLog;
-    private DefaultListModel<String> lblLogModel;
-    private Object[][] data = new Object[3][3];
-    private Object[][] loadData = new Object[3][3];
+    private JList<String> lblLog;
+    private MoveListModel lblLogModel;
 
-    private JButton[][] btn = new JButton[3][3];
+    private BoardComponent board;
 
     private JButton btnLoadNewGame;
     private JButton saveGame;
     private JButton loadSavedGame;
     private JButton exitGame;
     private JButton undoGame;
+    private JButton redoGame;
+    private JComboBox<String> opponent;
+    private JCheckBox hints;
 
     private JLabel playerName;
+    private JProgressBar progress;
 
     private Color mainColor = new Color(175, 219, 216);
 
@@ -87,20 +136,144 @@ public class MainFrame extends JFrame implements ActionListener {
     private String xWinner = "X is the Winner. Do you want to play again?";
     private String oWinner = "O is the Winner. Do you want to play again?";
     private String noWinner = "No Winner :-( Do you want to play again?";
+    private String[] opponents = {"Two Players", "vs. Computer", "vs. Computer (MCTS)"};
+    private long computerMillis = 500;
+    private Path archiveFile = Paths.get("recources", "games.tta");
+    private Path xmlFile = Paths.get("recources", "data.xml");
+
+    /**
+     * Load The Main Frame with the classic 3x3 board {@link #MainFrame(int, int, int)}
+     */
+    public MainFrame() {
+        this(GameState.SIZE, GameState.SIZE, GameState.SIZE);
+    }
 
     /**
      * Load The Main Frame.
      *
      * <ol>
+     *      <li>Create the engine {@link Game#create(int, int, int)} and the Computers for the {@link #opponents}, Two Players has none:
+     *      perfect on 3x3 {@link Solver}, the parallel bitboard search on Ultimate {@link UltimatePlayer}, the threat search on Qubic {@link QubicPlayer},
+     *      else the tablebase of the board if there is one {@link TablebasePlayer} or alpha-beta,
+     *      and Monte Carlo Tree Search on all cores, both with {@link #computerMillis} per move</li>
+     *      <li>Map the tablebase of this board now, only its header is read {@link TablebasePlayer#table(Game)}</li>
      *      <li>Init. Frame {@link #initFrame()}</li>
      *      <li>Init. Components {@link #initComponents()}</li>
      *      <li>Init. Load New Game {@link #loadNewGame()}</li>
+     *      <li>Show the game of the journal again if it was not finished {@link #openJournal(int, int, int)},
+     *      a finished game is dropped, the new game starts the journal again {@link #publishReset()}</li>
      * </ol>
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k: how many in a row win
      */
-    public MainFrame() {
+    public MainFrame(int rows, int cols, int winLength) {
+        Metrics.registerMBean();
+        state = Game.create(rows, cols, winLength);
+        TablebasePlayer tablebase = new TablebasePlayer(Paths.get("recources"), new AlphaBetaPlayer(computerMillis));
+        tablebase.table(state);
+        spectators = new GameBroadcaster(state);
+        int cores = Runtime.getRuntime().availableProcessors();
+        computers = new Player[]{
+                null,
+                state instanceof GameState ? Player.of("perfect")
+                        : state instanceof UltimateGame ? new UltimatePlayer(cores, computerMillis)
+                        : state instanceof QubicGame ? new QubicPlayer(computerMillis) : tablebase,
+                new MctsPlayer(cores, computerMillis)
+        };
+        tasks = new TaskRunner(2, this::showProgress, this::showError);
+        journalWriter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journal = openJournal(rows, cols, winLength);
+        Game restored = journal == null ? null : journal.game();
         initFrame();
         initComponents();
         loadNewGame();
+        // a finished game is not shown again, loadNewGame has already started the journal with the empty board
+        if (restored != null && restored.moveCount() > 0 && !restored.isOver()) {
+            showGame(restored);
+        }
+    }
+
+    /**
+     * Open the journal of this board size: <code>recources/journal-MxN-K.wal</code>
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return MoveJournal or null if it can not be opened, then the game is played without
+     */
+    private MoveJournal openJournal(int rows, int cols, int winLength) {
+        try {
+            return new MoveJournal(Paths.get("recources", "journal-" + rows + "x" + cols + "-" + winLength + ".wal"), state);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * @return GameBroadcaster of this game, to watch it {@link GameBroadcaster#subscribe(Spectator, java.util.concurrent.Executor)}
+     */
+    public GameBroadcaster getSpectators() {
+        return spectators;
+    }
+
+    /**
+     * Write to the journal on its own thread {@link #journalWriter}, so the EDT never waits for the disk.
+     * There is only one thread, so the journal gets everything in the order of the game.
+     *
+     * @param write JournalWrite
+     */
+    private void writeJournal(JournalWrite write) {
+        if (journal != null) {
+            journalWriter.execute(() -> {
+                try {
+                    write.write(journal);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+    }
+
+    /**
+     * One write to the journal {@link #writeJournal(JournalWrite)}
+     */
+    private interface JournalWrite {
+        void write(MoveJournal journal) throws IOException;
+    }
+
+    /**
+     * Write a move to the journal {@link MoveJournal#move(int)} and send it to the spectators {@link GameBroadcaster#moved(int)}
+     *
+     * @param cell Integer
+     */
+    private void publishMove(int cell) {
+        spectators.moved(cell);
+        writeJournal(j -> j.move(cell));
+    }
+
+    /**
+     * Write an undo to the journal {@link MoveJournal#undo()} and send it to the spectators {@link GameBroadcaster#undone()}
+     */
+    private void publishUndo() {
+        spectators.undone();
+        writeJournal(MoveJournal::undo);
+    }
+
+    /**
+     * Start the journal again with a copy of the current game {@link MoveJournal#reset(Game)}, the spectators get it as snapshot
+     * {@link GameBroadcaster#reset(Game)}
+     */
+    private void publishReset() {
+        spectators.reset(state);
+        Game start = state.copy();
+        writeJournal(j -> j.reset(start));
     }
 
     /**
@@ -137,17 +310,19 @@ public class MainFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Initialisierung aller Componente 1- 9 Butons of X, O JList Bewegungssensor
+     * Initialisierung aller Componente: the board, the JList Bewegungssensor and the Buttons
      */
     private void initComponents() {
-        // Init. X,O Buttons
-        initXOButtons();
+        // Init. the board of X and O
+        initBoard();
         // Init. list of Movements (Clicks)
         initListOfMovements();
         // Init Label Player Name
         initPlayerNameLabel();
         // Init. Undo Button
         initUndoButton();
+        // Init. Redo Button
+        initRedoButton();
         // Init. load new game button
         initLoadNewGameButton();
         // Init. load saved game button
@@ -156,6 +331,88 @@ public class MainFrame extends JFrame implements ActionListener {
         initSaveGameButton();
         // Init. exit game button
         initExitGameButton();
+        // Init. opponent combo box
+        initOpponentComboBox();
+        // Init. progress bar of the tasks
+        initProgressBar();
+        // Init. hints check box
+        initHintsCheckBox();
+    }
+
+    /**
+     * Init. hints check box: show the threats and double threats of both players on the board {@link BoardComponent#setHints(boolean)},
+     * only m,n,k boards count their lines {@link MnkGame#lines()}
+     */
+    private void initHintsCheckBox() {
+        hints = new JCheckBox("Hints");
+        hints.setBounds(470, 300, 150, 18);
+        hints.setBackground(mainColor);
+        hints.setEnabled(state instanceof MnkGame);
+        hints.setToolTipText(state instanceof MnkGame ? "Light cells win at once, dots make a double threat" : "Only on m,n,k boards");
+        hints.addActionListener(this);
+        add(hints);
+    }
+
+    /**
+     * Init. progress bar: hidden until a task runs {@link #showProgress(String)}, a click cancels all tasks {@link #cancelTasks()}
+     */
+    private void initProgressBar() {
+        progress = new JProgressBar();
+        progress.setBounds(470, 284, 150, 14);
+        progress.setStringPainted(true);
+        progress.setToolTipText("Click to cancel");
+        progress.setIndeterminate(true);
+        progress.setVisible(false);
+        progress.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                cancelTasks();
+            }
+        });
+        add(progress);
+    }
+
+    /**
+     * Show the running task {@link TaskRunner.ProgressListener}
+     *
+     * @param name String name of the task, null to hide the progress bar
+     */
+    private void showProgress(String name) {
+        progress.setVisible(name != null);
+        progress.setString(name);
+    }
+
+    /**
+     * Show the error of a task
+     *
+     * @param name String name of the task
+     * @param e    Throwable
+     */
+    private void showError(String name, Throwable e) {
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(null, name + " failed: " + e.getMessage());
+    }
+
+    /**
+     * Cancel all tasks {@link TaskRunner#cancelAll()}. If the Computer was thinking, the human can play its move.
+     */
+    private void cancelTasks() {
+        tasks.cancelAll();
+        if (computerTask != null) {
+            computerTask = null;
+            XorO();
+        }
+    }
+
+    /**
+     * Init. opponent combo box: Two Players or vs. Computer
+     */
+    private void initOpponentComboBox() {
+        opponent = new JComboBox<>(opponents);
+        opponent.setBounds(470, 250, 150, 30);
+        opponent.setBackground(mainColor);
+        opponent.addActionListener(this);
+        add(opponent);
     }
 
     /**
@@ -211,14 +468,26 @@ public class MainFrame extends JFrame implements ActionListener {
      * Init. Undo Button
      */
     private void initUndoButton() {
-        undoGame = new JButton("Undo one Time");
-        undoGame.setBounds(470, 50, 150, 30);
+        undoGame = new JButton("Undo");
+        undoGame.setBounds(470, 50, 73, 30);
         undoGame.setEnabled(false);
         undoGame.addActionListener(this);
         undoGame.setBackground(mainColor);
         add(undoGame);
     }
 
+    /**
+     * Init. redo button
+     */
+    private void initRedoButton() {
+        redoGame = new JButton("Redo");
+        redoGame.setBounds(547, 50, 73, 30);
+        redoGame.setEnabled(false);
+        redoGame.addActionListener(this);
+        redoGame.setBackground(mainColor);
+        add(redoGame);
+    }
+
     /**
      * Init Label Player Name
      */
@@ -229,31 +498,29 @@ public class MainFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Init. list of Movements (Clicks)
+     * Init. list of Movements (Clicks): the rows come from the engine {@link MoveListModel}, only the visible rows are formatted.
+     * The prototype row gives every row the same height, so the list never measures all rows.
      */
     private void initListOfMovements() {
-        lblLogModel = new DefaultListModel<>();
-        lblLog = new JList(lblLogModel);
-        lblLog.setBounds(470, 300, 150, 170);
+        lblLogModel = new MoveListModel(state);
+        lblLog = new JList<>(lblLogModel);
+        lblLog.setPrototypeCellValue("Move n 10000:    ( 99, 99 )    X");
         lblLog.setBackground(mainColor);
-        add(lblLog);
+        JScrollPane scroll = new JScrollPane(lblLog);
+        scroll.setBounds(470, 320, 150, 150);
+        scroll.getViewport().setBackground(mainColor);
+        add(scroll);
     }
 
     /**
-     * Init. X,O Buttons
+     * Init. the board: one component for all cells {@link BoardComponent}, the board is 450 x 450, every cell gets the same size
      */
-    private void initXOButtons() {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                int u = 150;
-                btn[i][j] = new JButton();
-                btn[i][j].setBounds(10 + u * j, 10 + u * i, u, u);
-                btn[i][j].addActionListener(this);
-                btn[i][j].setFont(new Font("Tahoma", Font.BOLD, 72));
-                btn[i][j].setBackground(mainColor);
-                add(btn[i][j]);
-            }
-        }
+    private void initBoard() {
+        board = new BoardComponent(state, 450);
+        board.setLocation(10, 10);
+        board.setBackground(mainColor);
+        board.addCellListener(this::cellClicked);
+        add(board);
     }
 
     /**
@@ -264,28 +531,27 @@ public class MainFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * @return Integer n: Nummer or the counter of all Movements
-     */
-    private Integer getN() {
-        return n;
-    }
-
-    /**
-     * @param n Set the nummer of the movement
+     * @return Integer n: Nummer or the counter of all Movements {@link Game#moveCount()}
      */
-    private void setN(Integer n) {
-        this.n = n;
+    private int getN() {
+        return state.moveCount();
     }
 
     /**
      * Show Dialog Message with Messages like {@link #xWinner}, {@link #oWinner} or {@link #noWinner}
      * If YES is clicked Load New Game {@link #loadNewGame()}
+     * Nothing happens if the game was changed while the dialog was waiting {@link #checkWinner()}
      * Else Exit Game {@link #exitGameNow()}
      *
      * @param msg String
      */
     private void showMSGYesNo(String msg) {
+        if (!state.isOver()) {
+            return;
+        }
+        long start = System.nanoTime();
         int reply = JOptionPane.showConfirmDialog(null, msg, ticTitle, JOptionPane.YES_NO_OPTION);
+        DIALOG_NANOS.record(System.nanoTime() - start);
         if (reply == JOptionPane.YES_OPTION) {
             loadNewGame();
         } else {
@@ -315,40 +581,72 @@ public class MainFrame extends JFrame implements ActionListener {
     }
 
     /**
-     * Invoked when an action occurs.
+     * Invoked when an action occurs, the time on the EDT is measured {@link #handleAction(ActionEvent)}
      *
      * @param e the event to be processed
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                if (e.getSource() == btn[i][j]) {
-                    setN(getN() + 1);
-                    addXO(j, i);
-                    btn[i][j].setEnabled(false);
-                    btn[i][j].setText(XorO());
-                    checkWinner(i, j);
-                } // End If
-            } // End For j
-        } // End For i
+        long start = System.nanoTime();
+        try {
+            handleAction(e);
+        } finally {
+            ACTION_NANOS.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * A click on a cell of the board {@link BoardComponent.CellListener}, the time on the EDT is measured like {@link #actionPerformed(ActionEvent)}
+     * <ol>
+     *      <li>Only an empty cell, not while the Computer is thinking and not after the end of the game {@link Game#isLegal(int)}</li>
+     *      <li>Add X or O {@link #addXO(int, int)}, Check the Winner {@link #checkWinner()} and let the Computer play {@link #computerMove()}</li>
+     * </ol>
+     *
+     * @param cell Integer
+     */
+    private void cellClicked(int cell) {
+        long start = System.nanoTime();
+        try {
+            if (computerTask == null && state.isLegal(cell)) {
+                addXO(cell % state.cols(), cell / state.cols());
+                checkWinner();
+                computerMove();
+            }
+        } finally {
+            ACTION_NANOS.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Handle an action of a button or the opponent box
+     *
+     * @param e the event to be processed
+     */
+    private void handleAction(ActionEvent e) {
 
         // Load new game:
         if (e.getSource() == btnLoadNewGame) {
             loadNewGameMethod();
         }
 
+        // Change opponent: start again
+        if (e.getSource() == opponent) {
+            loadNewGame();
+        }
+
         // Exit Game:
         if (e.getSource() == exitGame) {
             exitGameNow();
         }
 
         // Undo the last Movement
-        if (getN() > 0) {
-            undoGame.setEnabled(true);
-            if (e.getSource() == undoGame) {
-                undoGameMethod();
-            }
+        if (e.getSource() == undoGame && computerTask == null && getN() > 0) {
+            undoGameMethod();
+        }
+
+        // Redo the last undone Movement
+        if (e.getSource() == redoGame && computerTask == null && state.redoCount() > 0) {
+            redoGameMethod();
         }
 
         // Save Game
@@ -358,7 +656,12 @@ public class MainFrame extends JFrame implements ActionListener {
 
         // Load Saved Game
         if (e.getSource() == loadSavedGame) {
-            openGameFromXML();
+            openSavedGame();
+        }
+
+        // Show or hide the hints
+        if (e.getSource() == hints) {
+            board.setHints(hints.isSelected());
         }
 
 
@@ -367,13 +670,14 @@ public class MainFrame extends JFrame implements ActionListener {
     /**
      * Save Game Method:
      * <ol>
-     *      <li>Save Game as XML {@link #saveGameAsXML()}</li>
-     *      <li>Show Message</li>
+     *      <li>Append a copy of the Game to the archive in a task {@link #saveGameToArchive(Game)}</li>
+     *      <li>Show Message with the game id</li>
      * </ol>
      */
     private void saveGameMethod() {
-        saveGameAsXML();
-        JOptionPane.showMessageDialog(null, "Game saved!");
+        Game game = state.copy();
+        tasks.runUninterruptible("Saving game", () -> saveGameToArchive(game),
+                id -> JOptionPane.showMessageDialog(null, "Game saved! Game id: " + id));
     }
 
     /**
@@ -393,91 +697,170 @@ public class MainFrame extends JFrame implements ActionListener {
     /**
      * Undo Game Method:
      * <ol>
-     *     <li>Set n the Counter -1 {@link #setN(Integer)} to be acceptable with the indexing of the model {@link #lblLogModel} and the object {@link #data}</li>
-     *     <li>Enable the last clicked Button, und set its text to "" then set the player name back using {@link #XorO()}</li>
-     *     <li>Disable the Undo Button again</li>
+     *     <li>Undo the last move in the engine {@link Game#undo()}, the counter n {@link #getN()} goes -1 to be acceptable with the indexing of the model {@link #lblLogModel}</li>
+     *     <li>Paint the cell of the last move again {@link BoardComponent#cellChanged(int)}, then set the player name back using {@link #XorO()}</li>
+     *     <li>Against the Computer undo also the move before, so it is the turn of the human again</li>
      * </ol>
+     * It can be done again and again until the board is empty.
      */
     private void undoGameMethod() {
-        setN(getN() - 1);
-        lblLogModel.removeElementAt(lblLogModel.lastIndexOf(lblLogModel.lastElement()));
-        data[posX][posY] = null;
-        btn[getPosX()][getPosY()].setEnabled(true);
-        btn[getPosX()][getPosY()].setText("");
-        XorO();
-        undoGame.setEnabled(false);
+        undoLastMove();
+        if (isComputerGame() && getN() > 0 && state.sideToMove() == Game.O) {
+            undoLastMove();
+        }
     }
 
     /**
-     * Check The Winner (All Situations)
-     *
+     * Redo Game Method:
      * <ol>
-     *      <li>If 3 Xs are a raw {@link #msgBoxXWinner()}</li>
-     *      <li>If 3 Os are a raw {@link #msgBoxOWinner()}</li>
-     *      <li>If 3 Xs are a column {@link #msgBoxXWinner()}</li>
-     *      <li>If 3 Os are a column {@link #msgBoxOWinner()}</li>
-     *      <li>If 3 Xs are a 3 points of a line from the top left till the buttom of the right side {@link #msgBoxXWinner()}</li>
-     *      <li>If 3 Os are a 3 points of a line from the top left till the buttom of the right side {@link #msgBoxOWinner()}</li>
-     *      <li>If 3 Xs are a 3 points of a line from the top right till the buttom of the left side {@link #msgBoxXWinner()}</li>
-     *      <li>If 3 Os are a 3 points of a line from the top right till the buttom of the left side {@link #msgBoxOWinner()}</li>
-     *      <li>If there are no winners {@link #msgBoxNoWinner()}</li>
+     *     <li>Play the last undone move again {@link #redoLastMove()}</li>
+     *     <li>Against the Computer redo also its answer, so it is the turn of the human again</li>
+     *     <li>Check the Winner {@link #checkWinner()}</li>
+     *     <li>If there is nothing more to redo and it is the turn of the Computer, let it play {@link #computerMove()}</li>
      * </ol>
-     *
-     * @param i Integer, x Axis
-     * @param j Integer, y Axis
      */
-    private void checkWinner(int i, int j) {
-
-        // If 3 Xs are a raw
-        if (btn[i][0].getText() == "X" & btn[i][1].getText() == "X" & btn[i][2].getText() == "X") {
-            msgBoxXWinner();
+    private void redoGameMethod() {
+        redoLastMove();
+        if (isComputerGame() && state.redoCount() > 0 && state.sideToMove() == Game.O) {
+            redoLastMove();
         }
+        checkWinner();
+        computerMove();
+    }
 
-        // If 3 Os are a raw
-        if (btn[i][0].getText() == "O" & btn[i][1].getText() == "O" & btn[i][2].getText() == "O") {
-            msgBoxOWinner();
-        }
+    /**
+     * Undo the last move in the engine, the journal, the spectators, the board and the List of Movements
+     */
+    private void undoLastMove() {
+        int cell = state.undo();
+        publishUndo();
+        lblLogModel.update();
+        board.cellChanged(cell);
+        XorO();
+        updateUndoRedo();
+    }
 
-        // If 3 Xs are a column
-        if (btn[0][j].getText() == "X" & btn[1][j].getText() == "X" & btn[2][j].getText() == "X") {
-            msgBoxXWinner();
-        }
+    /**
+     * Redo the last undone move in the engine {@link Game#redo()}, the journal and the spectators, show it {@link #showMove(int, int)}
+     */
+    private void redoLastMove() {
+        int cell = state.redo();
+        publishMove(cell);
+        showMove(cell % state.cols(), cell / state.cols());
+    }
 
-        // If 3 Os are a column
-        if (btn[0][j].getText() == "O" & btn[1][j].getText() == "O" & btn[2][j].getText() == "O") {
-            msgBoxOWinner();
-        }
+    /**
+     * Enable Undo if there is a move and Redo if there is an undone move
+     */
+    private void updateUndoRedo() {
+        undoGame.setEnabled(getN() > 0);
+        redoGame.setEnabled(state.redoCount() > 0);
+    }
 
-        // If 3 Xs are a 3 points of a line from the top left till the buttom of the right side
-        if (btn[0][0].getText() == "X" & btn[1][1].getText() == "X" & btn[2][2].getText() == "X") {
-            msgBoxXWinner();
-        }
+    /**
+     * @return true if O is played by a Computer {@link #opponent}
+     */
+    private boolean isComputerGame() {
+        return getComputer() != null;
+    }
 
-        // If 3 Os are a 3 points of a line from the top left till the buttom of the right side
-        if (btn[0][0].getText() == "O" & btn[1][1].getText() == "O" & btn[2][2].getText() == "O") {
-            msgBoxOWinner();
-        }
+    /**
+     * @return Player of O chosen in {@link #opponent}, null for Two Players: the moves of O are the clicks on the board
+     */
+    private Player getComputer() {
+        return computers[opponent.getSelectedIndex()];
+    }
 
-        // If 3 Xs are a 3 points of a line from the top right till the buttom of the left side
-        if (btn[2][0].getText() == "X" & btn[1][1].getText() == "X" & btn[0][2].getText() == "X") {
-            msgBoxXWinner();
+    /**
+     * Computer Move: if it is the turn of the Computer, the Computer {@link #getComputer()} thinks on a copy of the game in a task {@link #tasks}
+     * <ol>
+     *      <li>The frame stays responsive, clicks on the board and undo wait until the move is done</li>
+     *      <li>The move is played on the Event Dispatch Thread {@link #computerMoveDone(int)}</li>
+     *      <li>A new game in between cancels the task {@link #loadNewGame()}</li>
+     *      <li>If the Computer fails, the error is shown {@link #showError(String, Throwable)} and the human can play its move</li>
+     * </ol>
+     */
+    private void computerMove() {
+        if (isComputerGame() && !state.isOver() && state.sideToMove() == Game.O && computerTask == null) {
+            Player computer = getComputer();
+            Game position = state.copy();
+            SplittableRandom taskRandom = random.split();
+            playerName.setText("Computer is thinking...");
+            computerTask = tasks.run("Computer is thinking", () -> computer.selectMove(position, taskRandom), cell -> {
+                computerTask = null;
+                computerMoveDone(cell);
+            }, e -> {
+                computerTask = null;
+                XorO();
+            });
         }
+    }
 
-        // If 3 Os are a 3 points of a line from the top right till the buttom of the left side
-        if (btn[2][0].getText() == "O" & btn[1][1].getText() == "O" & btn[0][2].getText() == "O") {
-            msgBoxOWinner();
+    /**
+     * Play the move of the Computer and show the search numbers (depth, nodes or playouts per second) as tool tip of {@link #playerName},
+     * a move from the tablebase needs no search
+     *
+     * @param cell Integer the cell chosen by the Computer
+     */
+    private void computerMoveDone(int cell) {
+        addXO(cell % state.cols(), cell / state.cols());
+        Player computer = getComputer();
+        if (computer instanceof TablebasePlayer) {
+            TablebasePlayer ai = (TablebasePlayer) computer;
+            playerName.setToolTipText("Tablebase, no search");
+            computer = ai.isLastFromTable() ? null : ai.getFallback();
+        }
+        if (computer instanceof SearchStats) {
+            SearchStats ai = (SearchStats) computer;
+            playerName.setToolTipText("Depth " + ai.getLastDepth() + ", " + ai.getLastNodes() + " nodes, " + ai.getLastNodesPerSecond() + " nodes/s");
+        } else if (computer instanceof MctsPlayer) {
+            MctsPlayer ai = (MctsPlayer) computer;
+            playerName.setToolTipText(ai.getLastPlayouts() + " playouts, " + ai.getLastPlayoutsPerSecond() + " playouts/s");
         }
+        checkWinner();
+    }
 
-        // If there are no winners
-        if (getN() == 9) {
-            msgBoxNoWinner();
+    /**
+     * Check The Winner (All Situations)
+     *
+     * <ol>
+     *      <li>If X has k in a raw, a column or a diagonal {@link #msgBoxXWinner()}</li>
+     *      <li>If O has k in a raw, a column or a diagonal {@link #msgBoxOWinner()}</li>
+     *      <li>If there are no winners and the board is full {@link #msgBoxNoWinner()}</li>
+     * </ol>
+     * The engine already checked the lines through the last move {@link Game#play(int)}.
+     * The dialog is shown after this event {@link SwingUtilities#invokeLater(Runnable)}, so the board is painted first.
+     */
+    private void checkWinner() {
+        int winner = state.winner();
+        boolean full = state.isFull();
+        if (winner == Game.X) {
+            SwingUtilities.invokeLater(this::msgBoxXWinner);
+        } else if (winner == Game.O) {
+            SwingUtilities.invokeLater(this::msgBoxOWinner);
+        } else if (full) {
+            SwingUtilities.invokeLater(this::msgBoxNoWinner);
         }
     }
 
     /**
-     * Exit Game
+     * Exit Game: wait for a save or load in progress {@link TaskRunner#awaitUninterruptible(long)}, cancel the other tasks,
+     * wait for the journal thread {@link #journalWriter}, write the journal to the disk and close the program
      */
     private void exitGameNow() {
+        tasks.awaitUninterruptible(5000);
+        tasks.cancelAll();
+        journalWriter.shutdown();
+        try {
+            journalWriter.awaitTermination(5, TimeUnit.SECONDS);
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         System.exit(0);
     }
 
@@ -485,28 +868,26 @@ public class MainFrame extends JFrame implements ActionListener {
      * Load New Game
      *
      * <ol>
-     *      <li>Set the Counter to 0 {@link #setN(Integer)}</li>
+     *      <li>Cancel the Computer if it is still thinking {@link #computerMove()}</li>
+     *      <li>Clear the engine {@link Game#reset()}, the Counter is 0 now {@link #getN()}, and start the journal and the spectators again {@link #publishReset()}</li>
      *      <li>Set Player Names {@link #setPlayerNames(String, String)}</li>
-     *      <li>Init. new 2d Object {@link #data} (empty one). The data object is used to store the movements on it to get it later back as {@link #loadData} loadData object</li>
      *      <li>As new player the X start always firstly</li>
-     *      <li>ReEnable all buttons</li>
      *      <li>Clear the movements list</li>
-     *      <li>Remove all button texts and set it to "" </li>
+     *      <li>Paint the empty board {@link BoardComponent#boardChanged()}</li>
      * </ol>
      */
     private void loadNewGame() {
-        setN(0);
-        undoGame.setEnabled(false);
-        setPlayerNames("Player X", "Player O");
-        data = new Object[3][3];
-        playerName.setText("Now Playing: " + getXPlayerName());
-        for (int i = 0; i < 3; i++) {
-            for (int j = 0; j < 3; j++) {
-                btn[i][j].setEnabled(true);
-                lblLogModel.clear();
-                btn[i][j].setText("");
-            }
+        if (computerTask != null) {
+            computerTask.cancel();
+            computerTask = null;
         }
+        state.reset();
+        publishReset();
+        updateUndoRedo();
+        setPlayerNames("Player X", isComputerGame() ? "Computer" : "Player O");
+        playerName.setText("Now Playing: " + getXPlayerName());
+        lblLogModel.update();
+        board.boardChanged();
     }
 
     /**
@@ -545,7 +926,7 @@ public class MainFrame extends JFrame implements ActionListener {
      * @return String
      */
     private String XorO() {
-        if (n == 1 || n == 3 || n == 5 || n == 7 || n == 9) {
+        if (state.sideToMove() == Game.O) {
             playerName.setText("Now Playing: " + getOPlayerName());
             return "X";
         } else {
@@ -558,128 +939,136 @@ public class MainFrame extends JFrame implements ActionListener {
     /**
      * Add X or O:
      * <ol>
-     *      <li>Add to the List of Movements using {@link #setPosX(int)}, {@link #setPosY(int)} and the Model {@link #lblLogModel}</li>
-     *      <li>Init. data {@link #data} to get the value of the counter n {@link #getN()}</li>
+     *      <li>Play the move in the engine {@link Game#play(int)} and write it to the journal and the spectators {@link #publishMove(int)}</li>
+     *      <li>Show it {@link #showMove(int, int)}</li>
      * </ol>
+     * The time of all of it goes to the {@link Metrics} as <code>ui.move</code>.
      *
      * @param posX Integer: X Axis
      * @param posY Integer: Y Axis
      */
-    private void addXO(Integer posX, Integer posY) {
-        setPosX(posX);
-        setPosY(posY);
-        data[posX][posY] = getN();
-        lblLogModel.add(getN() - 1, "Move n " + getN() + ":    ( " + posX + ", " + posY + " )" + "    " + XorO());
+    private void addXO(int posX, int posY) {
+        long start = System.nanoTime();
+        state.play(posY * state.cols() + posX);
+        MOVES.increment();
+        publishMove(posY * state.cols() + posX);
+        showMove(posX, posY);
+        MOVE_NANOS.record(System.nanoTime() - start);
     }
 
     /**
-     * Get X Position
+     * Show the last move of the engine:
+     * <ol>
+     *      <li>Paint the cell again {@link BoardComponent#cellChanged(int)} and set the player name using {@link #XorO()}</li>
+     *      <li>Add to the end of the List of Movements using the Model {@link #lblLogModel} and scroll to it</li>
+     *      <li>Enable Undo and Redo {@link #updateUndoRedo()}</li>
+     * </ol>
      *
-     * @return Integer
+     * @param posX Integer: X Axis
+     * @param posY Integer: Y Axis
      */
-    private int getPosX() {
-        return posX;
+    private void showMove(int posX, int posY) {
+        XorO();
+        board.cellChanged(posY * state.cols() + posX);
+        lblLogModel.update();
+        lblLog.ensureIndexIsVisible(getN() - 1);
+        updateUndoRedo();
     }
 
     /**
-     * Set X Position
-     *
-     * @param posX Integer
+     * @return GameArchive of {@link #archiveFile}, opened on the first use, by any task thread
+     * @throws IOException if the archive can not be opened
      */
-    private void setPosX(int posX) {
-        this.posX = posX;
+    private synchronized GameArchive getArchive() throws IOException {
+        if (archive == null) {
+            archive = new GameArchive(archiveFile);
+        }
+        return archive;
     }
 
     /**
-     * Get Y Position
+     * Save Game to the archive, on a task thread:
+     * <p>
+     * Append the game with all moves in order to {@link #archiveFile} {@link GameArchive#append(Game)} and write it to the disk
      *
-     * @return Integer
+     * @param game Game a copy of the game
+     * @return Long the new game id
+     * @throws IOException if the game can not be saved
      */
-    private int getPosY() {
-        return posY;
+    private long saveGameToArchive(Game game) throws IOException {
+        long id = getArchive().append(game);
+        getArchive().force();
+        return id;
     }
 
     /**
-     * Set Y Position
+     * Open Saved Game, the files are read in tasks {@link #tasks}:
      *
-     * @param posY Integer
-     */
-    private void setPosY(int posY) {
-        this.posY = posY;
-    }
-
-    /**
-     * Write a File as XML:
      * <ol>
-     *      <li>Use new XML Encoder and File Output Stream to save this object {@link #data} to a file</li>
+     *      <li>If the archive {@link #archiveFile} is empty, import the old XML save {@link #xmlFile} {@link #importXml()}</li>
+     *      <li>Else ask for the game id, the last saved game is the default</li>
+     *      <li>Read the game from the archive {@link GameArchive#load(long)}</li>
+     *      <li>Show the game {@link #showGame(Game)}</li>
      * </ol>
-     *
-     * @param obj  Object like {@link #data}
-     * @param file String File Name and Path: Here, it is "recources/data.xml"
-     * @throws FileNotFoundException File Not Found Exception
      */
-    private void writeXML(Object obj, String file) throws FileNotFoundException {
-        XMLEncoder xenc = new XMLEncoder(new FileOutputStream(file));
-        xenc.writeObject(obj);
-        xenc.close();
+    private void openSavedGame() {
+        tasks.runUninterruptible("Opening archive", () -> getArchive().size(), (Long games) -> {
+            if (games == 0) {
+                importXml();
+                return;
+            }
+            String answer = JOptionPane.showInputDialog(null, "Game id (0.." + (games - 1) + "):", games - 1);
+            if (answer == null) {
+                return;
+            }
+            long id;
+            try {
+                id = Long.parseLong(answer.trim());
+            } catch (NumberFormatException e) {
+                JOptionPane.showMessageDialog(null, "Not a game id: " + e.getMessage());
+                return;
+            }
+            tasks.runUninterruptible("Loading game " + id, () -> getArchive().load(id), this::showGame);
+        });
     }
 
     /**
-     * Save Game as XML:
-     * <p>
-     * Write a File as XML {@link #writeXML(Object, String)}, Object ist {@link #data}
+     * Import the old XML save {@link #xmlFile} in a task {@link XmlImport#load(Path, int)}
      */
-    private void saveGameAsXML() {
-        try {
-            writeXML(data, "recources/data.xml");
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    /**
-     * Read a XML File
-     * <ol>
-     *      <li>Use new XML Decoder and File Input Stream to save this object {@link #loadData} to a file</li>
-     * </ol>
-     *
-     * @param file String File Name and Path: Here, it is "recources/data.xml"
-     * @return obj  Object like {@link #loadData}
-     * @throws FileNotFoundException File Not Found Exception
-     */
-    private Object readXML(String file) throws FileNotFoundException {
-        XMLDecoder xdec = new XMLDecoder(new FileInputStream(file));
-        Object obj = xdec.readObject();
-        xdec.close();
-        return obj;
+    private void importXml() {
+        int winLength = state.winLength();
+        tasks.runUninterruptible("Importing XML", () -> Files.exists(xmlFile) ? XmlImport.load(xmlFile, winLength) : null, (Game loaded) -> {
+            if (loaded == null) {
+                JOptionPane.showMessageDialog(null, "There is no saved game.");
+            } else {
+                showGame(loaded);
+            }
+        });
     }
 
     /**
-     * Open Saved Game:
+     * Show a loaded Game:
      *
      * <ol>
+     *      <li>The board must have the same size and win length as this frame</li>
      *      <li>Load New Game {@link #loadNewGame()}</li>
-     *      <li>Read the game data from the file on "recources/data.xml" using the Object {@link #loadData} and the Method {@link #readXML(String)}</li>
+     *      <li>Replay all moves in order {@link #addXO(int, int)}</li>
+     *      <li>If it is the turn of the Computer, let it play {@link #computerMove()}</li>
      * </ol>
+     *
+     * @param loaded Game
      */
-    private void openGameFromXML() {
-        try {
-            loadNewGame();
-            loadData = (Object[][]) readXML("recources/data.xml");
-            for (int a = 0; a < 3; a++) {
-                for (int b = 0; b < 3; b++) {
-                    if (loadData[a][b] == null) {
-                        loadData[a][b] = 0;
-                    } else {
-                        setN(getN() + 1);
-                        addXO(a, b);
-                        btn[a][b].setEnabled(false);
-                        btn[a][b].setText(XorO());
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void showGame(Game loaded) {
+        if (loaded.rows() != state.rows() || loaded.cols() != state.cols() || loaded.winLength() != state.winLength()) {
+            JOptionPane.showMessageDialog(null, "The saved game is " + Game.describe(loaded.rows(), loaded.cols(), loaded.winLength())
+                    + ", this board is " + Game.describe(state.rows(), state.cols(), state.winLength()) + ".");
+            return;
+        }
+        loadNewGame();
+        for (int k = 0; k < loaded.moveCount(); k++) {
+            int cell = loaded.moveAt(k);
+            addXO(cell % state.cols(), cell / state.cols());
         }
+        computerMove();
     }
 }
@@ -0,0 +1,426 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.LineCounts;
+import includes.engine.MnkGame;
+import includes.engine.UltimateGame;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Alpha-Beta Player for big boards, where the game can not be solved.
+ *
+ * <ol>
+ *      <li>Iterative deepening: search depth 1, 2, 3, ... until the time budget is used up, the best move of the last finished depth is played</li>
+ *      <li>Negamax with alpha-beta pruning</li>
+ *      <li>Bounded transposition table indexed by the Zobrist hash of the game {@link Game#hash()}, always replace</li>
+ *      <li>Move ordering: move of the table first, then winning moves, blocking moves and the history heuristic</li>
+ *      <li>Only empty cells near a stone are searched</li>
+ * </ol>
+ * Every thread gets its own table and buffers, so one player can be used from many threads.
+ * The numbers of the last search are kept for tuning {@link #getLastDepth()}, {@link #getLastNodes()}, {@link #getLastNodesPerSecond()},
+ * the thinking time and the nodes of all searches go to the {@link Metrics}.
+ */
+public final class AlphaBetaPlayer implements Player, SearchStats {
+
+    /**
+     * Score of a won game, a faster win gets a bigger score
+     */
+    static final int WIN = 1_000_000;
+
+    /**
+     * Deepest search
+     */
+    static final int MAX_DEPTH = 64;
+
+    /**
+     * Biggest static evaluation, a heuristic score never looks like a won game {@link #WIN}
+     */
+    static final int MAX_EVALUATION = WIN - MAX_DEPTH - 1;
+
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+    private static final Histogram THINK_NANOS = Metrics.histogram("ai.alphabeta.think");
+    private static final LongAdder NODES = Metrics.counter("ai.alphabeta.nodes");
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final ThreadLocal<Search> searches;
+
+    private volatile int lastDepth;
+    private volatile long lastNodes;
+    private volatile long lastNanos;
+
+    /**
+     * Player with a table of 2^20 entries
+     *
+     * @param budgetMillis Long time budget per move
+     */
+    public AlphaBetaPlayer(long budgetMillis) {
+        this(budgetMillis, 20);
+    }
+
+    /**
+     * @param budgetMillis Long time budget per move
+     * @param tableBits    Integer the transposition table has 2^tableBits entries (16 bytes each) per thread
+     */
+    public AlphaBetaPlayer(long budgetMillis, int tableBits) {
+        this(budgetMillis, tableBits, MAX_DEPTH);
+    }
+
+    /**
+     * Player that also stops at a fixed depth, for benchmarks and tests where the time must not decide the move
+     *
+     * @param budgetMillis Long time budget per move
+     * @param tableBits    Integer the transposition table has 2^tableBits entries (16 bytes each) per thread
+     * @param maxDepth     Integer deepest search, 1..{@link #MAX_DEPTH}
+     */
+    public AlphaBetaPlayer(long budgetMillis, int tableBits, int maxDepth) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = Math.min(maxDepth, MAX_DEPTH);
+        this.searches = ThreadLocal.withInitial(() -> new Search(tableBits));
+    }
+
+    @Override
+    public String name() {
+        return "alphabeta";
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        long start = System.nanoTime();
+        Search search = searches.get();
+        int move = search.run(game, start + budgetNanos, maxDepth);
+        lastNanos = System.nanoTime() - start;
+        lastNodes = search.nodes;
+        lastDepth = search.depth;
+        THINK_NANOS.record(lastNanos);
+        NODES.add(search.nodes);
+        return move;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public long getLastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Static evaluation: every window of k cells in a row, column or diagonal that only one player uses
+     * is worth more the more stones it has {@link LineCounts#weight(int)}.
+     * A {@link MnkGame} keeps the sum up to date with every move {@link LineCounts#score()}, other games are scanned.
+     * Ultimate TicTacToe has no windows of k cells, it gets the evaluation of the {@link UltimatePlayer}.
+     *
+     * @param game Game
+     * @return Integer score for the player to move, always below the score of a won game
+     */
+    static int evaluate(Game game) {
+        if (game instanceof UltimateGame) {
+            return UltimatePlayer.evaluate((UltimateGame) game);
+        }
+        long score;
+        if (game instanceof MnkGame) {
+            score = ((MnkGame) game).lines().score();
+        } else {
+            int rows = game.rows();
+            int cols = game.cols();
+            int k = game.winLength();
+            score = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    score += window(game, r, c, 0, 1, k) + window(game, r, c, 1, 0, k)
+                            + window(game, r, c, 1, 1, k) + window(game, r, c, 1, -1, k);
+                }
+            }
+        }
+        int clamped = (int) Math.max(-MAX_EVALUATION, Math.min(MAX_EVALUATION, score));
+        return game.sideToMove() == Game.X ? clamped : -clamped;
+    }
+
+    /**
+     * @return Long value of one window for X (&gt; 0) or O (&lt; 0), 0 if it does not fit or both players use it
+     */
+    private static long window(Game game, int row, int col, int dRow, int dCol, int k) {
+        int endRow = row + dRow * (k - 1);
+        int endCol = col + dCol * (k - 1);
+        if (endRow >= game.rows() || endCol < 0 || endCol >= game.cols()) {
+            return 0;
+        }
+        int x = 0;
+        int o = 0;
+        for (int i = 0; i < k; i++) {
+            int p = game.get((row + dRow * i) * game.cols() + col + dCol * i);
+            if (p == Game.X) {
+                x++;
+            } else if (p == Game.O) {
+                o++;
+            }
+        }
+        if (x > 0 && o > 0) {
+            return 0;
+        }
+        return LineCounts.weight(x) - LineCounts.weight(o);
+    }
+
+    /**
+     * Search of one thread: transposition table, move buffers and counters
+     */
+    private static final class Search {
+
+        private final long[] keys;
+        private final long[] data;
+        private final int mask;
+
+        private int[][] moves = new int[0][];
+        private int[][] scores = new int[0][];
+        private int[] history = new int[0];
+        private int[] stamp = new int[0];
+        private int stampCounter;
+
+        private long deadline;
+        private boolean aborted;
+        private long nodes;
+        private int depth;
+        private int rootBest;
+
+        Search(int tableBits) {
+            keys = new long[1 << tableBits];
+            data = new long[1 << tableBits];
+            mask = (1 << tableBits) - 1;
+        }
+
+        /**
+         * Iterative deepening until the deadline
+         *
+         * @param game     Game, played and undone in place
+         * @param deadline Long System.nanoTime() to stop at
+         * @param limit    Integer deepest search
+         * @return Integer best cell
+         */
+        int run(Game game, long deadline, int limit) {
+            prepare(game.cellCount());
+            this.deadline = deadline;
+            this.aborted = false;
+            this.nodes = 0;
+            this.depth = 0;
+            int count = generate(game, 0, -1);
+            int best = moves[0][0];
+            if (count == 1) {
+                return best;
+            }
+            int maxDepth = Math.min(limit, game.cellCount() - game.moveCount());
+            for (int d = 1; d <= maxDepth; d++) {
+                rootBest = best;
+                int score = negamax(game, d, -INFINITY, INFINITY, 0);
+                if (aborted) {
+                    break;
+                }
+                best = rootBest;
+                depth = d;
+                if (Math.abs(score) >= WIN - MAX_DEPTH) {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Make the buffers big enough for the board, and age the history
+         */
+        private void prepare(int cells) {
+            if (history.length != cells) {
+                moves = new int[MAX_DEPTH + 1][cells];
+                scores = new int[MAX_DEPTH + 1][cells];
+                history = new int[cells];
+                stamp = new int[cells];
+                stampCounter = 0;
+            }
+            for (int i = 0; i < cells; i++) {
+                history[i] >>= 2;
+            }
+        }
+
+        private int negamax(Game game, int depth, int alpha, int beta, int ply) {
+            if ((++nodes & 63) == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (game.winner() != Game.EMPTY) {
+                return -(WIN - ply);
+            }
+            if (game.isFull()) {
+                return 0;
+            }
+            if (depth == 0 || ply == MAX_DEPTH) {
+                return evaluate(game);
+            }
+
+            long key = game.hash();
+            int index = (int) key & mask;
+            int ttMove = -1;
+            if (keys[index] == key) {
+                long entry = data[index];
+                ttMove = SearchSupport.move(entry);
+                if (ply > 0 && SearchSupport.depth(entry) >= depth) {
+                    int score = SearchSupport.score(entry, ply, WIN - MAX_DEPTH);
+                    if (SearchSupport.cuts(SearchSupport.bound(entry), score, alpha, beta)) {
+                        return score;
+                    }
+                }
+            }
+
+            int alphaStart = alpha;
+            int count = generate(game, ply, ttMove);
+            int[] list = moves[ply];
+            int best = -INFINITY;
+            int bestMove = list[0];
+            for (int i = 0; i < count; i++) {
+                int cell = list[i];
+                game.play(cell);
+                int score = -negamax(game, depth - 1, -beta, -alpha, ply + 1);
+                game.undo();
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = cell;
+                    if (ply == 0) {
+                        rootBest = cell;
+                    }
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (alpha >= beta) {
+                    history[cell] += depth * depth;
+                    break;
+                }
+            }
+
+            keys[index] = key;
+            data[index] = SearchSupport.entry(best, ply, WIN - MAX_DEPTH, bestMove, depth, SearchSupport.bound(best, alphaStart, beta));
+            return best;
+        }
+
+        /**
+         * Ordered candidate moves of a node into {@link #moves}[ply]:
+         * <ol>
+         *      <li>A winning move is the only move</li>
+         *      <li>Else if the other player could win, only the blocking moves</li>
+         *      <li>Else all empty cells at most 2 cells away from a stone, the table move first, then by history</li>
+         *      <li>Ultimate TicTacToe: all legal moves {@link #generateUltimate(UltimateGame, int, int)}</li>
+         * </ol>
+         *
+         * @return Integer number of moves
+         */
+        private int generate(Game game, int ply, int ttMove) {
+            if (game instanceof UltimateGame) {
+                return generateUltimate((UltimateGame) game, ply, ttMove);
+            }
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int cols = game.cols();
+            int rows = game.rows();
+            if (game.moveCount() == 0) {
+                list[0] = (rows / 2) * cols + cols / 2;
+                return 1;
+            }
+            int mine = game.sideToMove();
+            int theirs = mine == Game.X ? Game.O : Game.X;
+            int count = 0;
+            int blocks = 0;
+            stampCounter++;
+            for (int m = 0; m < game.moveCount(); m++) {
+                int stone = game.moveAt(m);
+                int row = stone / cols;
+                int col = stone % cols;
+                for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+                    for (int c = Math.max(0, col - 2); c <= Math.min(cols - 1, col + 2); c++) {
+                        int cell = r * cols + c;
+                        if (stamp[cell] == stampCounter || game.get(cell) != Game.EMPTY) {
+                            continue;
+                        }
+                        stamp[cell] = stampCounter;
+                        if (game.isWinningMove(cell, mine)) {
+                            list[0] = cell;
+                            return 1;
+                        }
+                        int score = history[cell];
+                        if (game.isWinningMove(cell, theirs)) {
+                            score = Integer.MAX_VALUE;
+                            blocks++;
+                        } else if (cell == ttMove) {
+                            score = Integer.MAX_VALUE - 1;
+                        }
+                        list[count] = cell;
+                        order[count++] = score;
+                    }
+                }
+            }
+            SearchSupport.sort(list, order, count);
+            return blocks > 0 ? blocks : count;
+        }
+
+        /**
+         * Ordered moves of Ultimate TicTacToe: only the small boards the player is sent to can be played, a stone near the last ones may be illegal.
+         * A winning move is the only move, there are no forced blocks: the move also chooses the small board of the other player
+         *
+         * @return Integer number of moves
+         */
+        private int generateUltimate(UltimateGame game, int ply, int ttMove) {
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int mine = game.sideToMove();
+            int count = game.legalMoves(list);
+            for (int i = 0; i < count; i++) {
+                int cell = list[i];
+                if (game.isWinningMove(cell, mine)) {
+                    list[0] = cell;
+                    return 1;
+                }
+                order[i] = cell == ttMove ? Integer.MAX_VALUE : history[cell];
+            }
+            SearchSupport.sort(list, order, count);
+            return count;
+        }
+    }
+}
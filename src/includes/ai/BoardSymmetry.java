@@ -0,0 +1,171 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+/**
+ * Symmetries of a small board (at most 16 cells), for the {@link Tablebase}.
+ *
+ * <ol>
+ *      <li>Every board: identity, mirror left/right, mirror up/down and the half turn</li>
+ *      <li>Square boards also: the quarter turns and both diagonal mirrors, 8 in all</li>
+ *      <li>A mask is turned with two table lookups, one per byte {@link #apply(int, int)}</li>
+ * </ol>
+ * A position is stored once, as its smallest key under all symmetries {@link #key(int, int)}.
+ */
+final class BoardSymmetry {
+
+    /**
+     * Biggest board: the key of X and O must fit in an int
+     */
+    static final int MAX_CELLS = 16;
+
+    private final int cells;
+    private final int count;
+    private final int[][] perm;
+    private final int[][] inv;
+    private final int[][] lowByte;
+    private final int[][] highByte;
+
+    /**
+     * @param rows Integer m
+     * @param cols Integer n, rows * cols at most {@link #MAX_CELLS}
+     */
+    BoardSymmetry(int rows, int cols) {
+        if (rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Board too big for a tablebase: " + rows + "x" + cols);
+        }
+        this.cells = rows * cols;
+        this.count = rows == cols ? 8 : 4;
+        this.perm = new int[count][cells];
+        this.inv = new int[count][cells];
+        int r1 = rows - 1;
+        int c1 = cols - 1;
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int[] to = {
+                        row * cols + col, row * cols + c1 - col,
+                        (r1 - row) * cols + col, (r1 - row) * cols + c1 - col,
+                        col * cols + row, col * cols + r1 - row,
+                        (c1 - col) * cols + row, (c1 - col) * cols + r1 - row
+                };
+                for (int s = 0; s < count; s++) {
+                    perm[s][row * cols + col] = to[s];
+                    inv[s][to[s]] = row * cols + col;
+                }
+            }
+        }
+        this.lowByte = new int[count][256];
+        this.highByte = new int[count][256];
+        for (int s = 0; s < count; s++) {
+            for (int b = 0; b < 256; b++) {
+                for (int bit = 0; bit < 8; bit++) {
+                    if ((b & 1 << bit) != 0) {
+                        if (bit < cells) {
+                            lowByte[s][b] |= 1 << perm[s][bit];
+                        }
+                        if (bit + 8 < cells) {
+                            highByte[s][b] |= 1 << perm[s][bit + 8];
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Integer number of symmetries, 4 or 8
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * @param s    Integer symmetry
+     * @param mask Integer cells
+     * @return Integer the cells under the symmetry
+     */
+    int apply(int s, int mask) {
+        return lowByte[s][mask & 0xFF] | highByte[s][mask >>> 8 & 0xFF];
+    }
+
+    /**
+     * @param s     Integer symmetry
+     * @param xBits Integer mask of X
+     * @param oBits Integer mask of O
+     * @return Integer key of the position under the symmetry
+     */
+    int key(int s, int xBits, int oBits) {
+        return apply(s, xBits) | apply(s, oBits) << cells;
+    }
+
+    /**
+     * @param xBits Integer mask of X
+     * @param oBits Integer mask of O
+     * @return Integer the smallest key under all symmetries
+     */
+    int key(int xBits, int oBits) {
+        int best = Integer.MAX_VALUE;
+        for (int s = 0; s < count; s++) {
+            best = Math.min(best, key(s, xBits, oBits));
+        }
+        return best;
+    }
+
+    /**
+     * @param xBits Integer mask of X
+     * @param oBits Integer mask of O
+     * @return Integer the symmetry that gives the smallest key {@link #key(int, int)}
+     */
+    int canonical(int xBits, int oBits) {
+        int best = Integer.MAX_VALUE;
+        int bestSym = 0;
+        for (int s = 0; s < count; s++) {
+            int key = key(s, xBits, oBits);
+            if (key < best) {
+                best = key;
+                bestSym = s;
+            }
+        }
+        return bestSym;
+    }
+
+    /**
+     * @param s    Integer symmetry
+     * @param cell Integer
+     * @return Integer where the cell goes under the symmetry
+     */
+    int map(int s, int cell) {
+        return perm[s][cell];
+    }
+
+    /**
+     * @param s    Integer symmetry
+     * @param cell Integer cell under the symmetry
+     * @return Integer the cell it came from
+     */
+    int unmap(int s, int cell) {
+        return inv[s][cell];
+    }
+}
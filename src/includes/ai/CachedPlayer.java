@@ -0,0 +1,141 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.UltimateGame;
+import includes.engine.Zobrist;
+
+import java.util.SplittableRandom;
+
+/**
+ * Cached Player: asks an other player only once per position, the answer is kept in a {@link PositionCache}.
+ *
+ * <ol>
+ *      <li>The key is the smallest Zobrist hash of the position under all symmetries of the board (8 on square boards, 4 else),
+ *      together with the board size and the win length, so all games in the process share one cache</li>
+ *      <li>The move is stored as seen on the smallest symmetry and turned back for the position that asks</li>
+ *      <li>A move from the cache is checked to be legal, a rare wrong key costs a search and not an illegal move</li>
+ * </ol>
+ * Meant for the searching players (alphabeta, mcts): thousands of games on a server or in a {@link includes.sim.Simulator}
+ * meet the same positions again and again. A player that chooses randomly between equal moves always plays the first choice here.
+ */
+public final class CachedPlayer implements Player {
+
+    /**
+     * Inverse of every symmetry, only the quarter turns (5 and 6) undo each other
+     */
+    private static final int[] INVERSE = {0, 1, 2, 3, 4, 6, 5, 7};
+
+    private final Player player;
+    private final PositionCache cache;
+
+    /**
+     * @param player Player that finds the moves the cache does not know
+     * @param cache  PositionCache, like the one of the whole program {@link PositionCache#shared()}
+     */
+    public CachedPlayer(Player player, PositionCache cache) {
+        this.player = player;
+        this.cache = cache;
+    }
+
+    @Override
+    public String name() {
+        return "cached:" + player.name();
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        int symmetries = game.rows() == game.cols() ? 8 : 4;
+        long key = 0;
+        int symmetry = 0;
+        for (int s = 0; s < symmetries; s++) {
+            long hash = 0;
+            for (int m = 0; m < game.moveCount(); m++) {
+                int cell = game.moveAt(m);
+                hash ^= Zobrist.key(map(game, cell, s), game.get(cell));
+            }
+            if (s == 0 || Long.compareUnsigned(hash, key) < 0) {
+                key = hash;
+                symmetry = s;
+            }
+        }
+        if (game instanceof UltimateGame && game.moveCount() > 0) {
+            // the last move decides which small boards can be played
+            key ^= Zobrist.key(game.cellCount() + map(game, game.lastMove(), symmetry), Game.X);
+        }
+        // the board is hashed like a stone on a cell that does not exist, so each board size has its own keys
+        key ^= Zobrist.key(-1 - (game.rows() << 20 | game.cols() << 8 | game.winLength()), Game.EMPTY);
+        long value = cache.get(key);
+        if (value != 0) {
+            int cell = map(game, (int) value - 1, INVERSE[symmetry]);
+            if (game.isLegal(cell)) {
+                return cell;
+            }
+        }
+        int cell = player.selectMove(game, random);
+        cache.put(key, map(game, cell, symmetry) + 1);
+        return cell;
+    }
+
+    /**
+     * @return Player that finds the moves the cache does not know
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * @param game     Game for the board size
+     * @param cell     Integer
+     * @param symmetry Integer 0..7, 4..7 only on square boards (the same order as {@link BoardSymmetry})
+     * @return Integer the cell after the symmetry
+     */
+    private static int map(Game game, int cell, int symmetry) {
+        int cols = game.cols();
+        int row = cell / cols;
+        int col = cell % cols;
+        int r1 = game.rows() - 1;
+        int c1 = cols - 1;
+        switch (symmetry) {
+            case 0:
+                return cell;
+            case 1:
+                return row * cols + c1 - col;
+            case 2:
+                return (r1 - row) * cols + col;
+            case 3:
+                return (r1 - row) * cols + c1 - col;
+            case 4:
+                return col * cols + row;
+            case 5:
+                return col * cols + r1 - row;
+            case 6:
+                return (c1 - col) * cols + row;
+            default:
+                return (c1 - col) * cols + r1 - row;
+        }
+    }
+}
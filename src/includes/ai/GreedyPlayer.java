@@ -0,0 +1,72 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Greedy Player:
+ * <ol>
+ *      <li>Win now if possible</li>
+ *      <li>Else block the line the other player would win with</li>
+ *      <li>Else play a random empty cell {@link RandomPlayer}</li>
+ * </ol>
+ */
+public final class GreedyPlayer implements Player {
+
+    /**
+     * The player has no state, one instance is enough
+     */
+    public static final GreedyPlayer INSTANCE = new GreedyPlayer();
+
+    private GreedyPlayer() {
+    }
+
+    @Override
+    public String name() {
+        return "greedy";
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        int mine = game.sideToMove();
+        int theirs = mine == Game.X ? Game.O : Game.X;
+        int block = -1;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (!game.isLegal(cell)) {
+                continue;
+            }
+            if (game.isWinningMove(cell, mine)) {
+                return cell;
+            }
+            if (block < 0 && game.isWinningMove(cell, theirs)) {
+                block = cell;
+            }
+        }
+        return block >= 0 ? block : RandomPlayer.INSTANCE.selectMove(game, random);
+    }
+}
@@ -0,0 +1,372 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.QubicGame;
+import includes.engine.UltimateGame;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parallel Monte Carlo Tree Search Player.
+ *
+ * <ol>
+ *      <li>All worker threads share one tree, there are no locks</li>
+ *      <li>The statistics of a node are one long (visits in the high 32 bits, half points in the low 32 bits), changed with one atomic add</li>
+ *      <li>Virtual loss: a node counts the visit when a worker goes down through it, the points come only with the result,
+ *      so the other workers see it as a loss for now and choose an other path</li>
+ *      <li>The children of a node are made once, the first worker wins the compare-and-set</li>
+ *      <li>Every worker has its own copy of the game and its own {@link SplittableRandom}</li>
+ * </ol>
+ * The search stops after a number of playouts or after a time budget, whatever comes first.
+ * The thinking time and the playouts of all searches go to the {@link Metrics}.
+ */
+public final class MctsPlayer implements Player {
+
+    /**
+     * UCT exploration constant
+     */
+    private static final double EXPLORATION = 1.4;
+
+    private static final Histogram THINK_NANOS = Metrics.histogram("ai.mcts.think");
+    private static final LongAdder PLAYOUTS = Metrics.counter("ai.mcts.playouts");
+
+    private final int threads;
+    private final long budgetNanos;
+    private final long maxPlayouts;
+    private final ExecutorService pool;
+
+    private volatile long lastPlayouts;
+    private volatile long lastNanos;
+
+    /**
+     * Player with a time budget only
+     *
+     * @param threads      Integer worker threads
+     * @param budgetMillis Long time budget per move
+     */
+    public MctsPlayer(int threads, long budgetMillis) {
+        this(threads, budgetMillis, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param threads      Integer worker threads, the calling thread is one of them
+     * @param budgetMillis Long time budget per move
+     * @param maxPlayouts  Long playout budget per move
+     */
+    public MctsPlayer(int threads, long budgetMillis, long maxPlayouts) {
+        this.threads = threads;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxPlayouts = maxPlayouts;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "mcts-worker");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @Override
+    public String name() {
+        return "mcts";
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        Node root = new Node(-1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            Worker worker = new Worker(game.copy(), random.split(), root, deadline);
+            futures.add(pool.submit(worker));
+        }
+        new Worker(game.copy(), random.split(), root, deadline).run();
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(worker -> worker.cancel(true));
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("MCTS worker failed", e.getCause());
+            }
+        }
+        lastNanos = System.nanoTime() - start;
+        lastPlayouts = Node.visits(root.stats);
+        THINK_NANOS.record(lastNanos);
+        PLAYOUTS.add(lastPlayouts);
+        return mostVisited(root);
+    }
+
+    /**
+     * @return Long playouts of the last move
+     */
+    public long getLastPlayouts() {
+        return lastPlayouts;
+    }
+
+    /**
+     * @return Long playouts per second of the last move
+     */
+    public long getLastPlayoutsPerSecond() {
+        return lastNanos == 0 ? 0 : lastPlayouts * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * @param root Node
+     * @return Integer move of the child with the most visits
+     */
+    private static int mostVisited(Node root) {
+        Node[] children = root.children;
+        int best = children[0].move;
+        long bestVisits = -1;
+        for (Node child : children) {
+            long visits = Node.visits(child.stats);
+            if (visits > bestVisits) {
+                bestVisits = visits;
+                best = child.move;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Node of the shared tree
+     */
+    private static final class Node {
+
+        private static final AtomicLongFieldUpdater<Node> STATS = AtomicLongFieldUpdater.newUpdater(Node.class, "stats");
+        private static final AtomicReferenceFieldUpdater<Node, Node[]> CHILDREN =
+                AtomicReferenceFieldUpdater.newUpdater(Node.class, Node[].class, "children");
+
+        private static final long VISIT = 1L << 32;
+
+        /**
+         * The cell played to get here
+         */
+        final int move;
+
+        /**
+         * Visits (high 32 bits) and half points of the player who played {@link #move} (low 32 bits)
+         */
+        volatile long stats;
+
+        volatile Node[] children;
+
+        Node(int move) {
+            this.move = move;
+        }
+
+        static long visits(long stats) {
+            return stats >>> 32;
+        }
+
+        static long halfPoints(long stats) {
+            return stats & 0xFFFF_FFFFL;
+        }
+    }
+
+    /**
+     * One worker: select, expand, playout and backpropagate until the budget is used up
+     */
+    private final class Worker implements Runnable {
+
+        private final Game game;
+        private final SplittableRandom random;
+        private final Node root;
+        private final long deadline;
+        private final int rootMoves;
+        private final Node[] path;
+        private final int[] empty;
+        private final int[] stamp;
+        private int stampCounter;
+
+        Worker(Game game, SplittableRandom random, Node root, long deadline) {
+            this.game = game;
+            this.random = random;
+            this.root = root;
+            this.deadline = deadline;
+            this.rootMoves = game.moveCount();
+            this.path = new Node[game.cellCount() + 1];
+            this.empty = new int[game.cellCount()];
+            this.stamp = new int[game.cellCount()];
+        }
+
+        @Override
+        public void run() {
+            long playouts = 0;
+            do {
+                iterate();
+                playouts++;
+            } while (((playouts & 15) != 0 || System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) && Node.visits(root.stats) < maxPlayouts);
+        }
+
+        /**
+         * One playout from the root
+         */
+        private void iterate() {
+            Node node = root;
+            int depth = 0;
+            Node.STATS.addAndGet(node, Node.VISIT);
+            path[depth++] = node;
+            while (!game.isOver()) {
+                Node[] children = node.children;
+                if (children == null) {
+                    if (Node.visits(node.stats) > 1 || node == root) {
+                        children = expand(node);
+                    } else {
+                        break;
+                    }
+                }
+                node = select(node, children);
+                Node.STATS.addAndGet(node, Node.VISIT);
+                path[depth++] = node;
+                game.play(node.move);
+            }
+            int winner = playout();
+            for (int i = depth - 1; i >= 1; i--) {
+                int mover = ((rootMoves + i - 1) & 1) == 0 ? Game.X : Game.O;
+                long points = winner == Game.EMPTY ? 1 : winner == mover ? 2 : 0;
+                if (points != 0) {
+                    Node.STATS.addAndGet(path[i], points);
+                }
+            }
+            while (game.moveCount() > rootMoves) {
+                game.undo();
+            }
+        }
+
+        /**
+         * UCT choice, a child without visits is taken first
+         */
+        private Node select(Node parent, Node[] children) {
+            double logParent = Math.log(Math.max(1, Node.visits(parent.stats)));
+            Node best = children[0];
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Node child : children) {
+                long stats = child.stats;
+                long visits = Node.visits(stats);
+                if (visits == 0) {
+                    return child;
+                }
+                double value = Node.halfPoints(stats) / (2.0 * visits) + EXPLORATION * Math.sqrt(logParent / visits);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = child;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Make the children of a node: empty cells at most 2 cells away from a stone, the center on an empty board.
+         * Ultimate TicTacToe: all legal moves, they are only on the small boards the player is sent to.
+         * Qubic: all empty cells, the layers side by side do not show which cells are near in 3D
+         */
+        private Node[] expand(Node node) {
+            int cols = game.cols();
+            int rows = game.rows();
+            int count = 0;
+            if (game instanceof UltimateGame) {
+                count = ((UltimateGame) game).legalMoves(empty);
+            } else if (game instanceof QubicGame) {
+                for (int cell = 0; cell < game.cellCount(); cell++) {
+                    if (game.get(cell) == Game.EMPTY) {
+                        empty[count++] = cell;
+                    }
+                }
+            } else if (game.moveCount() == 0) {
+                empty[count++] = (rows / 2) * cols + cols / 2;
+            } else {
+                stampCounter++;
+                for (int m = 0; m < game.moveCount(); m++) {
+                    int stone = game.moveAt(m);
+                    int row = stone / cols;
+                    int col = stone % cols;
+                    for (int r = Math.max(0, row - 2); r <= Math.min(rows - 1, row + 2); r++) {
+                        for (int c = Math.max(0, col - 2); c <= Math.min(cols - 1, col + 2); c++) {
+                            int cell = r * cols + c;
+                            if (stamp[cell] != stampCounter && game.get(cell) == Game.EMPTY) {
+                                stamp[cell] = stampCounter;
+                                empty[count++] = cell;
+                            }
+                        }
+                    }
+                }
+            }
+            Node[] children = new Node[count];
+            for (int i = 0; i < count; i++) {
+                children[i] = new Node(empty[i]);
+            }
+            if (Node.CHILDREN.compareAndSet(node, null, children)) {
+                return children;
+            }
+            return node.children;
+        }
+
+        /**
+         * Random moves until the game is over
+         *
+         * @return Integer the winner or {@link Game#EMPTY} for a draw
+         */
+        private int playout() {
+            if (game instanceof UltimateGame) {
+                UltimateGame ultimate = (UltimateGame) game;
+                while (!ultimate.isOver()) {
+                    ultimate.play(empty[random.nextInt(ultimate.legalMoves(empty))]);
+                }
+                return ultimate.winner();
+            }
+            int count = 0;
+            if (!game.isOver()) {
+                for (int cell = 0; cell < game.cellCount(); cell++) {
+                    if (game.get(cell) == Game.EMPTY) {
+                        empty[count++] = cell;
+                    }
+                }
+            }
+            while (!game.isOver()) {
+                int i = random.nextInt(count);
+                int cell = empty[i];
+                empty[i] = empty[--count];
+                game.play(cell);
+            }
+            return game.winner();
+        }
+    }
+}
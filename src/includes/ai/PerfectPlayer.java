@@ -0,0 +1,74 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+
+import java.util.SplittableRandom;
+
+/**
+ * Perfect Player: never loses.
+ *
+ * <p>Every move is looked up in the solved table of the {@link Solver}.
+ * Between moves of the same value a random one is chosen, so simulations do not repeat the same game.
+ * Only the 3x3 board {@link GameState} is solved.</p>
+ */
+public final class PerfectPlayer implements Player {
+
+    /**
+     * The player has no state, one instance is enough
+     */
+    public static final PerfectPlayer INSTANCE = new PerfectPlayer();
+
+    private PerfectPlayer() {
+    }
+
+    @Override
+    public String name() {
+        return "perfect";
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        if (!(game instanceof GameState)) {
+            throw new IllegalArgumentException("Only the 3x3 board is solved");
+        }
+        GameState state = (GameState) game;
+        int best = Integer.MIN_VALUE;
+        int bestCells = 0;
+        for (int bits = state.emptyBits(); bits != 0; bits &= bits - 1) {
+            int cell = Integer.numberOfTrailingZeros(bits);
+            int score = -Solver.scoreAfter(state, cell);
+            if (score > best) {
+                best = score;
+                bestCells = 1 << cell;
+            } else if (score == best) {
+                bestCells |= 1 << cell;
+            }
+        }
+        return RandomPlayer.randomBit(bestCells, random);
+    }
+}
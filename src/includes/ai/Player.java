@@ -0,0 +1,112 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Player Strategy.
+ *
+ * <p>A player only chooses the next cell, the caller plays it on the {@link Game}.
+ * The random generator is given by the caller, so one player can be used from many threads at the same time.</p>
+ */
+public interface Player {
+
+    /**
+     * @return String short name of the strategy like "random"
+     */
+    String name();
+
+    /**
+     * Choose the next move for the player whose turn it is {@link Game#sideToMove()}
+     *
+     * @param game   Game, must not be over. The player may play and undo moves on it, but must leave it as it was
+     * @param random SplittableRandom of the calling thread
+     * @return Integer the cell to play, a search stops early with its best move so far if the calling thread is interrupted
+     */
+    int selectMove(Game game, SplittableRandom random);
+
+    /**
+     * Get a player by its name
+     *
+     * @param name String "random", "greedy", "perfect", "alphabeta" (new player with 500 ms per move),
+     *             "mcts" (new player on all cores with 500 ms per move),
+     *             "tablebase" (tables from <code>recources</code>, alpha-beta for boards without a table),
+     *             "ultimate" (new parallel search for Ultimate TicTacToe on all cores with 500 ms per move),
+     *             or "qubic" (new threat and alpha-beta search for Qubic with 500 ms per move).
+     *             "human" is not a player here, nothing could give its moves: the window and the console play them themselves
+     * @return Player
+     * @throws IllegalArgumentException for an unknown name or "human"
+     */
+    static Player of(String name) {
+        return of(name, 500);
+    }
+
+    /**
+     * Get a player by its name, the searching players get a time budget per move
+     *
+     * @param name   String see {@link #of(String)}, "mcts:4" is MCTS on 4 threads, "ultimate:4" the Ultimate search on 4 threads,
+     *               "cached:alphabeta" asks alpha-beta once per position of the whole program {@link CachedPlayer}
+     * @param millis Long time budget per move of the searching players and of the fallback of "tablebase"
+     * @return Player
+     * @throws IllegalArgumentException for an unknown name
+     */
+    static Player of(String name, long millis) {
+        if (name.startsWith("cached:")) {
+            return new CachedPlayer(of(name.substring(7), millis), PositionCache.shared());
+        }
+        if (name.startsWith("mcts:")) {
+            return new MctsPlayer(Integer.parseInt(name.substring(5)), millis);
+        }
+        if (name.startsWith("ultimate:")) {
+            return new UltimatePlayer(Integer.parseInt(name.substring(9)), millis);
+        }
+        switch (name) {
+            case "random":
+                return RandomPlayer.INSTANCE;
+            case "greedy":
+                return GreedyPlayer.INSTANCE;
+            case "perfect":
+                return PerfectPlayer.INSTANCE;
+            case "alphabeta":
+                return new AlphaBetaPlayer(millis);
+            case "tablebase":
+                return new TablebasePlayer(Paths.get("recources"), new AlphaBetaPlayer(millis));
+            case "mcts":
+                return new MctsPlayer(Runtime.getRuntime().availableProcessors(), millis);
+            case "qubic":
+                return new QubicPlayer(millis);
+            case "ultimate":
+                return new UltimatePlayer(Runtime.getRuntime().availableProcessors(), millis);
+            case "human":
+                throw new IllegalArgumentException("A human can not play here, only in the window or with the play command");
+            default:
+                throw new IllegalArgumentException("Unknown player: " + name);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.metrics.Metrics;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Position Cache: a bounded map from a 64 bit position key to a 64 bit value, shared by all threads without locks.
+ *
+ * <ol>
+ *      <li>The memory is fixed when the cache is made, 16 bytes per entry plus 4 bytes per bucket of {@link #WAYS} entries</li>
+ *      <li>A key can only be in its bucket, a lookup reads at most 4 entries next to each other</li>
+ *      <li>An entry is stored as (key XOR value, value). A reader that sees half of a write of an other thread gets a wrong key and a miss,
+ *      never a wrong value</li>
+ *      <li>CLOCK eviction in every bucket: a hit sets the reference bit of the entry, a full bucket moves its hand past the
+ *      referenced entries (and clears their bits) and replaces the first one that was not used since the last round</li>
+ * </ol>
+ * Hits, misses and evictions are counted, the cache of the whole program {@link #shared()} also shows them in the {@link Metrics}.
+ */
+public final class PositionCache {
+
+    /**
+     * Entries per bucket
+     */
+    public static final int WAYS = 4;
+
+    /**
+     * Bytes per entry (key and value), the reference bits are extra
+     */
+    public static final int ENTRY_BYTES = 16;
+
+    /**
+     * Default size of the shared cache in megabytes
+     */
+    public static final int DEFAULT_MEGABYTES = 16;
+
+    private static final int HAND_SHIFT = WAYS;
+    private static final int REFERENCED = (1 << WAYS) - 1;
+
+    private static volatile PositionCache shared;
+
+    /**
+     * key ^ value and value of every entry, a value of 0 is an empty entry
+     */
+    private final AtomicLongArray entries;
+
+    /**
+     * Per bucket: reference bits (low 4 bits) and the clock hand (next 2 bits)
+     */
+    private final AtomicIntegerArray clocks;
+    private final int bucketMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * @param maxBytes Long memory of the cache, at least one bucket. The number of buckets is the biggest power of two that fits
+     */
+    public PositionCache(long maxBytes) {
+        long buckets = Math.max(1, maxBytes / (WAYS * ENTRY_BYTES + Integer.BYTES));
+        int bits = Math.min(63 - Long.numberOfLeadingZeros(buckets), 26);
+        this.entries = new AtomicLongArray((1 << bits) * WAYS * 2);
+        this.clocks = new AtomicIntegerArray(1 << bits);
+        this.bucketMask = (1 << bits) - 1;
+    }
+
+    /**
+     * The cache of the whole program, made on the first call with the size of the system property
+     * <code>tictactoe.cache.mb</code> ({@link #DEFAULT_MEGABYTES} if it is not set)
+     *
+     * @return PositionCache
+     */
+    public static PositionCache shared() {
+        PositionCache cache = shared;
+        if (cache == null) {
+            synchronized (PositionCache.class) {
+                cache = shared;
+                if (cache == null) {
+                    cache = new PositionCache((long) Integer.getInteger("tictactoe.cache.mb", DEFAULT_MEGABYTES) << 20);
+                    Metrics.gauge("cache.position.hits", cache::getHits);
+                    Metrics.gauge("cache.position.misses", cache::getMisses);
+                    Metrics.gauge("cache.position.evictions", cache::getEvictions);
+                    Metrics.gauge("cache.position.size", cache::getSize);
+                    Metrics.gauge("cache.position.capacity", cache::getCapacity);
+                    shared = cache;
+                }
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * @param key Long position key, like a Zobrist hash {@link includes.engine.Game#hash()}
+     * @return Long the value or 0 if the key is not in the cache
+     */
+    public long get(long key) {
+        int bucket = bucket(key);
+        int base = bucket * WAYS * 2;
+        for (int way = 0; way < WAYS; way++) {
+            long value = entries.get(base + 2 * way + 1);
+            if (value != 0 && (entries.get(base + 2 * way) ^ value) == key) {
+                int bit = 1 << way;
+                if ((clocks.get(bucket) & bit) == 0) {
+                    clocks.getAndAccumulate(bucket, bit, (clock, b) -> clock | b);
+                }
+                hits.increment();
+                return value;
+            }
+        }
+        misses.increment();
+        return 0;
+    }
+
+    /**
+     * Store a value, an old value of the key is replaced
+     *
+     * @param key   Long position key
+     * @param value Long anything but 0
+     */
+    public void put(long key, long value) {
+        if (value == 0) {
+            throw new IllegalArgumentException("0 is the empty value");
+        }
+        int bucket = bucket(key);
+        int base = bucket * WAYS * 2;
+        int free = -1;
+        for (int way = 0; way < WAYS; way++) {
+            long old = entries.get(base + 2 * way + 1);
+            if (old == 0) {
+                if (free < 0) {
+                    free = way;
+                }
+            } else if ((entries.get(base + 2 * way) ^ old) == key) {
+                write(base + 2 * way, key, value);
+                return;
+            }
+        }
+        if (free >= 0) {
+            write(base + 2 * free, key, value);
+            size.increment();
+            return;
+        }
+        write(base + 2 * victim(bucket), key, value);
+        evictions.increment();
+    }
+
+    /**
+     * Turn the clock hand of a full bucket: clear the reference bits on the way, stop at the first entry without one
+     *
+     * @param bucket Integer
+     * @return Integer the way to replace
+     */
+    private int victim(int bucket) {
+        while (true) {
+            int clock = clocks.get(bucket);
+            int hand = clock >>> HAND_SHIFT;
+            int refs = clock & REFERENCED;
+            while ((refs & (1 << hand)) != 0) {
+                refs &= ~(1 << hand);
+                hand = (hand + 1) & (WAYS - 1);
+            }
+            int next = (hand + 1) & (WAYS - 1);
+            if (clocks.compareAndSet(bucket, clock, next << HAND_SHIFT | refs)) {
+                return hand;
+            }
+        }
+    }
+
+    private void write(int index, long key, long value) {
+        entries.set(index + 1, value);
+        entries.set(index, key ^ value);
+    }
+
+    /**
+     * @param key Long
+     * @return Integer bucket from the mixed key, so keys that only differ in the high bits are spread too
+     */
+    private int bucket(long key) {
+        long z = key * 0x9E3779B97F4A7C15L;
+        return (int) (z >>> 32 ^ z) & bucketMask;
+    }
+
+    /**
+     * Remove all entries, the counters stay
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.set(i, 0);
+        }
+        for (int i = 0; i < clocks.length(); i++) {
+            clocks.set(i, 0);
+        }
+        size.reset();
+    }
+
+    /**
+     * @return Long lookups that found the key
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Long lookups that did not find the key
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Long entries replaced by an other key
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return Long filled entries, about: two threads can fill the same free entry at the same time
+     */
+    public long getSize() {
+        return Math.min(size.sum(), getCapacity());
+    }
+
+    /**
+     * @return Long entries the cache can hold
+     */
+    public long getCapacity() {
+        return (long) (bucketMask + 1) * WAYS;
+    }
+
+    /**
+     * @return Double hits / lookups, 0 without lookups
+     */
+    public double getHitRate() {
+        long hit = getHits();
+        long all = hit + getMisses();
+        return all == 0 ? 0 : (double) hit / all;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d of %,d entries, %,d hits, %,d misses (%.1f%%), %,d evictions",
+                getSize(), getCapacity(), getHits(), getMisses(), 100 * getHitRate(), getEvictions());
+    }
+}
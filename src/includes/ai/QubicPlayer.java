@@ -0,0 +1,349 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.QubicGame;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Qubic Player: alpha-beta search on the long masks of {@link QubicGame}, with threats first.
+ *
+ * <ol>
+ *      <li>Iterative deepening until the time budget is used up, with a transposition table by Zobrist hash</li>
+ *      <li>A threat is a line with 3 stones of one player and an empty 4th cell. With an own threat the only move is to win,
+ *      with a threat of the other player only the blocking moves are searched</li>
+ *      <li>A forced block does not count as a ply, so a chain of threats is followed to the end (threat space)</li>
+ *      <li>Evaluation: every one of the 76 lines that only one player uses, worth more the more stones it has</li>
+ *      <li>Other moves: the table move first, then cells on many open lines, then by history</li>
+ * </ol>
+ * Every thread gets its own table and buffers, so one player can be used from many threads.
+ * The thinking time and the nodes of all searches go to the {@link Metrics}.
+ */
+public final class QubicPlayer implements Player, SearchStats {
+
+    /**
+     * Score of a won game, minus the moves to get there
+     */
+    static final int WIN = 1_000_000;
+
+    private static final int MAX_DEPTH = QubicGame.CELLS;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int TABLE_BITS = 20;
+
+    /**
+     * Value of a line with 0..3 stones of one player and none of the other
+     */
+    private static final int[] LINE_VALUE = {0, 1, 6, 40};
+
+    private static final Histogram THINK_NANOS = Metrics.histogram("ai.qubic.think");
+    private static final LongAdder NODES = Metrics.counter("ai.qubic.nodes");
+
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    private volatile int lastDepth;
+    private volatile long lastNodes;
+    private volatile long lastNanos;
+
+    /**
+     * @param budgetMillis Long time budget per move
+     */
+    public QubicPlayer(long budgetMillis) {
+        this(budgetMillis, MAX_DEPTH);
+    }
+
+    /**
+     * @param budgetMillis Long time budget per move
+     * @param maxDepth     Integer deepest search, for the same moves on every machine
+     */
+    public QubicPlayer(long budgetMillis, int maxDepth) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public String name() {
+        return "qubic";
+    }
+
+    /**
+     * @throws IllegalArgumentException if the game is not {@link QubicGame}
+     */
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        if (!(game instanceof QubicGame)) {
+            throw new IllegalArgumentException("The qubic player only plays Qubic (4 16 " + QubicGame.WIN_LENGTH + ")");
+        }
+        long start = System.nanoTime();
+        Search search = searches.get();
+        int move = search.run(((QubicGame) game).copy(), start + budgetNanos, maxDepth, random);
+        lastNanos = System.nanoTime() - start;
+        lastNodes = search.nodes;
+        lastDepth = search.depth;
+        THINK_NANOS.record(lastNanos);
+        NODES.add(search.nodes);
+        return move;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public long getLastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Search of one thread: transposition table, move buffers and counters
+     */
+    private static final class Search {
+
+        private final long[] keys = new long[1 << TABLE_BITS];
+        private final long[] data = new long[1 << TABLE_BITS];
+        private final int[][] moves = new int[MAX_DEPTH + 1][QubicGame.CELLS];
+        private final int[][] scores = new int[MAX_DEPTH + 1][QubicGame.CELLS];
+        private final int[] history = new int[QubicGame.CELLS];
+
+        private QubicGame game;
+        private SplittableRandom random;
+        private long deadline;
+        private boolean aborted;
+        private long nodes;
+        private int depth;
+        private int rootBest;
+        private int winCell;
+        private long blocks;
+
+        /**
+         * Iterative deepening until the deadline
+         *
+         * @param game     QubicGame, played and undone in place
+         * @param deadline Long System.nanoTime() to stop at
+         * @param limit    Integer deepest search
+         * @param random   SplittableRandom to choose between root moves of the same order
+         * @return Integer best cell
+         */
+        int run(QubicGame game, long deadline, int limit, SplittableRandom random) {
+            this.game = game;
+            this.random = random;
+            this.deadline = deadline;
+            this.aborted = false;
+            this.nodes = 0;
+            this.depth = 0;
+            for (int i = 0; i < history.length; i++) {
+                history[i] >>= 2;
+            }
+            scan();
+            if (winCell >= 0) {
+                return winCell;
+            }
+            int count = generate(0, -1, blocks);
+            int best = moves[0][0];
+            if (count == 1) {
+                return best;
+            }
+            int maxDepth = Math.min(limit, QubicGame.CELLS - game.moveCount());
+            for (int d = 1; d <= maxDepth; d++) {
+                rootBest = best;
+                int score = negamax(d, -INFINITY, INFINITY, 0);
+                if (aborted) {
+                    break;
+                }
+                best = rootBest;
+                depth = d;
+                if (Math.abs(score) >= WIN - MAX_DEPTH) {
+                    break;
+                }
+            }
+            return best;
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || Thread.currentThread().isInterrupted())) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (game.winner() != Game.EMPTY) {
+                return -(WIN - ply);
+            }
+            if (game.isFull()) {
+                return 0;
+            }
+            int score = scan();
+            if (winCell >= 0) {
+                if (ply == 0) {
+                    rootBest = winCell;
+                }
+                return WIN - ply - 1;
+            }
+            long forced = blocks;
+            if ((depth == 0 && forced == 0) || ply == MAX_DEPTH) {
+                return score;
+            }
+
+            long key = game.hash();
+            int index = (int) key & ((1 << TABLE_BITS) - 1);
+            int ttMove = -1;
+            if (keys[index] == key) {
+                long entry = data[index];
+                ttMove = SearchSupport.move(entry);
+                if (ply > 0 && SearchSupport.depth(entry) >= depth) {
+                    int stored = SearchSupport.score(entry, ply, WIN - MAX_DEPTH);
+                    if (SearchSupport.cuts(SearchSupport.bound(entry), stored, alpha, beta)) {
+                        return stored;
+                    }
+                }
+            }
+
+            int count = generate(ply, ttMove, forced);
+            int[] list = moves[ply];
+            // a forced block does not count as a ply
+            int childDepth = forced != 0 ? depth : depth - 1;
+            int alphaStart = alpha;
+            int best = -INFINITY;
+            int bestMove = list[0];
+            for (int i = 0; i < count; i++) {
+                int cell = list[i];
+                game.play(cell);
+                int value = -negamax(childDepth, -beta, -alpha, ply + 1);
+                game.undo();
+                if (aborted) {
+                    return 0;
+                }
+                if (value > best) {
+                    best = value;
+                    bestMove = cell;
+                    if (ply == 0) {
+                        rootBest = cell;
+                    }
+                }
+                if (value > alpha) {
+                    alpha = value;
+                }
+                if (alpha >= beta) {
+                    history[cell] += depth * depth + 1;
+                    break;
+                }
+            }
+
+            keys[index] = key;
+            data[index] = SearchSupport.entry(best, ply, WIN - MAX_DEPTH, bestMove, depth, SearchSupport.bound(best, alphaStart, beta));
+            return best;
+        }
+
+        /**
+         * One pass over all 76 lines: the winning cell of an own threat {@link #winCell},
+         * the cells that block the threats of the other player {@link #blocks}
+         * and the evaluation: every line that only one player uses {@link #LINE_VALUE}
+         *
+         * @return Integer score for the player to move
+         */
+        private int scan() {
+            int mine = game.sideToMove();
+            long own = game.bits(mine);
+            long other = game.bits(mine == Game.X ? Game.O : Game.X);
+            long empty = ~(own | other);
+            int score = 0;
+            winCell = -1;
+            blocks = 0;
+            for (long line : QubicGame.LINES) {
+                long a = own & line;
+                long b = other & line;
+                if (b == 0) {
+                    int stones = Long.bitCount(a);
+                    if (stones == 3) {
+                        winCell = QubicGame.cellOf(Long.numberOfTrailingZeros(line & empty));
+                        return WIN;
+                    }
+                    score += LINE_VALUE[stones];
+                } else if (a == 0) {
+                    int stones = Long.bitCount(b);
+                    if (stones == 3) {
+                        blocks |= line & empty;
+                    }
+                    score -= LINE_VALUE[stones];
+                }
+            }
+            return score;
+        }
+
+        /**
+         * Ordered candidate moves of a node into {@link #moves}[ply]: only the blocking cells if the other player has a threat,
+         * else every empty cell. The table move first, then by the open lines through the cell and the history
+         *
+         * @param blocks Long cells that block threats of the other player, 0 if there are none
+         * @return Integer number of moves
+         */
+        private int generate(int ply, int ttMove, long blocks) {
+            int[] list = moves[ply];
+            int[] order = scores[ply];
+            int mine = game.sideToMove();
+            long own = game.bits(mine);
+            long other = game.bits(mine == Game.X ? Game.O : Game.X);
+            long candidates = blocks != 0 ? blocks : ~(own | other);
+            int count = 0;
+            for (long bits = candidates; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                int cell = QubicGame.cellOf(bit);
+                int score = history[cell];
+                if (cell == ttMove) {
+                    score = Integer.MAX_VALUE;
+                } else {
+                    for (long line : QubicGame.linesThrough(bit)) {
+                        long a = own & line;
+                        long b = other & line;
+                        if (b == 0) {
+                            score += 4 * LINE_VALUE[Long.bitCount(a)] + 1;
+                        } else if (a == 0) {
+                            score += 2 * LINE_VALUE[Long.bitCount(b)] + 1;
+                        }
+                    }
+                    if (ply == 0) {
+                        score = score * 4 + random.nextInt(4);
+                    }
+                }
+                list[count] = cell;
+                order[count++] = score;
+            }
+            SearchSupport.sort(list, order, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+import includes.engine.UltimateGame;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random Player: plays any legal cell.
+ */
+public final class RandomPlayer implements Player {
+
+    /**
+     * The player has no state, one instance is enough
+     */
+    public static final RandomPlayer INSTANCE = new RandomPlayer();
+
+    private RandomPlayer() {
+    }
+
+    @Override
+    public String name() {
+        return "random";
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        if (game instanceof GameState) {
+            return randomBit(((GameState) game).emptyBits(), random);
+        }
+        if (game instanceof UltimateGame) {
+            int[] moves = new int[UltimateGame.CELLS];
+            return moves[random.nextInt(((UltimateGame) game).legalMoves(moves))];
+        }
+        return randomCell(game, random);
+    }
+
+    /**
+     * Pick one legal cell of any m,n,k board, there every empty cell is legal
+     *
+     * @param game   Game, must not be over
+     * @param random SplittableRandom
+     * @return Integer the chosen cell
+     */
+    static int randomCell(Game game, SplittableRandom random) {
+        int skip = random.nextInt(game.cellCount() - game.moveCount());
+        for (int cell = 0; ; cell++) {
+            if (game.get(cell) == Game.EMPTY && skip-- == 0) {
+                return cell;
+            }
+        }
+    }
+
+    /**
+     * Pick one set bit of a mask
+     *
+     * @param mask   Integer, at least one bit must be set
+     * @param random SplittableRandom
+     * @return Integer index of the chosen bit
+     */
+    static int randomBit(int mask, SplittableRandom random) {
+        for (int skip = random.nextInt(Integer.bitCount(mask)); skip > 0; skip--) {
+            mask &= mask - 1;
+        }
+        return Integer.numberOfTrailingZeros(mask);
+    }
+}
@@ -0,0 +1,154 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+/**
+ * Search Support: what the alpha-beta searches of {@link AlphaBetaPlayer}, {@link UltimatePlayer} and {@link QubicPlayer} share.
+ *
+ * <ol>
+ *      <li>A transposition table entry is one long: score (32 bits), best move (20 bits), depth (8 bits) and bound (4 bits)
+ *      {@link #entry(int, int, int, int, int, int)}</li>
+ *      <li>Win scores are stored relative to the node, not to the root, so the same position is the same win at every ply
+ *      {@link #score(long, int, int)}</li>
+ *      <li>A stored score ends the node if its bound fits the window {@link #cuts(int, int, int, int)}</li>
+ *      <li>The move lists are short, they are ordered with an insertion sort {@link #sort(int[], int[], int)}</li>
+ * </ol>
+ */
+final class SearchSupport {
+
+    static final int EXACT = 0;
+    static final int LOWER = 1;
+    static final int UPPER = 2;
+
+    private SearchSupport() {
+    }
+
+    /**
+     * @param score Integer score of the node
+     * @param ply   Integer distance of the node to the root
+     * @param mate  Integer smallest win score: WIN - MAX_DEPTH of the search
+     * @param move  Integer best move of the node
+     * @param depth Integer searched depth
+     * @param bound Integer {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @return Long the entry
+     */
+    static long entry(int score, int ply, int mate, int move, int depth, int bound) {
+        return (long) toTable(score, ply, mate) << 32 | (long) move << 12 | (long) depth << 4 | bound;
+    }
+
+    /**
+     * @param entry Long
+     * @param ply   Integer distance of the node to the root
+     * @param mate  Integer smallest win score: WIN - MAX_DEPTH of the search
+     * @return Integer the stored score, seen from this ply
+     */
+    static int score(long entry, int ply, int mate) {
+        int score = (int) (entry >> 32);
+        if (score >= mate) {
+            return score - ply;
+        }
+        if (score <= -mate) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * @param entry Long
+     * @return Integer the best move
+     */
+    static int move(long entry) {
+        return (int) ((entry >>> 12) & 0xFFFFF);
+    }
+
+    /**
+     * @param entry Long
+     * @return Integer the searched depth
+     */
+    static int depth(long entry) {
+        return (int) ((entry >>> 4) & 0xFF);
+    }
+
+    /**
+     * @param entry Long
+     * @return Integer the bound
+     */
+    static int bound(long entry) {
+        return (int) (entry & 0xF);
+    }
+
+    /**
+     * @param best       Integer best score of the node
+     * @param alphaStart Integer alpha when the node was entered
+     * @param beta       Integer beta
+     * @return Integer the bound of the best score
+     */
+    static int bound(int best, int alphaStart, int beta) {
+        return best <= alphaStart ? UPPER : best >= beta ? LOWER : EXACT;
+    }
+
+    /**
+     * @param bound Integer of the stored score
+     * @param score Integer stored score
+     * @param alpha Integer
+     * @param beta  Integer
+     * @return true if the stored score can be returned without a search
+     */
+    static boolean cuts(int bound, int score, int alpha, int beta) {
+        return bound == EXACT || (bound == LOWER && score >= beta) || (bound == UPPER && score <= alpha);
+    }
+
+    private static int toTable(int score, int ply, int mate) {
+        if (score >= mate) {
+            return score + ply;
+        }
+        if (score <= -mate) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Insertion sort, biggest score first
+     *
+     * @param list  int[] moves
+     * @param order int[] score of every move, sorted with the moves
+     * @param count Integer moves in the list
+     */
+    static void sort(int[] list, int[] order, int count) {
+        for (int i = 1; i < count; i++) {
+            int cell = list[i];
+            int score = order[i];
+            int j = i - 1;
+            while (j >= 0 && order[j] < score) {
+                list[j + 1] = list[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            list[j + 1] = cell;
+            order[j + 1] = score;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.GameState;
+
+import java.util.Arrays;
+
+/**
+ * Perfect-Play Solver for the 3x3 Board.
+ *
+ * <ol>
+ *      <li>A position is the key <code>xBits | oBits &lt;&lt; 9</code></li>
+ *      <li>The 8 symmetries (4 rotations, each also mirrored) give the same value, only the smallest key of all 8 is stored {@link #canonical(int, int)},
+ *      the symmetries come from {@link BoardSymmetry} like in the tablebase</li>
+ *      <li>Negamax solves every reachable position once into the transposition table when the class is loaded</li>
+ *      <li>For every position the table also keeps the best cell, so {@link #bestMove(GameState)} is only a lookup</li>
+ * </ol>
+ */
+public final class Solver {
+
+    /**
+     * Number of board symmetries
+     */
+    public static final int SYMMETRIES = 8;
+
+    private static final byte UNKNOWN = Byte.MIN_VALUE;
+
+    /**
+     * The 8 symmetries of the board, the same as the tablebase uses
+     */
+    private static final BoardSymmetry SYMMETRY = new BoardSymmetry(GameState.SIZE, GameState.SIZE);
+
+    /**
+     * Transposition table, score for the player to move, only canonical keys are filled
+     */
+    private static final byte[] SCORES = new byte[1 << (2 * GameState.CELLS)];
+
+    /**
+     * Best cell of a canonical position, in the canonical orientation
+     */
+    private static final byte[] BEST = new byte[1 << (2 * GameState.CELLS)];
+
+    private static int positions;
+    private static final long SOLVE_NANOS;
+
+    static {
+        Arrays.fill(SCORES, UNKNOWN);
+        long start = System.nanoTime();
+        solve(new GameState());
+        SOLVE_NANOS = System.nanoTime() - start;
+    }
+
+    private Solver() {
+    }
+
+    /**
+     * Smallest key of the position under all 8 symmetries
+     *
+     * @param xBits Integer mask of X
+     * @param oBits Integer mask of O
+     * @return Integer canonical key
+     */
+    public static int canonical(int xBits, int oBits) {
+        return SYMMETRY.key(xBits, oBits);
+    }
+
+    /**
+     * Game-theoretic value of a position
+     *
+     * @param state GameState
+     * @return Integer score for the player to move: &gt; 0 win, 0 draw, &lt; 0 loss, faster wins have bigger scores
+     */
+    public static int score(GameState state) {
+        return SCORES[canonical(state.xBits(), state.oBits())];
+    }
+
+    /**
+     * Value of the position after a move, without playing it
+     *
+     * @param state GameState
+     * @param cell  Integer empty cell
+     * @return Integer score for the player who moves after the cell was played
+     */
+    public static int scoreAfter(GameState state, int cell) {
+        int bit = 1 << cell;
+        if (state.sideToMove() == GameState.X) {
+            return SCORES[canonical(state.xBits() | bit, state.oBits())];
+        }
+        return SCORES[canonical(state.xBits(), state.oBits() | bit)];
+    }
+
+    /**
+     * Best move of a position: the table keeps it in the canonical orientation and it is turned back here
+     *
+     * @param state GameState, must not be over
+     * @return Integer the cell 0..8
+     */
+    public static int bestMove(GameState state) {
+        int sym = SYMMETRY.canonical(state.xBits(), state.oBits());
+        return SYMMETRY.unmap(sym, BEST[SYMMETRY.key(sym, state.xBits(), state.oBits())]);
+    }
+
+    /**
+     * @return Integer number of canonical positions in the table
+     */
+    public static int positions() {
+        return positions;
+    }
+
+    /**
+     * @return Long time the solve at class loading took
+     */
+    public static long solveNanos() {
+        return SOLVE_NANOS;
+    }
+
+    /**
+     * Negamax with the transposition table
+     *
+     * @param state GameState, played and undone in place
+     * @return Integer score for the player to move
+     */
+    private static int solve(GameState state) {
+        int sym = SYMMETRY.canonical(state.xBits(), state.oBits());
+        int key = SYMMETRY.key(sym, state.xBits(), state.oBits());
+        if (SCORES[key] != UNKNOWN) {
+            return SCORES[key];
+        }
+        int empties = Integer.bitCount(state.emptyBits());
+        int best;
+        int bestCell = 0;
+        if (state.winner() != GameState.EMPTY) {
+            best = -(empties + 1);
+        } else if (empties == 0) {
+            best = 0;
+        } else {
+            best = Integer.MIN_VALUE;
+            for (int bits = state.emptyBits(); bits != 0; bits &= bits - 1) {
+                int cell = Integer.numberOfTrailingZeros(bits);
+                state.play(cell);
+                int score = -solve(state);
+                state.undo();
+                if (score > best) {
+                    best = score;
+                    bestCell = cell;
+                }
+            }
+        }
+        SCORES[key] = (byte) best;
+        BEST[key] = (byte) SYMMETRY.map(sym, bestCell);
+        positions++;
+        return best;
+    }
+}
@@ -0,0 +1,336 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * Tablebase: the solved value and the best move of every reachable position of a small board (at most 16 cells),
+ * like 3x3, 4x4 with 3 in a row or 4x4 with 4 in a row.
+ *
+ * <p>Version 1, all numbers big endian:</p>
+ * <ol>
+ *      <li>Magic "TTB" (3 bytes) and the version (1 byte)</li>
+ *      <li>Rows, columns and win length (unsigned short each)</li>
+ *      <li>Number of positions n (int)</li>
+ *      <li>n keys (int), sorted: X mask | O mask &lt;&lt; cells, the smallest under all symmetries {@link BoardSymmetry}</li>
+ *      <li>n scores (byte) for the player to move like {@link Solver#score(GameState)}</li>
+ *      <li>n best cells (byte) in the orientation of the key, -1 if the game is over</li>
+ * </ol>
+ * The file is made by {@link #generate(int, int, int, Path)} and memory mapped by {@link #open(Path)}:
+ * opening only reads the header, nothing is copied, a lookup is a binary search on the mapped keys
+ * and the system loads only the pages it touches.
+ */
+public final class Tablebase {
+
+    /**
+     * Current version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes before the first key
+     */
+    static final int HEADER_BYTES = 14;
+
+    /**
+     * Bytes per position: key, score and best cell
+     */
+    static final int ENTRY_BYTES = Integer.BYTES + 2;
+
+    private static final byte[] MAGIC = {'T', 'T', 'B'};
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final int positions;
+    private final BoardSymmetry symmetry;
+    private final IntBuffer keys;
+    private final ByteBuffer scores;
+    private final ByteBuffer best;
+
+    private Tablebase(ByteBuffer map) throws IOException {
+        if (map.limit() < HEADER_BYTES) {
+            throw new IOException("Not a tablebase file");
+        }
+        for (byte b : MAGIC) {
+            if (map.get() != b) {
+                throw new IOException("Not a tablebase file");
+            }
+        }
+        int version = map.get();
+        if (version != VERSION) {
+            throw new IOException("Unknown tablebase version: " + version);
+        }
+        rows = Short.toUnsignedInt(map.getShort());
+        cols = Short.toUnsignedInt(map.getShort());
+        winLength = Short.toUnsignedInt(map.getShort());
+        positions = map.getInt();
+        if (rows * cols > BoardSymmetry.MAX_CELLS || positions < 0
+                || map.limit() != HEADER_BYTES + (long) positions * ENTRY_BYTES) {
+            throw new IOException("Broken tablebase file");
+        }
+        symmetry = new BoardSymmetry(rows, cols);
+        keys = slice(map, HEADER_BYTES, positions * Integer.BYTES).asIntBuffer();
+        scores = slice(map, HEADER_BYTES + positions * Integer.BYTES, positions);
+        best = slice(map, HEADER_BYTES + positions * (Integer.BYTES + 1), positions);
+    }
+
+    private static ByteBuffer slice(ByteBuffer map, int offset, int length) {
+        ByteBuffer view = map.duplicate();
+        view.position(offset).limit(offset + length);
+        return view.slice();
+    }
+
+    /**
+     * Map a tablebase file, only the header is read
+     *
+     * @param file Path
+     * @return Tablebase
+     * @throws IOException if the file can not be read or is not a tablebase
+     */
+    public static Tablebase open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new Tablebase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Solve a small board and write its tablebase file
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n, rows * cols at most 16
+     * @param winLength Integer k
+     * @param file      Path
+     * @return Integer number of positions
+     * @throws IOException if the file can not be written
+     */
+    public static int generate(int rows, int cols, int winLength, Path file) throws IOException {
+        return new TablebaseGenerator(rows, cols, winLength).generate(file);
+    }
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return String file name of the board, like <code>tablebase-4x4-4.ttb</code>
+     */
+    public static String fileName(int rows, int cols, int winLength) {
+        return "tablebase-" + rows + "x" + cols + "-" + winLength + ".ttb";
+    }
+
+    static void writeHeader(ByteBuffer buffer, int rows, int cols, int winLength, int positions) {
+        buffer.put(MAGIC).put((byte) VERSION);
+        buffer.putShort((short) rows).putShort((short) cols).putShort((short) winLength);
+        buffer.putInt(positions);
+    }
+
+    /**
+     * @return Integer number of positions in the file
+     */
+    public int positions() {
+        return positions;
+    }
+
+    /**
+     * @param game Game
+     * @return true if the board has the size and win length of this table
+     */
+    public boolean covers(Game game) {
+        return game.rows() == rows && game.cols() == cols && game.winLength() == winLength;
+    }
+
+    /**
+     * @param game Game of this board {@link #covers(Game)}
+     * @return Integer score for the player to move: &gt; 0 win, 0 draw, &lt; 0 loss, faster wins have bigger scores
+     * @throws IllegalArgumentException if the position is not in the table
+     */
+    public int score(Game game) {
+        return scores.get(index(symmetry.key(bits(game, Game.X), bits(game, Game.O))));
+    }
+
+    /**
+     * Value of the position after a move, without playing it
+     *
+     * @param game Game of this board
+     * @param cell Integer empty cell
+     * @return Integer score for the player who moves after the cell was played
+     */
+    public int scoreAfter(Game game, int cell) {
+        int xBits = bits(game, Game.X);
+        int oBits = bits(game, Game.O);
+        if (game.sideToMove() == Game.X) {
+            xBits |= 1 << cell;
+        } else {
+            oBits |= 1 << cell;
+        }
+        return scores.get(index(symmetry.key(xBits, oBits)));
+    }
+
+    /**
+     * @param game Game of this board, must not be over
+     * @return Integer the best cell, turned back from the orientation of the key
+     */
+    public int bestMove(Game game) {
+        int xBits = bits(game, Game.X);
+        int oBits = bits(game, Game.O);
+        int sym = symmetry.canonical(xBits, oBits);
+        return symmetry.unmap(sym, best.get(index(symmetry.key(sym, xBits, oBits))));
+    }
+
+    private static int bits(Game game, int player) {
+        int mask = 0;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (game.get(cell) == player) {
+                mask |= 1 << cell;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Binary search on the mapped keys
+     */
+    private int index(int key) {
+        int low = 0;
+        int high = positions - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int k = keys.get(mid);
+            if (k < key) {
+                low = mid + 1;
+            } else if (k > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        throw new IllegalArgumentException("Position not in the tablebase");
+    }
+
+    /**
+     * Self-check against a live search: play random games and compare every position with a full negamax
+     * once few enough cells are empty, on 3x3 also with the {@link Solver}. The best move must keep the value.
+     *
+     * @param games      Integer random games
+     * @param maxEmpties Integer positions with more empty cells are only checked by their best move
+     * @param seed       Long
+     * @return Integer number of positions that were wrong
+     */
+    public int verify(int games, int maxEmpties, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Game game = Game.create(rows, cols, winLength);
+        int wrong = 0;
+        for (int g = 0; g < games; g++) {
+            game.reset();
+            while (!game.isOver()) {
+                int score = score(game);
+                int empties = game.cellCount() - game.moveCount();
+                if (empties <= maxEmpties && negamax(game, -Integer.MAX_VALUE, Integer.MAX_VALUE) != score) {
+                    wrong++;
+                }
+                if (game instanceof GameState && Solver.score((GameState) game) != score) {
+                    wrong++;
+                }
+                if (-scoreAfter(game, bestMove(game)) != score) {
+                    wrong++;
+                }
+                game.play(RandomPlayer.INSTANCE.selectMove(game, random));
+            }
+        }
+        return wrong;
+    }
+
+    /**
+     * Plain negamax with alpha-beta, no table, the same scores as the table
+     */
+    private static int negamax(Game game, int alpha, int beta) {
+        int empties = game.cellCount() - game.moveCount();
+        if (game.winner() != Game.EMPTY) {
+            return -(empties + 1);
+        }
+        if (empties == 0) {
+            return 0;
+        }
+        int best = -Integer.MAX_VALUE;
+        for (int cell = 0; cell < game.cellCount() && best < beta; cell++) {
+            if (game.get(cell) == Game.EMPTY) {
+                game.play(cell);
+                int score = -negamax(game, -beta, -Math.max(alpha, best));
+                game.undo();
+                best = Math.max(best, score);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Tablebase tool:
+     * <ol>
+     *      <li>generate [rows] [cols] [win length] [file]: solve the board and write the file, default 4 4 4 in recources</li>
+     *      <li>verify [file] [games]: map the file and check it {@link #verify(int, int, long)}</li>
+     * </ol>
+     *
+     * @param args String[] command line arguments
+     * @throws IOException if the file can not be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "generate";
+        if (command.equals("generate")) {
+            int rows = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+            int cols = args.length > 2 ? Integer.parseInt(args[2]) : rows;
+            int winLength = args.length > 3 ? Integer.parseInt(args[3]) : Math.max(rows, cols);
+            Path file = args.length > 4 ? Paths.get(args[4]) : Paths.get("recources", fileName(rows, cols, winLength));
+            long start = System.nanoTime();
+            int positions = generate(rows, cols, winLength, file);
+            System.out.printf("%dx%d with %d in a row: %d positions in %d ms -> %s%n", rows, cols, winLength, positions,
+                    (System.nanoTime() - start) / 1_000_000, file);
+        } else if (command.equals("verify")) {
+            Path file = args.length > 1 ? Paths.get(args[1]) : Paths.get("recources", fileName(4, 4, 4));
+            int games = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+            long start = System.nanoTime();
+            Tablebase table = open(file);
+            long opened = System.nanoTime() - start;
+            int wrong = table.verify(games, 11, 42);
+            System.out.printf("%s: %d positions, opened in %d us, %d games checked, %d wrong%n", file, table.positions(),
+                    opened / 1000, games, wrong);
+            if (wrong > 0) {
+                System.exit(1);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown command: " + command);
+        }
+    }
+}
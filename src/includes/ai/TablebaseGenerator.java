@@ -0,0 +1,254 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Tablebase Generator: solves every reachable position of a small board and writes the {@link Tablebase} file.
+ *
+ * <ol>
+ *      <li>Negamax over all positions from the empty board, X and O are two int masks</li>
+ *      <li>Every position is solved once: the table is keyed by the smallest key under all symmetries {@link BoardSymmetry}</li>
+ *      <li>The table is open addressing on plain arrays, it grows when it is half full</li>
+ *      <li>At the end the keys are sorted, so the loader can find a position with a binary search on the mapped file</li>
+ * </ol>
+ * Positions after the end of the game are stored too, the player looks them up as the value of a winning move.
+ */
+final class TablebaseGenerator {
+
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final int cells;
+    private final BoardSymmetry symmetry;
+    private final int[][] cellLines;
+
+    private int[] keys;
+    private byte[] scores;
+    private byte[] best;
+    private int size;
+    private int shift;
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     */
+    TablebaseGenerator(int rows, int cols, int winLength) {
+        if (winLength < 1 || winLength > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("Illegal board: " + rows + "x" + cols + " with " + winLength + " in a row");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.cells = rows * cols;
+        this.symmetry = new BoardSymmetry(rows, cols);
+        this.cellLines = lines();
+        resize(1 << 16);
+    }
+
+    /**
+     * @return int[][] for every cell the masks of all lines of k cells through it
+     */
+    private int[][] lines() {
+        int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+        int[] count = new int[cells];
+        int[][] result = new int[cells][4 * winLength];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (int[] d : directions) {
+                    int endRow = row + d[0] * (winLength - 1);
+                    int endCol = col + d[1] * (winLength - 1);
+                    if (endRow < 0 || endRow >= rows || endCol < 0 || endCol >= cols) {
+                        continue;
+                    }
+                    int line = 0;
+                    for (int i = 0; i < winLength; i++) {
+                        line |= 1 << (row + d[0] * i) * cols + col + d[1] * i;
+                    }
+                    for (int i = 0; i < winLength; i++) {
+                        int cell = (row + d[0] * i) * cols + col + d[1] * i;
+                        result[cell][count[cell]++] = line;
+                    }
+                }
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            result[cell] = Arrays.copyOf(result[cell], count[cell]);
+        }
+        return result;
+    }
+
+    /**
+     * Solve all positions and write the file, first to a temporary file that is then moved over the old one
+     *
+     * @param file Path
+     * @return Integer number of positions in the file
+     * @throws IOException if the file can not be written
+     */
+    int generate(Path file) throws IOException {
+        solve(0, 0, false);
+        long[] entries = new long[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                entries[n++] = (long) keys[i] << 16 | (scores[i] & 0xFF) << 8 | best[i] & 0xFF;
+            }
+        }
+        Arrays.sort(entries);
+        ByteBuffer buffer = ByteBuffer.allocate(Tablebase.HEADER_BYTES + n * Tablebase.ENTRY_BYTES);
+        Tablebase.writeHeader(buffer, rows, cols, winLength, n);
+        for (long entry : entries) {
+            buffer.putInt((int) (entry >> 16));
+        }
+        for (long entry : entries) {
+            buffer.put((byte) (entry >>> 8));
+        }
+        for (long entry : entries) {
+            buffer.put((byte) entry);
+        }
+        buffer.flip();
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return n;
+    }
+
+    /**
+     * Negamax with the table
+     *
+     * @param xBits Integer mask of X
+     * @param oBits Integer mask of O
+     * @param won   boolean the last move made a line
+     * @return Integer score for the player to move: &gt; 0 win, 0 draw, &lt; 0 loss, faster wins have bigger scores
+     */
+    private int solve(int xBits, int oBits, boolean won) {
+        int sym = symmetry.canonical(xBits, oBits);
+        int key = symmetry.key(sym, xBits, oBits);
+        int slot = find(key);
+        if (keys[slot] == key) {
+            return scores[slot];
+        }
+        int taken = xBits | oBits;
+        int empties = cells - Integer.bitCount(taken);
+        int score;
+        int bestCell = -1;
+        if (won) {
+            score = -(empties + 1);
+        } else if (empties == 0) {
+            score = 0;
+        } else {
+            boolean xToMove = Integer.bitCount(xBits) == Integer.bitCount(oBits);
+            score = Integer.MIN_VALUE;
+            for (int cell = 0; cell < cells; cell++) {
+                if ((taken & 1 << cell) != 0) {
+                    continue;
+                }
+                int value = xToMove
+                        ? -solve(xBits | 1 << cell, oBits, isLine(xBits | 1 << cell, cell))
+                        : -solve(xBits, oBits | 1 << cell, isLine(oBits | 1 << cell, cell));
+                if (value > score) {
+                    score = value;
+                    bestCell = cell;
+                }
+            }
+        }
+        insert(key, score, bestCell < 0 ? -1 : symmetry.map(sym, bestCell));
+        return score;
+    }
+
+    /**
+     * @param mask Integer cells of the player, with the new stone
+     * @param cell Integer the new stone
+     * @return true if a line through the cell is full
+     */
+    private boolean isLine(int mask, int cell) {
+        for (int line : cellLines[cell]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param key Integer
+     * @return Integer slot of the key or the free slot where it belongs
+     */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = (key * 0x9E3779B9) >>> shift;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int key, int score, int bestCell) {
+        if (2 * (size + 1) > keys.length) {
+            int[] oldKeys = keys;
+            byte[] oldScores = scores;
+            byte[] oldBest = best;
+            resize(keys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != FREE) {
+                    int slot = find(oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    scores[slot] = oldScores[i];
+                    best[slot] = oldBest[i];
+                }
+            }
+        }
+        int slot = find(key);
+        keys[slot] = key;
+        scores[slot] = (byte) score;
+        best[slot] = (byte) bestCell;
+        size++;
+    }
+
+    private void resize(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        scores = new byte[capacity];
+        best = new byte[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+}
@@ -0,0 +1,125 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tablebase Player: answers from the solved table of the board {@link Tablebase}, no search.
+ *
+ * <ol>
+ *      <li>The table of a board is mapped on the first move on that board, from <code>directory/tablebase-MxN-K.ttb</code></li>
+ *      <li>Between moves of the same value a random one is chosen, like the {@link PerfectPlayer}</li>
+ *      <li>Boards without a table file (make one with <code>tablebase generate</code>) are played by the fallback player</li>
+ * </ol>
+ */
+public final class TablebasePlayer implements Player {
+
+    private final Path directory;
+    private final Player fallback;
+    private final Map<String, Optional<Tablebase>> tables = new ConcurrentHashMap<>();
+
+    private volatile boolean lastFromTable;
+
+    /**
+     * @param directory Path with the table files {@link Tablebase#fileName(int, int, int)}
+     * @param fallback  Player for boards without a table
+     */
+    public TablebasePlayer(Path directory, Player fallback) {
+        this.directory = directory;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public String name() {
+        return "tablebase";
+    }
+
+    /**
+     * @param game Game
+     * @return Tablebase of the board of the game, null if there is no table file
+     */
+    public Tablebase table(Game game) {
+        String name = Tablebase.fileName(game.rows(), game.cols(), game.winLength());
+        return tables.computeIfAbsent(name, n -> {
+            Path file = directory.resolve(n);
+            if (!Files.exists(file)) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.of(Tablebase.open(file));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Optional.empty();
+            }
+        }).orElse(null);
+    }
+
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        Tablebase table = table(game);
+        lastFromTable = table != null;
+        if (table == null) {
+            return fallback.selectMove(game, random);
+        }
+        int best = Integer.MIN_VALUE;
+        int bestCells = 0;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (game.get(cell) != Game.EMPTY) {
+                continue;
+            }
+            int score = -table.scoreAfter(game, cell);
+            if (score > best) {
+                best = score;
+                bestCells = 1 << cell;
+            } else if (score == best) {
+                bestCells |= 1 << cell;
+            }
+        }
+        return RandomPlayer.randomBit(bestCells, random);
+    }
+
+    /**
+     * @return true if the last move came from a table, false if the fallback player chose it
+     */
+    public boolean isLastFromTable() {
+        return lastFromTable;
+    }
+
+    /**
+     * @return Player for boards without a table
+     */
+    public Player getFallback() {
+        return fallback;
+    }
+}
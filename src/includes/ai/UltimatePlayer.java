@@ -0,0 +1,456 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+import includes.engine.UltimateGame;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ultimate TicTacToe Player: parallel alpha-beta search on the bitboards of {@link UltimateGame}.
+ *
+ * <ol>
+ *      <li>Iterative deepening until the time budget is used up, the moves of the last finished depth are kept</li>
+ *      <li>Every depth: the best move of the last depth is searched first, then all threads take the other root moves
+ *      one by one and share the best score as their alpha, so a good first move makes all other searches small</li>
+ *      <li>Every thread has its own copy of the game, its own transposition table and its own move buffers, nothing is locked</li>
+ *      <li>Moves that win a small board first, moves that let the other player choose any board last</li>
+ *      <li>Evaluation from the masks only: lines on the big board, won small boards by position,
+ *      and every open small board from a table of all 2^18 (X, O) masks {@link #LOCAL}</li>
+ * </ol>
+ * The thinking time and the nodes of all searches go to the {@link Metrics}.
+ */
+public final class UltimatePlayer implements Player, SearchStats {
+
+    /**
+     * Score of a won game, minus the moves to get there
+     */
+    static final int WIN = 1_000_000;
+
+    private static final int MAX_DEPTH = UltimateGame.CELLS;
+    private static final int INFINITY = Integer.MAX_VALUE / 2;
+    private static final int TABLE_BITS = 18;
+
+    /**
+     * Value for X of a line on the big board with 0, 1 or 2 won boards and nothing of O
+     */
+    private static final int[] META_LINE = {0, 40, 300};
+
+    /**
+     * Value for X of a small board won by X: center, corners and edges
+     */
+    private static final int[] WON_BOARD = {60, 40, 60, 40, 90, 40, 60, 40, 60};
+
+    /**
+     * Value for X of every open small board, index <code>xMask &lt;&lt; 9 | oMask</code>
+     */
+    private static final short[] LOCAL = new short[1 << (2 * GameState.CELLS)];
+
+    static {
+        for (int x = 0; x <= GameState.FULL; x++) {
+            for (int o = 0; o <= GameState.FULL; o++) {
+                if ((x & o) != 0) {
+                    continue;
+                }
+                int score = ((x >> 4) & 1) * 3 - ((o >> 4) & 1) * 3;
+                for (int line : GameState.LINES) {
+                    int xs = Integer.bitCount(x & line);
+                    int os = Integer.bitCount(o & line);
+                    if (xs == 0 && os > 0) {
+                        score -= os == 2 ? 12 : 1;
+                    } else if (os == 0 && xs > 0) {
+                        score += xs == 2 ? 12 : 1;
+                    }
+                }
+                LOCAL[x << GameState.CELLS | o] = (short) score;
+            }
+        }
+    }
+
+    private static final Histogram THINK_NANOS = Metrics.histogram("ai.ultimate.think");
+    private static final LongAdder NODES = Metrics.counter("ai.ultimate.nodes");
+
+    private final int threads;
+    private final long budgetNanos;
+    private final int maxDepth;
+    private final ExecutorService pool;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+
+    private volatile int lastDepth;
+    private volatile long lastNodes;
+    private volatile long lastNanos;
+
+    /**
+     * @param threads      Integer search threads, the calling thread is one of them
+     * @param budgetMillis Long time budget per move
+     */
+    public UltimatePlayer(int threads, long budgetMillis) {
+        this(threads, budgetMillis, MAX_DEPTH);
+    }
+
+    /**
+     * @param threads      Integer search threads, the calling thread is one of them
+     * @param budgetMillis Long time budget per move
+     * @param maxDepth     Integer deepest search, for the same moves on every machine
+     */
+    public UltimatePlayer(int threads, long budgetMillis, int maxDepth) {
+        this.threads = threads;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.maxDepth = maxDepth;
+        this.pool = threads > 1 ? Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "ultimate-search");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @Override
+    public String name() {
+        return "ultimate";
+    }
+
+    /**
+     * @throws IllegalArgumentException if the game is not {@link UltimateGame}
+     */
+    @Override
+    public int selectMove(Game game, SplittableRandom random) {
+        if (!(game instanceof UltimateGame)) {
+            throw new IllegalArgumentException("The ultimate player only plays Ultimate TicTacToe (9 9 " + UltimateGame.WIN_LENGTH + ")");
+        }
+        long start = System.nanoTime();
+        UltimateGame root = (UltimateGame) game;
+        int[] moves = new int[UltimateGame.CELLS];
+        int count = root.legalMoves(moves);
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = moves[i];
+            moves[i] = moves[j];
+            moves[j] = swap;
+        }
+        for (int i = 0; i < count; i++) {
+            if (root.isWinningMove(moves[i], root.sideToMove())) {
+                return moves[i];
+            }
+        }
+        int best = moves[0];
+        int[] scores = new int[count];
+        long nodes = 0;
+        int depth = 0;
+        int limit = Math.min(maxDepth, UltimateGame.CELLS - root.moveCount());
+        for (int d = 1; d <= limit && count > 1; d++) {
+            Round round = new Round(root, moves, scores, count, d, start + budgetNanos);
+            nodes += round.run();
+            if (round.aborted) {
+                break;
+            }
+            SearchSupport.sort(moves, scores, count);
+            best = moves[0];
+            depth = d;
+            if (Math.abs(scores[0]) >= WIN - MAX_DEPTH) {
+                break;
+            }
+        }
+        lastNanos = System.nanoTime() - start;
+        lastNodes = nodes;
+        lastDepth = depth;
+        THINK_NANOS.record(lastNanos);
+        NODES.add(nodes);
+        return best;
+    }
+
+    @Override
+    public int getLastDepth() {
+        return lastDepth;
+    }
+
+    @Override
+    public long getLastNodes() {
+        return lastNodes;
+    }
+
+    @Override
+    public long getLastNodesPerSecond() {
+        return lastNanos == 0 ? 0 : lastNodes * 1_000_000_000L / lastNanos;
+    }
+
+    /**
+     * Static evaluation from the masks
+     *
+     * @param game UltimateGame, not over
+     * @return Integer score for the player to move
+     */
+    static int evaluate(UltimateGame game) {
+        int xWon = game.wonBoards(Game.X);
+        int oWon = game.wonBoards(Game.O);
+        int drawn = game.closedBoards() & ~(xWon | oWon);
+        int score = 0;
+        for (int line : GameState.LINES) {
+            if ((drawn & line) != 0) {
+                continue;
+            }
+            int xs = Integer.bitCount(xWon & line);
+            int os = Integer.bitCount(oWon & line);
+            if (os == 0) {
+                score += META_LINE[xs];
+            } else if (xs == 0) {
+                score -= META_LINE[os];
+            }
+        }
+        for (int board = 0; board < GameState.CELLS; board++) {
+            int bit = 1 << board;
+            if ((xWon & bit) != 0) {
+                score += WON_BOARD[board];
+            } else if ((oWon & bit) != 0) {
+                score -= WON_BOARD[board];
+            } else if ((drawn & bit) == 0) {
+                score += LOCAL[game.boardBits(Game.X, board) << GameState.CELLS | game.boardBits(Game.O, board)];
+            }
+        }
+        return game.sideToMove() == Game.X ? score : -score;
+    }
+
+    /**
+     * One depth of the iterative deepening on all threads
+     */
+    private final class Round {
+
+        private final UltimateGame root;
+        private final int[] moves;
+        private final int[] scores;
+        private final int count;
+        private final int depth;
+        private final long deadline;
+        private final AtomicInteger next = new AtomicInteger(1);
+        private final AtomicInteger alpha = new AtomicInteger(-INFINITY);
+        private volatile boolean aborted;
+
+        Round(UltimateGame root, int[] moves, int[] scores, int count, int depth, long deadline) {
+            this.root = root;
+            this.moves = moves;
+            this.scores = scores;
+            this.count = count;
+            this.depth = depth;
+            this.deadline = deadline;
+        }
+
+        /**
+         * The first move on the calling thread, then the others on all threads
+         *
+         * @return Long nodes of all threads
+         */
+        long run() {
+            Search first = searches.get();
+            long nodes = first.rootMove(this, 0);
+            if (aborted) {
+                return nodes;
+            }
+            List<Future<Long>> futures = new ArrayList<>();
+            for (int t = 1; t < threads && t < count - 1; t++) {
+                futures.add(pool.submit(() -> searches.get().rootMoves(this)));
+            }
+            nodes += first.rootMoves(this);
+            for (Future<Long> future : futures) {
+                try {
+                    nodes += future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    aborted = true;
+                    break;
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Ultimate search failed", e.getCause());
+                }
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * Search of one thread: copy of the game, transposition table, move buffers and counters
+     */
+    private static final class Search {
+
+        private final long[] keys = new long[1 << TABLE_BITS];
+        private final long[] data = new long[1 << TABLE_BITS];
+        private final int[][] moves = new int[MAX_DEPTH + 1][UltimateGame.CELLS];
+        private final int[][] order = new int[MAX_DEPTH + 1][UltimateGame.CELLS];
+        private final int[] history = new int[UltimateGame.CELLS];
+        private UltimateGame game;
+        private Round round;
+        private long deadline;
+        private boolean aborted;
+        private long nodes;
+
+        /**
+         * Take root moves until there are no more
+         *
+         * @return Long nodes
+         */
+        long rootMoves(Round round) {
+            long nodes = 0;
+            for (int i = round.next.getAndIncrement(); i < round.count && !round.aborted; i = round.next.getAndIncrement()) {
+                nodes += rootMove(round, i);
+            }
+            return nodes;
+        }
+
+        /**
+         * Search one root move with the best score so far as alpha
+         *
+         * @return Long nodes
+         */
+        long rootMove(Round round, int index) {
+            if (this.round != round) {
+                this.round = round;
+                game = round.root.copy();
+                for (int i = 0; i < history.length; i++) {
+                    history[i] >>= 1;
+                }
+            }
+            deadline = round.deadline;
+            aborted = false;
+            nodes = 0;
+            int alpha = round.alpha.get();
+            game.play(round.moves[index]);
+            int score = -negamax(round.depth - 1, -INFINITY, -alpha, 1);
+            game.undo();
+            if (aborted) {
+                round.aborted = true;
+                return nodes;
+            }
+            round.scores[index] = score;
+            round.alpha.accumulateAndGet(score, Math::max);
+            return nodes;
+        }
+
+        private int negamax(int depth, int alpha, int beta, int ply) {
+            if ((++nodes & 1023) == 0 && (System.nanoTime() > deadline || round.aborted || Thread.currentThread().isInterrupted())) {
+                aborted = true;
+            }
+            if (aborted) {
+                return 0;
+            }
+            if (game.winner() != Game.EMPTY) {
+                return -(WIN - ply);
+            }
+            if (game.isFull()) {
+                return 0;
+            }
+            if (depth == 0) {
+                return evaluate(game);
+            }
+
+            long key = game.hash();
+            int index = (int) key & ((1 << TABLE_BITS) - 1);
+            int ttMove = -1;
+            if (keys[index] == key) {
+                long entry = data[index];
+                ttMove = SearchSupport.move(entry);
+                if (SearchSupport.depth(entry) >= depth) {
+                    int score = SearchSupport.score(entry, ply, WIN - MAX_DEPTH);
+                    if (SearchSupport.cuts(SearchSupport.bound(entry), score, alpha, beta)) {
+                        return score;
+                    }
+                }
+            }
+
+            int alphaStart = alpha;
+            int count = generate(ply, ttMove);
+            int[] list = moves[ply];
+            int best = -INFINITY;
+            int bestMove = list[0];
+            for (int i = 0; i < count; i++) {
+                int cell = list[i];
+                game.play(cell);
+                int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+                game.undo();
+                if (aborted) {
+                    return 0;
+                }
+                if (score > best) {
+                    best = score;
+                    bestMove = cell;
+                }
+                if (score > alpha) {
+                    alpha = score;
+                }
+                if (alpha >= beta) {
+                    history[cell] += depth * depth;
+                    break;
+                }
+            }
+
+            keys[index] = key;
+            data[index] = SearchSupport.entry(best, ply, WIN - MAX_DEPTH, bestMove, depth, SearchSupport.bound(best, alphaStart, beta));
+            return best;
+        }
+
+        /**
+         * Ordered legal moves of a node into {@link #moves}[ply]: a winning move is the only move,
+         * then the table move, moves that win a small board, the history, and moves that free the other player last
+         *
+         * @return Integer number of moves
+         */
+        private int generate(int ply, int ttMove) {
+            int[] list = moves[ply];
+            int[] scores = order[ply];
+            int count = game.legalMoves(list);
+            int mine = game.sideToMove();
+            int closed = game.closedBoards();
+            for (int i = 0; i < count; i++) {
+                int cell = list[i];
+                int board = UltimateGame.boardOf(cell);
+                int bit = 1 << UltimateGame.bitOf(cell);
+                int score = history[cell];
+                if (UltimateGame.isLine(game.boardBits(mine, board) | bit)) {
+                    if (game.isWinningMove(cell, mine)) {
+                        list[0] = cell;
+                        return 1;
+                    }
+                    score += 1 << 24;
+                }
+                if (cell == ttMove) {
+                    score = Integer.MAX_VALUE;
+                } else if ((closed & bit) != 0) {
+                    score -= 1 << 24;
+                }
+                scores[i] = score;
+            }
+            SearchSupport.sort(list, scores, count);
+            return count;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.analytics;
+
+import includes.engine.Game;
+import includes.io.GameArchive;
+import includes.io.GameFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Game Analytics: streams stored games through parallel counters {@link GameStats}.
+ *
+ * <ol>
+ *      <li>An archive (a data file with its <code>.idx</code>) is opened read-only {@link GameArchive#openReadOnly(Path)}
+ *      and cut in chunks of {@link #CHUNK} game ids,
+ *      every chunk is read in file order {@link GameArchive#scan(long, long, GameArchive.RecordVisitor)}</li>
+ *      <li>Any other file of games one after the other (like a single saved game) is mapped read-only,
+ *      the headers are walked once to find the chunks</li>
+ *      <li>Every chunk runs on the fork join pool with its own {@link GameStats} and one {@link Game} that is used for every game
+ *      {@link GameFile#read(ByteBuffer, Game)}, at the end all statistics are merged</li>
+ * </ol>
+ * No game is kept, the memory does not depend on the number of games. Broken games are counted and skipped.
+ */
+public final class GameAnalytics {
+
+    /**
+     * Games per task
+     */
+    private static final int CHUNK = 65536;
+
+    private final int threads;
+    private long games;
+    private long broken;
+    private long nanos;
+
+    /**
+     * @param threads Integer number of worker threads
+     */
+    public GameAnalytics(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Read all games of the files
+     *
+     * @param files List of archives or game files
+     * @return Map of the statistics by board {@link GameStats#board()}
+     * @throws IOException if a file can not be read
+     */
+    public Map<String, GameStats> run(List<Path> files) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        Map<String, GameStats> result = new TreeMap<>();
+        try {
+            for (Path file : files) {
+                Part part = Files.exists(GameArchive.indexFile(file)) ? runArchive(pool, file) : runFile(pool, file);
+                merge(result, part.stats);
+                games += part.games;
+                broken += part.broken;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Analytics interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IllegalStateException("Analytics failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        nanos = System.nanoTime() - start;
+        return result;
+    }
+
+    private Part runArchive(ForkJoinPool pool, Path file) throws IOException, InterruptedException, ExecutionException {
+        try (GameArchive archive = GameArchive.openReadOnly(file)) {
+            long count = archive.size();
+            long chunks = (count + CHUNK - 1) / CHUNK;
+            return pool.submit(() -> LongStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> {
+                        Part part = new Part();
+                        try {
+                            archive.scan(chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK), (id, record) -> part.add(record));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        return part;
+                    })
+                    .reduce(Part::merge)
+                    .orElseGet(Part::new)).get();
+        }
+    }
+
+    private Part runFile(ForkJoinPool pool, Path file) throws IOException, InterruptedException, ExecutionException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        List<Integer> starts = new ArrayList<>();
+        int offset = 0;
+        int end = data.limit();
+        for (long n = 0; offset + GameFile.HEADER_BYTES <= data.limit(); n++) {
+            int size = GameFile.size(data, offset);
+            if (size < GameFile.HEADER_BYTES || offset + (long) size > data.limit()) {
+                break;
+            }
+            if (n % CHUNK == 0) {
+                starts.add(offset);
+            }
+            offset += size;
+        }
+        int last = offset;
+        starts.add(last);
+        Part part = pool.submit(() -> IntStream.range(0, starts.size() - 1)
+                .parallel()
+                .mapToObj(chunk -> {
+                    Part p = new Part();
+                    ByteBuffer view = data.duplicate();
+                    view.limit(starts.get(chunk + 1)).position(starts.get(chunk));
+                    while (view.hasRemaining()) {
+                        p.add(view);
+                    }
+                    return p;
+                })
+                .reduce(Part::merge)
+                .orElseGet(Part::new)).get();
+        if (last < end) {
+            part.broken++;
+        }
+        return part;
+    }
+
+    private static void merge(Map<String, GameStats> to, Map<String, GameStats> from) {
+        for (Map.Entry<String, GameStats> entry : from.entrySet()) {
+            to.merge(entry.getKey(), entry.getValue(), GameStats::merge);
+        }
+    }
+
+    /**
+     * @return Long games read by the last run
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return Long broken games of the last run, a broken end of a file counts as one
+     */
+    public long getBroken() {
+        return broken;
+    }
+
+    /**
+     * @return Double games per second of the last run
+     */
+    public double getGamesPerSecond() {
+        return nanos == 0 ? 0 : games * 1e9 / nanos;
+    }
+
+    /**
+     * The result of one chunk
+     */
+    private static final class Part {
+
+        private final Map<String, GameStats> stats = new TreeMap<>();
+        private GameStats current;
+        private Game game;
+        private long games;
+        private long broken;
+
+        /**
+         * Read one game at the position of the buffer and count it
+         */
+        void add(ByteBuffer record) {
+            int start = record.position();
+            try {
+                game = GameFile.read(record, game);
+            } catch (IOException e) {
+                broken++;
+                record.position((int) Math.min(record.limit(), (long) start + GameFile.size(record, start)));
+                return;
+            }
+            if (current == null || !current.accepts(game)) {
+                Game board = game;
+                current = stats.computeIfAbsent(GameStats.board(board.rows(), board.cols(), board.winLength()),
+                        name -> new GameStats(board.rows(), board.cols(), board.winLength()));
+            }
+            current.add(game);
+            games++;
+        }
+
+        Part merge(Part other) {
+            GameAnalytics.merge(stats, other.stats);
+            games += other.games;
+            broken += other.broken;
+            current = null;
+            return this;
+        }
+    }
+
+    /**
+     * Read the files and print the report
+     *
+     * @param args files (default the archive of the game window recources/games.tta), optional --threads n
+     * @throws IOException if a file can not be read
+     */
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            files.add(Paths.get("recources", "games.tta"));
+        }
+        GameAnalytics analytics = new GameAnalytics(threads);
+        Map<String, GameStats> result = analytics.run(files);
+        for (GameStats stats : result.values()) {
+            System.out.print(stats);
+        }
+        System.out.printf("%,d games (%,d broken) in %d files, %,.0f games/sec on %d threads%n", analytics.getGames(),
+                analytics.getBroken(), files.size(), analytics.getGamesPerSecond(), threads);
+    }
+}
@@ -0,0 +1,347 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.analytics;
+
+import includes.ai.Solver;
+import includes.engine.Game;
+import includes.engine.GameState;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * Game Statistics of one board size: counters of many stored games.
+ *
+ * <ol>
+ *      <li>Winner and length of every game, and the result by the opening move</li>
+ *      <li>3x3: every position is looked up in the {@link Solver}: how often a player who had a won position also won the game,
+ *      and the first move that gave the game away (a draw or a win became a loss)</li>
+ *      <li>Other boards: the last move of the loser, the move that let the winner finish</li>
+ * </ol>
+ * The memory is a few arrays of the size of the board, no matter how many games are added.
+ * One object is filled by one thread only, objects of different threads are added together with {@link #merge(GameStats)}.
+ */
+public final class GameStats {
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final boolean solved;
+    private final GameState replay;
+
+    private long games;
+    private long xWins;
+    private long oWins;
+    private long draws;
+    private long unfinished;
+    private long moves;
+    private final long[] lengths;
+    private final long[] openings;
+    private final long[] openingXWins;
+    private final long[] openingOWins;
+    private final long[] openingDraws;
+    private final long[] hadWin = new long[3];
+    private final long[] converted = new long[3];
+    private final long[] losingCells;
+    private final long[] losingMoveNumbers;
+
+    /**
+     * Empty statistics
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     */
+    public GameStats(int rows, int cols, int winLength) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.solved = rows == GameState.SIZE && cols == GameState.SIZE && winLength == GameState.SIZE;
+        this.replay = solved ? new GameState() : null;
+        int cells = rows * cols;
+        this.lengths = new long[cells + 1];
+        this.openings = new long[cells];
+        this.openingXWins = new long[cells];
+        this.openingOWins = new long[cells];
+        this.openingDraws = new long[cells];
+        this.losingCells = new long[cells];
+        this.losingMoveNumbers = new long[cells + 1];
+    }
+
+    /**
+     * @param game Game
+     * @return true if the game has the board of these statistics
+     */
+    public boolean accepts(Game game) {
+        return game.rows() == rows && game.cols() == cols && game.winLength() == winLength;
+    }
+
+    /**
+     * @return String board like <code>3x3 with 3 in a row</code>
+     */
+    public String board() {
+        return board(rows, cols, winLength);
+    }
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return String board like <code>3x3 with 3 in a row</code> {@link Game#describe(int, int, int)}
+     */
+    public static String board(int rows, int cols, int winLength) {
+        return Game.describe(rows, cols, winLength);
+    }
+
+    /**
+     * Count one stored game
+     *
+     * @param game Game with all moves, of this board {@link #accepts(Game)}
+     */
+    public void add(Game game) {
+        int winner = game.winner();
+        int count = game.moveCount();
+        games++;
+        moves += count;
+        lengths[count]++;
+        if (winner == Game.X) {
+            xWins++;
+        } else if (winner == Game.O) {
+            oWins++;
+        } else if (game.isFull()) {
+            draws++;
+        } else {
+            unfinished++;
+        }
+        if (count > 0) {
+            int opening = game.moveAt(0);
+            openings[opening]++;
+            if (winner == Game.X) {
+                openingXWins[opening]++;
+            } else if (winner == Game.O) {
+                openingOWins[opening]++;
+            } else if (game.isFull()) {
+                openingDraws[opening]++;
+            }
+        }
+        if (solved) {
+            addSolved(game, winner);
+        } else if (winner != Game.EMPTY && count >= 2) {
+            losingCells[game.moveAt(count - 2)]++;
+            losingMoveNumbers[count - 1]++;
+        }
+    }
+
+    /**
+     * Replay a 3x3 game and look up every position in the {@link Solver}
+     */
+    private void addSolved(Game game, int winner) {
+        replay.reset();
+        int won = 0;
+        boolean blundered = false;
+        int before = Solver.score(replay);
+        for (int i = 0; i < game.moveCount(); i++) {
+            int mover = replay.sideToMove();
+            int cell = game.moveAt(i);
+            replay.play(cell);
+            int after = Solver.score(replay);
+            if (after < 0 && (won & 1 << mover) == 0) {
+                won |= 1 << mover;
+                hadWin[mover]++;
+                if (winner == mover) {
+                    converted[mover]++;
+                }
+            }
+            if (!blundered && before >= 0 && after > 0) {
+                blundered = true;
+                losingCells[cell]++;
+                losingMoveNumbers[i + 1]++;
+            }
+            before = after;
+        }
+    }
+
+    /**
+     * Add the counters of other statistics of the same board to this one
+     *
+     * @param other GameStats
+     * @return this
+     */
+    public GameStats merge(GameStats other) {
+        games += other.games;
+        xWins += other.xWins;
+        oWins += other.oWins;
+        draws += other.draws;
+        unfinished += other.unfinished;
+        moves += other.moves;
+        add(lengths, other.lengths);
+        add(openings, other.openings);
+        add(openingXWins, other.openingXWins);
+        add(openingOWins, other.openingOWins);
+        add(openingDraws, other.openingDraws);
+        add(hadWin, other.hadWin);
+        add(converted, other.converted);
+        add(losingCells, other.losingCells);
+        add(losingMoveNumbers, other.losingMoveNumbers);
+        return this;
+    }
+
+    private static void add(long[] to, long[] from) {
+        for (int i = 0; i < to.length; i++) {
+            to[i] += from[i];
+        }
+    }
+
+    /**
+     * @return Long number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return Long games won by X
+     */
+    public long getXWins() {
+        return xWins;
+    }
+
+    /**
+     * @return Long games won by O
+     */
+    public long getOWins() {
+        return oWins;
+    }
+
+    /**
+     * @return Long games without winner on a full board
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * @return Double average number of moves of a game
+     */
+    public double getAverageLength() {
+        return games == 0 ? 0 : (double) moves / games;
+    }
+
+    /**
+     * @param cell Integer first move
+     * @return Long games that started with this cell
+     */
+    public long getOpeningCount(int cell) {
+        return openings[cell];
+    }
+
+    /**
+     * @param cell Integer first move
+     * @return Long games that started with this cell and were won by X
+     */
+    public long getOpeningXWins(int cell) {
+        return openingXWins[cell];
+    }
+
+    /**
+     * @return String report: results, game length, the openings, the advantage of X and the losing moves
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(board()).append(System.lineSeparator());
+        sb.append(String.format("  Games:       %,d, %.2f moves on average%n", games, getAverageLength()));
+        sb.append(String.format("  X wins:      %,d (%.2f %%)%n", xWins, percent(xWins, games)));
+        sb.append(String.format("  O wins:      %,d (%.2f %%)%n", oWins, percent(oWins, games)));
+        sb.append(String.format("  Draws:       %,d (%.2f %%)%n", draws, percent(draws, games)));
+        if (unfinished > 0) {
+            sb.append(String.format("  Unfinished:  %,d (%.2f %%)%n", unfinished, percent(unfinished, games)));
+        }
+        sb.append(String.format("  First player advantage: X wins %.2f %% of the decided games%n", percent(xWins, xWins + oWins)));
+        if (solved) {
+            sb.append(String.format("  X had a won position in %,d games and won %.2f %% of them%n", hadWin[Game.X],
+                    percent(converted[Game.X], hadWin[Game.X])));
+            sb.append(String.format("  O had a won position in %,d games and won %.2f %% of them%n", hadWin[Game.O],
+                    percent(converted[Game.O], hadWin[Game.O])));
+        }
+        sb.append("  Game length:").append(System.lineSeparator());
+        int longest = lengths.length - 1;
+        while (longest > 0 && lengths[longest] == 0) {
+            longest--;
+        }
+        int width = Math.max(1, (longest + 24) / 25);
+        long[] buckets = new long[longest / width + 1];
+        for (int length = 0; length <= longest; length++) {
+            buckets[length / width] += lengths[length];
+        }
+        long max = Math.max(1, Arrays.stream(buckets).max().orElse(1));
+        for (int b = 0; b < buckets.length; b++) {
+            if (buckets[b] > 0) {
+                String label = width == 1 ? String.valueOf(b) : b * width + "-" + (b * width + width - 1);
+                sb.append(String.format("    %9s moves %,14d %s%n", label, buckets[b], "#".repeat((int) (40 * buckets[b] / max))));
+            }
+        }
+        sb.append("  Openings (most played first):").append(System.lineSeparator());
+        for (int cell : top(openings, 10)) {
+            long n = openings[cell];
+            sb.append(String.format("    %-10s %,14d games  X %.2f %%  O %.2f %%  draw %.2f %%%n", cell(cell), n,
+                    percent(openingXWins[cell], n), percent(openingOWins[cell], n), percent(openingDraws[cell], n)));
+        }
+        sb.append(solved ? "  First losing move (a draw or a win became a loss):" : "  Last move of the loser:")
+                .append(System.lineSeparator());
+        long losing = Arrays.stream(losingCells).sum();
+        for (int cell : top(losingCells, 5)) {
+            sb.append(String.format("    cell %-10s %,14d (%.2f %%)%n", cell(cell), losingCells[cell],
+                    percent(losingCells[cell], losing)));
+        }
+        for (int number : top(losingMoveNumbers, 5)) {
+            sb.append(String.format("    move %-10d %,14d (%.2f %%)%n", number, losingMoveNumbers[number],
+                    percent(losingMoveNumbers[number], losing)));
+        }
+        return sb.toString();
+    }
+
+    private String cell(int cell) {
+        return "(" + cell / cols + ", " + cell % cols + ")";
+    }
+
+    /**
+     * @return int[] indexes of the biggest counts that are not 0, biggest first
+     */
+    private static int[] top(long[] counts, int limit) {
+        return IntStream.range(0, counts.length)
+                .filter(i -> counts[i] > 0)
+                .boxed()
+                .sorted(Comparator.comparingLong((Integer i) -> counts[i]).reversed())
+                .limit(limit)
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static double percent(long count, long total) {
+        return total == 0 ? 0 : 100.0 * count / total;
+    }
+}
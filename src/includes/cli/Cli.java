@@ -0,0 +1,442 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.cli;
+
+import includes.ai.Player;
+import includes.ai.RandomPlayer;
+import includes.ai.Tablebase;
+import includes.analytics.GameAnalytics;
+import includes.engine.Game;
+import includes.io.GameArchive;
+import includes.io.GameFile;
+import includes.net.GameServer;
+import includes.net.LoadClient;
+import includes.sim.Simulator;
+import includes.sim.Tournament;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Command Line: everything that needs no window, for servers and containers without a display.
+ *
+ * <p>No class of <code>java.awt</code> or <code>javax.swing</code> is loaded, so it starts fast and never throws a
+ * <code>HeadlessException</code>.</p>
+ * <ol>
+ *      <li>play [rows] [cols] [win length] [x player] [o player]: play on the console, "human" reads the moves from stdin</li>
+ *      <li>replay file [id]: show a saved game move by move</li>
+ *      <li>validate file: read every game of a file, the file is not changed</li>
+ *      <li>analyze files: statistics of all stored games {@link GameAnalytics}</li>
+ *      <li>tournament: every AI against every other AI, Elo ratings {@link Tournament}</li>
+ *      <li>simulate, bench, server, load, tablebase</li>
+ * </ol>
+ * The files are only read, an archive is not recovered here like {@link GameArchive} would do it.
+ */
+public final class Cli {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Commands:",
+            "  play [rows] [cols] [win length] [x player] [o player]   moves from stdin: \"row col\", undo, redo, quit",
+            "  replay <file> [id]                                    show a saved game (archive or single game file)",
+            "  validate <file>                                       check every game of an archive or game file",
+            "  analyze [files] [--threads n]                         win rates, openings, game length and losing moves",
+            "  tournament [games per pair] [rows] [cols] [win length] [millis] [seed] [threads] [players...]",
+            "  simulate [games] [x player] [o player] [seed] [threads]",
+            "  bench [seconds] [rows] [cols] [win length]            random games on the engine, moves per second",
+            "  server [port] [max games] [max games per connection]",
+            "  load [concurrency] [seconds] [connections] [host:port]",
+            "  tablebase generate|verify ...",
+            "Players: human, random, greedy, perfect, alphabeta, mcts, mcts:threads, tablebase, ultimate, ultimate:threads, qubic, cached:player",
+            "Boards: rows cols win length, 9 9 0 is Ultimate TicTacToe (3x3 small boards on a big one),",
+            "        4 16 0 is Qubic (4x4x4 in 3D, the 4 layers side by side).",
+            "Without a command: [rows] [cols] [win length] opens the game window.");
+
+    private final PrintStream out;
+
+    private Cli(PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Run one command
+     *
+     * @param args String[] the command and its arguments
+     * @throws IOException if a file or a socket fails
+     */
+    public static void main(String[] args) throws IOException {
+        int status = new Cli(System.out).run(args);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * @param args String[] the command and its arguments
+     * @return Integer exit status: 0 ok, 1 failed, 2 wrong arguments
+     * @throws IOException if a file or a socket fails
+     */
+    private int run(String[] args) throws IOException {
+        String command = args.length > 0 ? args[0] : "help";
+        String[] rest = Arrays.copyOfRange(args, Math.min(1, args.length), args.length);
+        try {
+            switch (command) {
+                case "play":
+                    return play(rest);
+                case "replay":
+                    return replay(rest);
+                case "validate":
+                    return validate(rest);
+                case "bench":
+                    return bench(rest);
+                case "analyze":
+                    GameAnalytics.main(rest);
+                    return 0;
+                case "tournament":
+                    Tournament.main(rest);
+                    return 0;
+                case "simulate":
+                    Simulator.main(rest);
+                    return 0;
+                case "server":
+                    GameServer.main(rest);
+                    return 0;
+                case "load":
+                    LoadClient.main(rest);
+                    return 0;
+                case "tablebase":
+                    Tablebase.main(rest);
+                    return 0;
+                case "help":
+                case "-h":
+                case "--help":
+                    out.println(USAGE);
+                    return 0;
+                default:
+                    System.err.println("Unknown command: " + command);
+                    System.err.println(USAGE);
+                    return 2;
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return 2;
+        }
+    }
+
+    /**
+     * Play on the console
+     *
+     * @param args [rows] [cols] [win length] [x player] [o player]
+     * @return Integer 0
+     * @throws IOException if stdin fails
+     */
+    private int play(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int cols = args.length > 1 ? Integer.parseInt(args[1]) : rows;
+        int winLength = args.length > 2 ? Integer.parseInt(args[2]) : Math.min(Math.max(rows, cols), 5);
+        Player[] players = {
+                null,
+                player(args.length > 3 ? args[3] : "human"),
+                player(args.length > 4 ? args[4] : "human")
+        };
+        Game game = Game.create(rows, cols, winLength);
+        SplittableRandom random = new SplittableRandom();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        printBoard(game);
+        while (!game.isOver()) {
+            Player player = players[game.sideToMove()];
+            if (player != null) {
+                int cell = player.selectMove(game, random);
+                game.play(cell);
+                out.println(symbol(game.get(cell)) + " (" + player.name() + ") plays " + cell / cols + " " + cell % cols);
+                printBoard(game);
+                continue;
+            }
+            out.print(symbol(game.sideToMove()) + " to move (row col, undo, redo, quit): ");
+            out.flush();
+            String line = in.readLine();
+            if (line == null || line.trim().equals("quit")) {
+                return 0;
+            }
+            String error = command(game, players, line.trim());
+            if (error != null) {
+                out.println(error);
+            } else {
+                printBoard(game);
+            }
+        }
+        out.println(game.winner() == Game.EMPTY ? "Draw" : symbol(game.winner()) + " wins");
+        return 0;
+    }
+
+    /**
+     * @param name String player name or "human"
+     * @return Player or null for a human
+     */
+    private static Player player(String name) {
+        return name.equals("human") ? null : Player.of(name);
+    }
+
+    /**
+     * One line of a human: a move, undo or redo. Undo and redo go on over the moves of the computer,
+     * so it is the turn of a human again.
+     *
+     * @param game    Game
+     * @param players Player[] by side, null for a human
+     * @param line    String
+     * @return String error or null if it was done
+     */
+    private static String command(Game game, Player[] players, String line) {
+        if (line.equals("undo")) {
+            if (game.moveCount() == 0) {
+                return "No move to undo";
+            }
+            do {
+                game.undo();
+            } while (game.moveCount() > 0 && players[game.sideToMove()] != null);
+            return null;
+        }
+        if (line.equals("redo")) {
+            if (game.redoCount() == 0) {
+                return "No move to redo";
+            }
+            do {
+                game.redo();
+            } while (game.redoCount() > 0 && !game.isOver() && players[game.sideToMove()] != null);
+            return null;
+        }
+        String[] parts = line.split("[\\s,]+");
+        if (parts.length != 2) {
+            return "Type a move as \"row col\"";
+        }
+        try {
+            int row = Integer.parseInt(parts[0]);
+            int col = Integer.parseInt(parts[1]);
+            if (row < 0 || row >= game.rows() || col < 0 || col >= game.cols() || !game.isLegal(row * game.cols() + col)) {
+                return "Illegal move: " + row + " " + col;
+            }
+            game.play(row * game.cols() + col);
+            return null;
+        } catch (NumberFormatException e) {
+            return "Type a move as \"row col\"";
+        }
+    }
+
+    /**
+     * Show a saved game after every move
+     *
+     * @param args file [id], id 0 is the first game, default the last one
+     * @return Integer 0, 1 if there is no such game
+     * @throws IOException if the file can not be read
+     */
+    private int replay(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("replay <file> [id]");
+        }
+        Path file = Paths.get(args[0]);
+        ByteBuffer data = map(file);
+        long count = count(file, data);
+        long id = args.length > 1 ? Long.parseLong(args[1]) : count - 1;
+        if (id < 0 || id >= count) {
+            System.err.println("No game " + id + ", the file has " + count + " games");
+            return 1;
+        }
+        data.position(offset(file, data, id));
+        Game saved = GameFile.read(data);
+        Game game = Game.create(saved.rows(), saved.cols(), saved.winLength());
+        out.println("Game " + id + ": " + Game.describe(saved.rows(), saved.cols(), saved.winLength()) + ", "
+                + saved.moveCount() + " moves");
+        for (int i = 0; i < saved.moveCount(); i++) {
+            int cell = saved.moveAt(i);
+            game.play(cell);
+            out.println("Move " + (i + 1) + ": " + symbol(game.get(cell)) + " " + cell / game.cols() + " " + cell % game.cols());
+            printBoard(game);
+        }
+        out.println(game.winner() != Game.EMPTY ? symbol(game.winner()) + " wins" : game.isFull() ? "Draw" : "Not finished");
+        return 0;
+    }
+
+    /**
+     * Read every game of a file, stop at the first broken one
+     *
+     * @param args file
+     * @return Integer 0 if all games are fine, 1 else
+     * @throws IOException if the file can not be read
+     */
+    private int validate(String[] args) throws IOException {
+        if (args.length < 1) {
+            throw new IllegalArgumentException("validate <file>");
+        }
+        Path file = Paths.get(args[0]);
+        ByteBuffer data = map(file);
+        long start = System.nanoTime();
+        long games = 0;
+        long moves = 0;
+        while (data.hasRemaining()) {
+            int offset = data.position();
+            try {
+                Game game = GameFile.read(data);
+                games++;
+                moves += game.moveCount();
+            } catch (IOException | RuntimeException e) {
+                out.println(file + ": game " + games + " at byte " + offset + " is broken: " + e.getMessage());
+                out.println((data.limit() - offset) + " bytes after the last good game");
+                return 1;
+            }
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        out.println(file + ": " + games + " games, " + moves + " moves, all fine (" + millis + " ms)");
+        return 0;
+    }
+
+    /**
+     * Random games on the engine, one thread
+     *
+     * @param args [seconds] [rows] [cols] [win length]
+     * @return Integer 0
+     */
+    private int bench(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 3;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : rows;
+        int winLength = args.length > 3 ? Integer.parseInt(args[3]) : Math.min(Math.max(rows, cols), 5);
+        Game game = Game.create(rows, cols, winLength);
+        SplittableRandom random = new SplittableRandom(42);
+        long games = 0;
+        long moves = 0;
+        long start = System.nanoTime();
+        long end = start + (long) (seconds * 1e9);
+        long now;
+        do {
+            for (int i = 0; i < 64; i++) {
+                game.reset();
+                while (!game.isOver()) {
+                    game.play(RandomPlayer.INSTANCE.selectMove(game, random));
+                }
+                moves += game.moveCount();
+                games++;
+            }
+            now = System.nanoTime();
+        } while (now < end);
+        double elapsed = (now - start) / 1e9;
+        out.printf("%s (%s): %d games in %.2f s, %.0f games/s, %.0f moves/s%n", Game.describe(rows, cols, winLength),
+                game.getClass().getSimpleName(), games, elapsed, games / elapsed, moves / elapsed);
+        return 0;
+    }
+
+    /**
+     * Map a file read-only
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            throw new IllegalArgumentException("No such file: " + file);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Number of games: from the index of the archive if there is one, only the games after the last indexed game are walked
+     * (none, unless the program stopped between the data and the index), else by walking all headers
+     *
+     * @return Long number of games
+     */
+    private static long count(Path file, ByteBuffer data) throws IOException {
+        Path indexFile = GameArchive.indexFile(file);
+        long entries = Files.exists(indexFile) ? Files.size(indexFile) / Long.BYTES : 0;
+        if (entries > 0) {
+            long last = map(indexFile).getLong((int) ((entries - 1) * Long.BYTES));
+            if (last >= 0 && last + GameFile.HEADER_BYTES <= data.limit()) {
+                return entries - 1 + count(data, (int) last);
+            }
+        }
+        return count(data, 0);
+    }
+
+    /**
+     * @param offset Integer start of a game
+     * @return Long number of games from the offset to the end, only the headers are read
+     */
+    private static long count(ByteBuffer data, int offset) {
+        long count = 0;
+        while (offset + GameFile.HEADER_BYTES <= data.limit()) {
+            int size = GameFile.size(data, offset);
+            if (size < GameFile.HEADER_BYTES || offset + (long) size > data.limit()) {
+                break;
+            }
+            offset += size;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Offset of a game: from the index of the archive if it has the game, else by walking the headers
+     */
+    private static int offset(Path file, ByteBuffer data, long id) throws IOException {
+        Path indexFile = GameArchive.indexFile(file);
+        if (Files.exists(indexFile) && Files.size(indexFile) >= (id + 1) * Long.BYTES) {
+            return (int) map(indexFile).getLong((int) (id * Long.BYTES));
+        }
+        int offset = 0;
+        for (long i = 0; i < id; i++) {
+            offset += GameFile.size(data, offset);
+        }
+        return offset;
+    }
+
+    private static String symbol(int player) {
+        return player == Game.X ? "X" : player == Game.O ? "O" : ".";
+    }
+
+    private void printBoard(Game game) {
+        int width = String.valueOf(Math.max(game.rows(), game.cols()) - 1).length();
+        String format = "%" + width + "s";
+        StringBuilder text = new StringBuilder(String.format(format, ""));
+        for (int col = 0; col < game.cols(); col++) {
+            text.append(' ').append(String.format(format, col));
+        }
+        text.append(System.lineSeparator());
+        for (int row = 0; row < game.rows(); row++) {
+            text.append(String.format(format, row));
+            for (int col = 0; col < game.cols(); col++) {
+                text.append(' ').append(String.format(format, symbol(game.get(row * game.cols() + col))));
+            }
+            text.append(System.lineSeparator());
+        }
+        out.print(text);
+    }
+}
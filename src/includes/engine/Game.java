@@ -0,0 +1,230 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+/**
+ * TicTacToe Game on a board with m rows, n columns and k in a row to win.
+ *
+ * <p>Cells are numbered <code>row * cols() + col</code>. X always starts.
+ * The moves are kept in an int array, undone moves stay behind the last move until a new move is played,
+ * so {@link #play(int)}, {@link #undo()} and {@link #redo()} are O(1) and need no allocation.</p>
+ * <ol>
+ *      <li>3x3 with 3 in a row: {@link GameState} (bitboard)</li>
+ *      <li>Every other size, like 15x15 with 5 in a row (Gomoku): {@link MnkGame}</li>
+ *      <li>9x9 with the win length 0: Ultimate TicTacToe, 3x3 small boards on a big one {@link UltimateGame}</li>
+ *      <li>4x16 with the win length 0: Qubic, 4x4x4 in 3D with the 4 layers side by side {@link QubicGame}</li>
+ * </ol>
+ * Use {@link #create(int, int, int)} to get the right one.
+ */
+public interface Game {
+
+    /**
+     * Empty Cell
+     */
+    int EMPTY = 0;
+
+    /**
+     * Player X (always starts)
+     */
+    int X = 1;
+
+    /**
+     * Player O
+     */
+    int O = 2;
+
+    /**
+     * @return Integer number of rows (m)
+     */
+    int rows();
+
+    /**
+     * @return Integer number of columns (n)
+     */
+    int cols();
+
+    /**
+     * @return Integer stones in a row to win (k), {@link UltimateGame#WIN_LENGTH} for Ultimate and Qubic
+     */
+    int winLength();
+
+    /**
+     * @return Integer rows * cols
+     */
+    int cellCount();
+
+    /**
+     * Get the player on a cell
+     *
+     * @param cell Integer 0..{@link #cellCount()} - 1
+     * @return {@link #EMPTY}, {@link #X} or {@link #O}
+     */
+    int get(int cell);
+
+    /**
+     * @param cell Integer
+     * @return true if the cell is on the board, empty and the game is not over
+     */
+    boolean isLegal(int cell);
+
+    /**
+     * Play a move for the player whose turn it is
+     *
+     * @param cell Integer
+     * @return true if this move won the game
+     * @throws IllegalArgumentException if the move is not legal {@link #isLegal(int)}
+     */
+    boolean play(int cell);
+
+    /**
+     * Undo the last move
+     *
+     * @return Integer the cell of the removed move
+     * @throws IllegalStateException if there is no move to undo
+     */
+    int undo();
+
+    /**
+     * Play the last undone move again. A new move {@link #play(int)} forgets all undone moves.
+     *
+     * @return Integer the cell of the move
+     * @throws IllegalStateException if there is no move to redo
+     */
+    int redo();
+
+    /**
+     * @return Integer number of undone moves that can be played again {@link #redo()}
+     */
+    int redoCount();
+
+    /**
+     * Would a stone of the player on this empty cell complete a line? The board is not changed.
+     *
+     * @param cell   Integer empty cell
+     * @param player Integer {@link #X} or {@link #O}
+     * @return true if it would win
+     */
+    boolean isWinningMove(int cell, int player);
+
+    /**
+     * @return Long Zobrist hash of the stones, updated with every move and undo {@link Zobrist}
+     */
+    long hash();
+
+    /**
+     * @return {@link #X} or {@link #O}, the player who moves next
+     */
+    int sideToMove();
+
+    /**
+     * @return {@link #X}, {@link #O} or {@link #EMPTY} if nobody has won yet
+     */
+    int winner();
+
+    /**
+     * @return true if all cells are taken
+     */
+    boolean isFull();
+
+    /**
+     * @return true if there is no winner and the board is full
+     */
+    default boolean isDraw() {
+        return winner() == EMPTY && isFull();
+    }
+
+    /**
+     * @return true if there is a winner or the board is full
+     */
+    default boolean isOver() {
+        return winner() != EMPTY || isFull();
+    }
+
+    /**
+     * @return Integer number of moves played
+     */
+    int moveCount();
+
+    /**
+     * @param index Integer 0..{@link #moveCount()} - 1
+     * @return Integer the cell of the move number index + 1
+     */
+    int moveAt(int index);
+
+    /**
+     * @return Integer the cell of the last move or -1
+     */
+    default int lastMove() {
+        return moveCount() == 0 ? -1 : moveAt(moveCount() - 1);
+    }
+
+    /**
+     * Clear the board
+     */
+    void reset();
+
+    /**
+     * @return Game independent copy with the same moves
+     */
+    Game copy();
+
+    /**
+     * Create a new empty Game
+     *
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return {@link GameState} for 3x3 with 3 in a row, {@link UltimateGame} for 9x9 with {@link UltimateGame#WIN_LENGTH},
+     * {@link QubicGame} for 4x16 with {@link QubicGame#WIN_LENGTH}, else {@link MnkGame}
+     */
+    static Game create(int rows, int cols, int winLength) {
+        if (rows == GameState.SIZE && cols == GameState.SIZE && winLength == GameState.SIZE) {
+            return new GameState();
+        }
+        if (rows == UltimateGame.SIZE && cols == UltimateGame.SIZE && winLength == UltimateGame.WIN_LENGTH) {
+            return new UltimateGame();
+        }
+        if (rows == QubicGame.ROWS && cols == QubicGame.COLS && winLength == QubicGame.WIN_LENGTH) {
+            return new QubicGame();
+        }
+        return new MnkGame(rows, cols, winLength);
+    }
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return String board like <code>3x3 with 3 in a row</code>, <code>9x9 Ultimate</code> or <code>4x4x4 Qubic</code>
+     */
+    static String describe(int rows, int cols, int winLength) {
+        if (rows == UltimateGame.SIZE && cols == UltimateGame.SIZE && winLength == UltimateGame.WIN_LENGTH) {
+            return rows + "x" + cols + " Ultimate";
+        }
+        if (rows == QubicGame.ROWS && cols == QubicGame.COLS && winLength == QubicGame.WIN_LENGTH) {
+            return "4x4x4 Qubic";
+        }
+        return rows + "x" + cols + " with " + winLength + " in a row";
+    }
+}
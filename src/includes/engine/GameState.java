@@ -0,0 +1,338 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+/**
+ * TicTacToe Game State (3x3 Bitboard).
+ *
+ * <p>Every player has one 9 bit mask, bit <code>row * 3 + col</code> is set when the player owns that cell:</p>
+ *      <p>0|1|2</p>
+ *      <p>3|4|5</p>
+ *      <p>6|7|8</p>
+ * <ol>
+ *      <li>Play a move: one OR on the mask of the player {@link #play(int)}</li>
+ *      <li>Undo a move: one AND NOT on the mask of the player {@link #undo()}</li>
+ *      <li>Check the winner: compare the mask with the lines through the last cell {@link #CELL_LINES}</li>
+ * </ol>
+ * No Swing, no Strings and no allocations after construction. Other board sizes: {@link MnkGame}.
+ */
+public final class GameState implements Game {
+
+    /**
+     * Rows and Columns of the board
+     */
+    public static final int SIZE = 3;
+
+    /**
+     * Number of cells of the board
+     */
+    public static final int CELLS = SIZE * SIZE;
+
+    /**
+     * Mask of a full board
+     */
+    public static final int FULL = (1 << CELLS) - 1;
+
+    /**
+     * All 8 winning lines: 3 rows, 3 columns and 2 diagonals
+     */
+    public static final int[] LINES = {
+            0b000_000_111, 0b000_111_000, 0b111_000_000,
+            0b001_001_001, 0b010_010_010, 0b100_100_100,
+            0b100_010_001, 0b001_010_100
+    };
+
+    /**
+     * For every cell only the lines going through it (2, 3 or 4 lines)
+     */
+    private static final int[][] CELL_LINES = new int[CELLS][];
+
+    static {
+        for (int cell = 0; cell < CELLS; cell++) {
+            int count = 0;
+            for (int line : LINES) {
+                if ((line & (1 << cell)) != 0) {
+                    count++;
+                }
+            }
+            CELL_LINES[cell] = new int[count];
+            count = 0;
+            for (int line : LINES) {
+                if ((line & (1 << cell)) != 0) {
+                    CELL_LINES[cell][count++] = line;
+                }
+            }
+        }
+    }
+
+    private int xBits;
+    private int oBits;
+    private int winner = EMPTY;
+    private int moveCount;
+    private int historySize;
+    private long hash;
+    private final int[] moves = new int[CELLS];
+
+    /**
+     * New empty Game, X moves first
+     */
+    public GameState() {
+    }
+
+    /**
+     * Copy an other Game State
+     *
+     * @param other GameState
+     */
+    public GameState(GameState other) {
+        copyFrom(other);
+    }
+
+    /**
+     * Copy all fields of an other Game State into this one (no allocation)
+     *
+     * @param other GameState
+     */
+    public void copyFrom(GameState other) {
+        this.xBits = other.xBits;
+        this.oBits = other.oBits;
+        this.winner = other.winner;
+        this.moveCount = other.moveCount;
+        this.historySize = other.historySize;
+        this.hash = other.hash;
+        System.arraycopy(other.moves, 0, this.moves, 0, CELLS);
+    }
+
+    @Override
+    public void reset() {
+        xBits = 0;
+        oBits = 0;
+        winner = EMPTY;
+        moveCount = 0;
+        historySize = 0;
+        hash = 0;
+    }
+
+    /**
+     * Cell index of a row and a column
+     *
+     * @param row Integer 0..2
+     * @param col Integer 0..2
+     * @return Integer 0..8
+     */
+    public static int cell(int row, int col) {
+        return row * SIZE + col;
+    }
+
+    @Override
+    public int rows() {
+        return SIZE;
+    }
+
+    @Override
+    public int cols() {
+        return SIZE;
+    }
+
+    @Override
+    public int winLength() {
+        return SIZE;
+    }
+
+    @Override
+    public int cellCount() {
+        return CELLS;
+    }
+
+    @Override
+    public int get(int cell) {
+        int bit = 1 << cell;
+        if ((xBits & bit) != 0) {
+            return X;
+        }
+        if ((oBits & bit) != 0) {
+            return O;
+        }
+        return EMPTY;
+    }
+
+    @Override
+    public boolean isLegal(int cell) {
+        return cell >= 0 && cell < CELLS && winner == EMPTY && ((xBits | oBits) & (1 << cell)) == 0;
+    }
+
+    @Override
+    public boolean play(int cell) {
+        if (!isLegal(cell)) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        int bit = 1 << cell;
+        int mask;
+        if ((moveCount & 1) == 0) {
+            mask = xBits |= bit;
+            hash ^= Zobrist.key(cell, X);
+        } else {
+            mask = oBits |= bit;
+            hash ^= Zobrist.key(cell, O);
+        }
+        moves[moveCount++] = cell;
+        historySize = moveCount;
+        for (int line : CELL_LINES[cell]) {
+            if ((mask & line) == line) {
+                winner = (moveCount & 1) == 1 ? X : O;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = moves[--moveCount];
+        hash ^= Zobrist.key(cell, (moveCount & 1) == 0 ? X : O);
+        int clear = ~(1 << cell);
+        xBits &= clear;
+        oBits &= clear;
+        winner = EMPTY;
+        return cell;
+    }
+
+    @Override
+    public int redo() {
+        if (moveCount == historySize) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int size = historySize;
+        int cell = moves[moveCount];
+        play(cell);
+        historySize = size;
+        return cell;
+    }
+
+    @Override
+    public int redoCount() {
+        return historySize - moveCount;
+    }
+
+    @Override
+    public boolean isWinningMove(int cell, int player) {
+        int mask = (player == X ? xBits : oBits) | 1 << cell;
+        for (int line : CELL_LINES[cell]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    @Override
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    @Override
+    public int winner() {
+        return winner;
+    }
+
+    @Override
+    public boolean isFull() {
+        return (xBits | oBits) == FULL;
+    }
+
+    @Override
+    public boolean isDraw() {
+        return winner == EMPTY && isFull();
+    }
+
+    @Override
+    public boolean isOver() {
+        return winner != EMPTY || isFull();
+    }
+
+    @Override
+    public int moveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int moveAt(int index) {
+        return moves[index];
+    }
+
+    @Override
+    public int lastMove() {
+        return moveCount == 0 ? -1 : moves[moveCount - 1];
+    }
+
+    @Override
+    public GameState copy() {
+        return new GameState(this);
+    }
+
+    /**
+     * @return Integer bitmask of all empty cells
+     */
+    public int emptyBits() {
+        return ~(xBits | oBits) & FULL;
+    }
+
+    /**
+     * @return Integer bitmask of player X
+     */
+    public int xBits() {
+        return xBits;
+    }
+
+    /**
+     * @return Integer bitmask of player O
+     */
+    public int oBits() {
+        return oBits;
+    }
+
+    /**
+     * Check a mask against all 8 lines
+     *
+     * @param mask Integer bitmask of one player
+     * @return true if the mask contains a full line
+     */
+    public static boolean hasLine(int mask) {
+        for (int line : LINES) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
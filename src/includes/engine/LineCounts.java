@@ -0,0 +1,312 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+import java.util.Arrays;
+
+/**
+ * Line Counts of a m,n,k board: the stones of X and O in every window of k cells, kept up to date with every move and undo.
+ *
+ * <ol>
+ *      <li>A window is k cells in a row, column or diagonal, like the windows of the evaluation of the alpha-beta player.
+ *      Its counts are one int: X in the low 16 bits, O in the high 16 bits</li>
+ *      <li>Every window also keeps the sum and the sum of the squares of the positions (0..k - 1) of its empty cells,
+ *      with one or two empty cells they tell which ones, without looking at the board</li>
+ *      <li>A move changes the windows through its cell, at most 4 * k, each one in O(1), so a move costs O(k) and not O(board)</li>
+ *      <li>A window that reaches k stones is a win {@link #add(int, int)}</li>
+ *      <li>Threat: a window with k - 1 stones of one player and none of the other, its empty cell wins at once {@link #wins(int, int)}</li>
+ *      <li>Two: a window with k - 2 stones of one player and none of the other. A cell in two of them makes two threats with one stone,
+ *      a double threat {@link #isDoubleThreat(int, int)}</li>
+ *      <li>The evaluation of all windows is a sum, only the changed windows are added again {@link #score()}</li>
+ * </ol>
+ * The counts are only changed by {@link MnkGame}.
+ * Threats need k &gt;= 2 and twos k &gt;= 3, with 1 in a row every empty cell wins.
+ */
+public final class LineCounts {
+
+    /**
+     * Directions as (row, col) steps: horizontal, vertical, diagonal, anti diagonal
+     */
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    /**
+     * Windows with more stones are not worth more, so the sum of all windows always fits in a long
+     */
+    private static final int MAX_WEIGHT_STONES = 11;
+
+    private static final int O_SHIFT = 16;
+    private static final int LOW = 0xFFFF;
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final int cellCount;
+
+    /**
+     * Counts of every window, index <code>direction * cells + first cell</code>
+     */
+    private final int[] counts;
+
+    /**
+     * Sum of the positions of the empty cells of every window
+     */
+    private final int[] emptySums;
+
+    /**
+     * Sum of the squares of the positions of the empty cells of every window
+     */
+    private final long[] emptySquares;
+
+    /**
+     * Per cell: threats of X (low 16 bits) and O (high 16 bits) with this cell as the empty cell
+     */
+    private final int[] wins;
+
+    /**
+     * Per cell: twos of X (low 16 bits) and O (high 16 bits) through this empty cell
+     */
+    private final int[] twos;
+
+    private final int[] winCells = new int[3];
+    private long score;
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     */
+    LineCounts(int rows, int cols, int winLength) {
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.cellCount = rows * cols;
+        this.counts = new int[DIRECTIONS.length * cellCount];
+        this.emptySums = new int[counts.length];
+        this.emptySquares = new long[counts.length];
+        this.wins = new int[cellCount];
+        this.twos = new int[cellCount];
+        clear();
+    }
+
+    /**
+     * Copy the counts of an other game
+     *
+     * @param other LineCounts
+     */
+    LineCounts(LineCounts other) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.winLength = other.winLength;
+        this.cellCount = other.cellCount;
+        this.counts = other.counts.clone();
+        this.emptySums = other.emptySums.clone();
+        this.emptySquares = other.emptySquares.clone();
+        this.wins = other.wins.clone();
+        this.twos = other.twos.clone();
+        System.arraycopy(other.winCells, 0, winCells, 0, winCells.length);
+        this.score = other.score;
+    }
+
+    /**
+     * Count a new stone on an empty cell
+     *
+     * @param cell   Integer
+     * @param player Integer {@link Game#X} or {@link Game#O}
+     * @return true if a window is full: the move wins
+     */
+    boolean add(int cell, int player) {
+        return update(cell, player == Game.X ? 1 : 1 << O_SHIFT);
+    }
+
+    /**
+     * Take a stone away
+     *
+     * @param cell   Integer
+     * @param player Integer {@link Game#X} or {@link Game#O}
+     */
+    void remove(int cell, int player) {
+        update(cell, player == Game.X ? -1 : -(1 << O_SHIFT));
+    }
+
+    /**
+     * Remove all stones
+     */
+    void clear() {
+        long k = winLength;
+        Arrays.fill(counts, 0);
+        Arrays.fill(emptySums, (int) (k * (k - 1) / 2));
+        Arrays.fill(emptySquares, (k - 1) * k * (2 * k - 1) / 6);
+        Arrays.fill(wins, 0);
+        Arrays.fill(twos, 0);
+        Arrays.fill(winCells, 0);
+        score = 0;
+    }
+
+    /**
+     * Change all windows through the cell
+     *
+     * @param cell  Integer
+     * @param delta Integer +-1 for X, +-2^16 for O
+     * @return true if a window is full after the change
+     */
+    private boolean update(int cell, int delta) {
+        int row = cell / cols;
+        int col = cell % cols;
+        int k = winLength;
+        boolean full = false;
+        for (int d = 0; d < DIRECTIONS.length; d++) {
+            int dRow = DIRECTIONS[d][0];
+            int dCol = DIRECTIONS[d][1];
+            int step = dRow * cols + dCol;
+            for (int i = 0; i < k; i++) {
+                int startRow = row - i * dRow;
+                int startCol = col - i * dCol;
+                int endRow = startRow + (k - 1) * dRow;
+                int endCol = startCol + (k - 1) * dCol;
+                if (startRow < 0 || startCol < 0 || startCol >= cols || endRow >= rows || endCol < 0 || endCol >= cols) {
+                    continue;
+                }
+                int start = startRow * cols + startCol;
+                int window = d * cellCount + start;
+                int before = counts[window];
+                int after = before + delta;
+                int sumBefore = emptySums[window];
+                long squaresBefore = emptySquares[window];
+                // the cell is position i of the window: it leaves the empty cells with a stone and comes back without it
+                int sumAfter = delta > 0 ? sumBefore - i : sumBefore + i;
+                long squaresAfter = delta > 0 ? squaresBefore - (long) i * i : squaresBefore + (long) i * i;
+                counts[window] = after;
+                emptySums[window] = sumAfter;
+                emptySquares[window] = squaresAfter;
+                score += value(after) - value(before);
+                track(before, start, step, sumBefore, squaresBefore, -1);
+                track(after, start, step, sumAfter, squaresAfter, 1);
+                if ((after & LOW) == k || after >>> O_SHIFT == k) {
+                    full = true;
+                }
+            }
+        }
+        return full;
+    }
+
+    /**
+     * Add or remove the threat and two marks of one window state on its empty cells
+     *
+     * @param counts  Integer counts of the window
+     * @param start   Integer first cell of the window
+     * @param step    Integer cell step of the window
+     * @param sum     Integer sum of the positions of the empty cells
+     * @param squares Long sum of the squares of the positions of the empty cells
+     * @param sign    Integer 1 to add the marks, -1 to remove them
+     */
+    private void track(int counts, int start, int step, int sum, long squares, int sign) {
+        int x = counts & LOW;
+        int o = counts >>> O_SHIFT;
+        if (x > 0 && o > 0) {
+            return;
+        }
+        int k = winLength;
+        int stones = x + o;
+        int player = x > 0 ? Game.X : Game.O;
+        int unit = player == Game.X ? sign : sign << O_SHIFT;
+        if (stones == k - 1 && k >= 2) {
+            // one empty cell: the sum is its position
+            markWin(start + sum * step, player, unit);
+        } else if (stones == k - 2 && k >= 3) {
+            // two empty cells a < b: a + b = sum, a^2 + b^2 = squares, so (b - a)^2 = 2 * squares - sum^2
+            int distance = (int) Math.round(Math.sqrt(2 * squares - (long) sum * sum));
+            twos[start + (sum - distance) / 2 * step] += unit;
+            twos[start + (sum + distance) / 2 * step] += unit;
+        }
+    }
+
+    private void markWin(int cell, int player, int unit) {
+        int before = count(wins[cell], player);
+        wins[cell] += unit;
+        int after = count(wins[cell], player);
+        if (before == 0 && after > 0) {
+            winCells[player]++;
+        } else if (before > 0 && after == 0) {
+            winCells[player]--;
+        }
+    }
+
+    private static int count(int packed, int player) {
+        return player == Game.X ? packed & LOW : packed >>> O_SHIFT;
+    }
+
+    /**
+     * Value of one window for X (&gt; 0) or O (&lt; 0): 0 if both use it, else its weight {@link #weight(int)}
+     */
+    private static long value(int counts) {
+        int x = counts & LOW;
+        int o = counts >>> O_SHIFT;
+        if (x > 0 && o > 0) {
+            return 0;
+        }
+        return weight(x) - weight(o);
+    }
+
+    /**
+     * @param stones Integer stones of one player in a window that only this player uses
+     * @return Long 0, 1, 8, 64, ... up to 8^10 for 11 and more stones
+     */
+    public static long weight(int stones) {
+        return stones == 0 ? 0 : 1L << (3 * (Math.min(stones, MAX_WEIGHT_STONES) - 1));
+    }
+
+    /**
+     * @return Long the evaluation of all windows for X, the same as a scan of the whole board
+     */
+    public long score() {
+        return score;
+    }
+
+    /**
+     * @param player Integer {@link Game#X} or {@link Game#O}
+     * @param cell   Integer empty cell
+     * @return Integer windows the player completes with a stone on this cell, 0 if it does not win
+     */
+    public int wins(int player, int cell) {
+        return count(wins[cell], player);
+    }
+
+    /**
+     * @param player Integer {@link Game#X} or {@link Game#O}
+     * @return Integer number of different empty cells that win at once for the player, 2 or more can not all be blocked
+     */
+    public int winningCells(int player) {
+        return winCells[player];
+    }
+
+    /**
+     * @param player Integer {@link Game#X} or {@link Game#O}
+     * @param cell   Integer empty cell
+     * @return true if a stone of the player here makes at least two threats at once, in different directions or windows
+     */
+    public boolean isDoubleThreat(int player, int cell) {
+        return count(twos[cell], player) >= 2;
+    }
+}
@@ -0,0 +1,288 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+/**
+ * m,n,k Game: any board size and any win length, like 15x15 with 5 in a row (Gomoku).
+ *
+ * <ol>
+ *      <li>One byte per cell {@link #cells}</li>
+ *      <li>A move only looks at the 4 directions through the new stone (row, column and both diagonals)</li>
+ *      <li>In every direction at most k - 1 cells are visited on each side, so a win check is O(k) and not O(board)</li>
+ *      <li>The stones of every window of k cells are only counted for the players that ask for them {@link #lines()}:
+ *      from then on every move and undo keeps them up to date, also in O(k), and the win checks read them</li>
+ * </ol>
+ */
+public final class MnkGame implements Game {
+
+    /**
+     * Directions as (row, col) steps: horizontal, vertical, diagonal, anti diagonal
+     */
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final byte[] cells;
+    private final int[] moves;
+    private LineCounts lines;
+    private int moveCount;
+    private int historySize;
+    private int winner = EMPTY;
+    private long hash;
+
+    /**
+     * New empty Game, X moves first
+     *
+     * @param rows      Integer m &gt; 0
+     * @param cols      Integer n &gt; 0
+     * @param winLength Integer k, 1..max(m, n)
+     */
+    public MnkGame(int rows, int cols, int winLength) {
+        if (rows < 1 || cols < 1 || winLength < 1 || winLength > Math.max(rows, cols)) {
+            throw new IllegalArgumentException("Illegal board: " + rows + "x" + cols + " with " + winLength + " in a row");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.cells = new byte[rows * cols];
+        this.moves = new int[rows * cols];
+    }
+
+    /**
+     * Copy an other Game
+     *
+     * @param other MnkGame
+     */
+    private MnkGame(MnkGame other) {
+        this(other.rows, other.cols, other.winLength);
+        System.arraycopy(other.cells, 0, cells, 0, cells.length);
+        System.arraycopy(other.moves, 0, moves, 0, other.historySize);
+        moveCount = other.moveCount;
+        historySize = other.historySize;
+        winner = other.winner;
+        hash = other.hash;
+        if (other.lines != null) {
+            lines = new LineCounts(other.lines);
+        }
+    }
+
+    @Override
+    public int rows() {
+        return rows;
+    }
+
+    @Override
+    public int cols() {
+        return cols;
+    }
+
+    @Override
+    public int winLength() {
+        return winLength;
+    }
+
+    @Override
+    public int cellCount() {
+        return cells.length;
+    }
+
+    @Override
+    public int get(int cell) {
+        return cells[cell];
+    }
+
+    @Override
+    public boolean isLegal(int cell) {
+        return cell >= 0 && cell < cells.length && winner == EMPTY && cells[cell] == EMPTY;
+    }
+
+    @Override
+    public boolean play(int cell) {
+        if (!isLegal(cell)) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        int player = sideToMove();
+        boolean won = lines != null ? lines.add(cell, player) : isLine(cell, player);
+        cells[cell] = (byte) player;
+        moves[moveCount++] = cell;
+        historySize = moveCount;
+        hash ^= Zobrist.key(cell, player);
+        if (won) {
+            winner = player;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public int undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = moves[--moveCount];
+        int player = cells[cell];
+        hash ^= Zobrist.key(cell, player);
+        cells[cell] = EMPTY;
+        if (lines != null) {
+            lines.remove(cell, player);
+        }
+        winner = EMPTY;
+        return cell;
+    }
+
+    @Override
+    public int redo() {
+        if (moveCount == historySize) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int size = historySize;
+        int cell = moves[moveCount];
+        play(cell);
+        historySize = size;
+        return cell;
+    }
+
+    @Override
+    public int redoCount() {
+        return historySize - moveCount;
+    }
+
+    @Override
+    public boolean isWinningMove(int cell, int player) {
+        if (lines != null && winLength > 1) {
+            return lines.wins(player, cell) > 0;
+        }
+        return isLine(cell, player);
+    }
+
+    /**
+     * Stones in every window, threats and double threats of both players. The first call counts the stones on the board,
+     * O(board + moves * k), after that every move and undo keeps them up to date and this call is O(1).
+     * Games that never call it, like random playouts, do not pay for the counts
+     *
+     * @return LineCounts of this game
+     */
+    public LineCounts lines() {
+        if (lines == null) {
+            LineCounts counts = new LineCounts(rows, cols, winLength);
+            for (int i = 0; i < moveCount; i++) {
+                counts.add(moves[i], cells[moves[i]]);
+            }
+            lines = counts;
+        }
+        return lines;
+    }
+
+    /**
+     * Count the stones of the player in the 4 directions through the cell, the cell itself counts as the player's
+     *
+     * @param cell   Integer
+     * @param player Integer {@link #X} or {@link #O}
+     * @return true if one direction has k in a row
+     */
+    private boolean isLine(int cell, int player) {
+        int row = cell / cols;
+        int col = cell % cols;
+        for (int[] d : DIRECTIONS) {
+            int count = 1 + count(row, col, d[0], d[1], player) + count(row, col, -d[0], -d[1], player);
+            if (count >= winLength) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stones of the player next to (row, col) in one direction, at most k - 1
+     *
+     * @param row    Integer start row
+     * @param col    Integer start column
+     * @param dRow   Integer row step
+     * @param dCol   Integer column step
+     * @param player Integer {@link #X} or {@link #O}
+     * @return Integer number of stones
+     */
+    private int count(int row, int col, int dRow, int dCol, int player) {
+        int count = 0;
+        int r = row + dRow;
+        int c = col + dCol;
+        while (count < winLength - 1 && r >= 0 && r < rows && c >= 0 && c < cols && cells[r * cols + c] == player) {
+            count++;
+            r += dRow;
+            c += dCol;
+        }
+        return count;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    @Override
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    @Override
+    public int winner() {
+        return winner;
+    }
+
+    @Override
+    public boolean isFull() {
+        return moveCount == cells.length;
+    }
+
+    @Override
+    public int moveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int moveAt(int index) {
+        return moves[index];
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < moveCount; i++) {
+            cells[moves[i]] = EMPTY;
+        }
+        moveCount = 0;
+        historySize = 0;
+        winner = EMPTY;
+        hash = 0;
+        if (lines != null) {
+            lines.clear();
+        }
+    }
+
+    @Override
+    public MnkGame copy() {
+        return new MnkGame(this);
+    }
+}
@@ -0,0 +1,350 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+import java.util.Arrays;
+
+/**
+ * Qubic: TicTacToe in 3D on 4x4x4 cells with 4 in a row (Bitboard).
+ *
+ * <p>The 4 layers are shown side by side, so the cells are numbered like a 4x16 board, <code>row * 16 + layer * 4 + col</code>.
+ * Inside the engine every player has one long, bit <code>layer * 16 + row * 4 + col</code> is set when the player owns that cell.</p>
+ * <ol>
+ *      <li>All 76 winning lines are long masks, made once: 48 rows and columns in the layers, 16 pillars through the layers,
+ *      8 diagonals in the layers, 24 diagonals through the layers and the 4 space diagonals {@link #LINES}</li>
+ *      <li>Play and undo: one OR or AND NOT on the long of the player</li>
+ *      <li>Win check: only the 4 to 7 lines through the new stone, one AND and one compare each {@link #CELL_LINES}</li>
+ * </ol>
+ * It is made by {@link Game#create(int, int, int)} with {@link #ROWS} rows, {@link #COLS} columns and the win length {@link #WIN_LENGTH}.
+ */
+public final class QubicGame implements Game {
+
+    /**
+     * Cells on one side of the cube, and stones in a row to win
+     */
+    public static final int SIZE = 4;
+
+    /**
+     * Rows of the layered view
+     */
+    public static final int ROWS = SIZE;
+
+    /**
+     * Columns of the layered view: the 4 layers side by side
+     */
+    public static final int COLS = SIZE * SIZE;
+
+    /**
+     * Number of cells
+     */
+    public static final int CELLS = SIZE * SIZE * SIZE;
+
+    /**
+     * Win length that stands for Qubic in {@link Game#create(int, int, int)}, no m,n,k board has it
+     */
+    public static final int WIN_LENGTH = 0;
+
+    /**
+     * All 76 winning lines as bit masks
+     */
+    public static final long[] LINES;
+
+    /**
+     * For every bit only the lines going through it
+     */
+    private static final long[][] CELL_LINES = new long[CELLS][];
+
+    private static final byte[] BIT_OF = new byte[CELLS];
+    private static final byte[] CELL_OF = new byte[CELLS];
+
+    static {
+        long[] lines = new long[CELLS * 13];
+        int count = 0;
+        // 13 directions, one of every pair of opposite directions
+        for (int dz = -1; dz <= 1; dz++) {
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    if (dz < 0 || (dz == 0 && (dy < 0 || (dy == 0 && dx <= 0)))) {
+                        continue;
+                    }
+                    for (int bit = 0; bit < CELLS; bit++) {
+                        int z = bit / 16;
+                        int y = bit / 4 % 4;
+                        int x = bit % 4;
+                        if (inside(z - dz, y - dy, x - dx) || !inside(z + 3 * dz, y + 3 * dy, x + 3 * dx)) {
+                            continue;
+                        }
+                        long line = 0;
+                        for (int i = 0; i < SIZE; i++) {
+                            line |= 1L << ((z + i * dz) * 16 + (y + i * dy) * 4 + x + i * dx);
+                        }
+                        lines[count++] = line;
+                    }
+                }
+            }
+        }
+        LINES = Arrays.copyOf(lines, count);
+        for (int bit = 0; bit < CELLS; bit++) {
+            int through = 0;
+            for (long line : LINES) {
+                if ((line & (1L << bit)) != 0) {
+                    through++;
+                }
+            }
+            CELL_LINES[bit] = new long[through];
+            through = 0;
+            for (long line : LINES) {
+                if ((line & (1L << bit)) != 0) {
+                    CELL_LINES[bit][through++] = line;
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / COLS;
+            int layer = cell % COLS / SIZE;
+            int col = cell % SIZE;
+            BIT_OF[cell] = (byte) (layer * 16 + row * 4 + col);
+            CELL_OF[BIT_OF[cell]] = (byte) cell;
+        }
+    }
+
+    private long xBits;
+    private long oBits;
+    private int winner = EMPTY;
+    private int moveCount;
+    private int historySize;
+    private long hash;
+    private final int[] moves = new int[CELLS];
+
+    /**
+     * New empty Game, X moves first
+     */
+    public QubicGame() {
+    }
+
+    /**
+     * Copy an other Game
+     *
+     * @param other QubicGame
+     */
+    public QubicGame(QubicGame other) {
+        xBits = other.xBits;
+        oBits = other.oBits;
+        winner = other.winner;
+        moveCount = other.moveCount;
+        historySize = other.historySize;
+        hash = other.hash;
+        System.arraycopy(other.moves, 0, moves, 0, other.historySize);
+    }
+
+    private static boolean inside(int z, int y, int x) {
+        return z >= 0 && z < SIZE && y >= 0 && y < SIZE && x >= 0 && x < SIZE;
+    }
+
+    /**
+     * @param cell Integer 0..63 of the layered view
+     * @return Integer the bit of the cell in the masks
+     */
+    public static int bitOf(int cell) {
+        return BIT_OF[cell];
+    }
+
+    /**
+     * @param bit Integer 0..63 of the masks
+     * @return Integer the cell of the layered view
+     */
+    public static int cellOf(int bit) {
+        return CELL_OF[bit];
+    }
+
+    /**
+     * @param bit Integer 0..63
+     * @return long[] the 4 to 7 lines through the bit
+     */
+    public static long[] linesThrough(int bit) {
+        return CELL_LINES[bit];
+    }
+
+    /**
+     * @param player Integer {@link #X} or {@link #O}
+     * @return Long mask of the stones of the player
+     */
+    public long bits(int player) {
+        return player == X ? xBits : oBits;
+    }
+
+    @Override
+    public int rows() {
+        return ROWS;
+    }
+
+    @Override
+    public int cols() {
+        return COLS;
+    }
+
+    /**
+     * @return Integer {@link #WIN_LENGTH}, the marker of this game. The lines are {@link #SIZE} long
+     */
+    @Override
+    public int winLength() {
+        return WIN_LENGTH;
+    }
+
+    @Override
+    public int cellCount() {
+        return CELLS;
+    }
+
+    @Override
+    public int get(int cell) {
+        long bit = 1L << BIT_OF[cell];
+        if ((xBits & bit) != 0) {
+            return X;
+        }
+        if ((oBits & bit) != 0) {
+            return O;
+        }
+        return EMPTY;
+    }
+
+    @Override
+    public boolean isLegal(int cell) {
+        return cell >= 0 && cell < CELLS && winner == EMPTY && ((xBits | oBits) & (1L << BIT_OF[cell])) == 0;
+    }
+
+    @Override
+    public boolean play(int cell) {
+        if (!isLegal(cell)) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        int bit = BIT_OF[cell];
+        long mask;
+        int player = sideToMove();
+        if (player == X) {
+            mask = xBits |= 1L << bit;
+        } else {
+            mask = oBits |= 1L << bit;
+        }
+        hash ^= Zobrist.key(cell, player);
+        moves[moveCount++] = cell;
+        historySize = moveCount;
+        for (long line : CELL_LINES[bit]) {
+            if ((mask & line) == line) {
+                winner = player;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = moves[--moveCount];
+        hash ^= Zobrist.key(cell, (moveCount & 1) == 0 ? X : O);
+        long clear = ~(1L << BIT_OF[cell]);
+        xBits &= clear;
+        oBits &= clear;
+        winner = EMPTY;
+        return cell;
+    }
+
+    @Override
+    public int redo() {
+        if (moveCount == historySize) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int size = historySize;
+        int cell = moves[moveCount];
+        play(cell);
+        historySize = size;
+        return cell;
+    }
+
+    @Override
+    public int redoCount() {
+        return historySize - moveCount;
+    }
+
+    @Override
+    public boolean isWinningMove(int cell, int player) {
+        int bit = BIT_OF[cell];
+        long mask = (player == X ? xBits : oBits) | 1L << bit;
+        for (long line : CELL_LINES[bit]) {
+            if ((mask & line) == line) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    @Override
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    @Override
+    public int winner() {
+        return winner;
+    }
+
+    @Override
+    public boolean isFull() {
+        return (xBits | oBits) == -1L;
+    }
+
+    @Override
+    public int moveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int moveAt(int index) {
+        return moves[index];
+    }
+
+    @Override
+    public void reset() {
+        xBits = 0;
+        oBits = 0;
+        winner = EMPTY;
+        moveCount = 0;
+        historySize = 0;
+        hash = 0;
+    }
+
+    @Override
+    public QubicGame copy() {
+        return new QubicGame(this);
+    }
+}
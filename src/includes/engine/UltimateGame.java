@@ -0,0 +1,394 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.engine;
+
+/**
+ * Ultimate TicTacToe: a 3x3 board of 3x3 boards (Bitboard).
+ *
+ * <p>The cells are numbered like every other board, <code>row * 9 + col</code>. Inside the engine a cell is a small board
+ * <code>(row / 3) * 3 + col / 3</code> and a bit <code>(row % 3) * 3 + col % 3</code> on it, like {@link GameState}.</p>
+ * <ol>
+ *      <li>Every player has one 9 bit mask per small board, and one 9 bit mask of the small boards he has won (the big board)</li>
+ *      <li>A move sends the other player to the small board with the same position as the cell; if that board is won or full
+ *      he can play on every open board {@link #activeBoards()}</li>
+ *      <li>A small board is won with 3 in a row, the game is won with 3 won small boards in a row: one table lookup each {@link #WINS}</li>
+ *      <li>All legal moves come from the masks, a few bit operations per board {@link #legalMoves(int[])}</li>
+ * </ol>
+ * It is made by {@link Game#create(int, int, int)} with 9 rows, 9 columns and the win length {@link #WIN_LENGTH}.
+ * The game is a draw when every small board is won or full and nobody has 3 in a row on the big board.
+ */
+public final class UltimateGame implements Game {
+
+    /**
+     * Rows and Columns of the whole board
+     */
+    public static final int SIZE = 9;
+
+    /**
+     * Number of cells of the whole board
+     */
+    public static final int CELLS = SIZE * SIZE;
+
+    /**
+     * Win length that stands for Ultimate in {@link Game#create(int, int, int)}, no m,n,k board has it
+     */
+    public static final int WIN_LENGTH = 0;
+
+    /**
+     * For every 9 bit mask: true if it has 3 in a row {@link GameState#LINES}
+     */
+    private static final boolean[] WINS = new boolean[1 << GameState.CELLS];
+
+    private static final byte[] BOARD_OF = new byte[CELLS];
+    private static final byte[] BIT_OF = new byte[CELLS];
+    private static final byte[][] CELL_OF = new byte[GameState.CELLS][GameState.CELLS];
+
+    static {
+        for (int mask = 0; mask < WINS.length; mask++) {
+            for (int line : GameState.LINES) {
+                if ((mask & line) == line) {
+                    WINS[mask] = true;
+                    break;
+                }
+            }
+        }
+        for (int cell = 0; cell < CELLS; cell++) {
+            int row = cell / SIZE;
+            int col = cell % SIZE;
+            BOARD_OF[cell] = (byte) ((row / 3) * 3 + col / 3);
+            BIT_OF[cell] = (byte) ((row % 3) * 3 + col % 3);
+            CELL_OF[BOARD_OF[cell]][BIT_OF[cell]] = (byte) cell;
+        }
+    }
+
+    private final int[] xBoards = new int[GameState.CELLS];
+    private final int[] oBoards = new int[GameState.CELLS];
+    private int xWon;
+    private int oWon;
+    private int closed;
+    private int winner = EMPTY;
+    private int moveCount;
+    private int historySize;
+    private long hash;
+    private final int[] moves = new int[CELLS];
+
+    /**
+     * New empty Game, X moves first and can play everywhere
+     */
+    public UltimateGame() {
+    }
+
+    /**
+     * Copy an other Game
+     *
+     * @param other UltimateGame
+     */
+    public UltimateGame(UltimateGame other) {
+        System.arraycopy(other.xBoards, 0, xBoards, 0, xBoards.length);
+        System.arraycopy(other.oBoards, 0, oBoards, 0, oBoards.length);
+        System.arraycopy(other.moves, 0, moves, 0, other.historySize);
+        xWon = other.xWon;
+        oWon = other.oWon;
+        closed = other.closed;
+        winner = other.winner;
+        moveCount = other.moveCount;
+        historySize = other.historySize;
+        hash = other.hash;
+    }
+
+    /**
+     * @param cell Integer 0..80
+     * @return Integer the small board of the cell, 0..8
+     */
+    public static int boardOf(int cell) {
+        return BOARD_OF[cell];
+    }
+
+    /**
+     * @param cell Integer 0..80
+     * @return Integer the position of the cell on its small board, 0..8
+     */
+    public static int bitOf(int cell) {
+        return BIT_OF[cell];
+    }
+
+    /**
+     * @param board Integer small board 0..8
+     * @param bit   Integer position on the small board 0..8
+     * @return Integer the cell 0..80
+     */
+    public static int cellOf(int board, int bit) {
+        return CELL_OF[board][bit];
+    }
+
+    /**
+     * @param mask Integer 9 bits
+     * @return true if the mask has 3 in a row
+     */
+    public static boolean isLine(int mask) {
+        return WINS[mask];
+    }
+
+    @Override
+    public int rows() {
+        return SIZE;
+    }
+
+    @Override
+    public int cols() {
+        return SIZE;
+    }
+
+    /**
+     * @return Integer {@link #WIN_LENGTH}, the marker of this game. The lines are 3 long on both levels
+     */
+    @Override
+    public int winLength() {
+        return WIN_LENGTH;
+    }
+
+    @Override
+    public int cellCount() {
+        return CELLS;
+    }
+
+    @Override
+    public int get(int cell) {
+        int board = BOARD_OF[cell];
+        int bit = 1 << BIT_OF[cell];
+        if ((xBoards[board] & bit) != 0) {
+            return X;
+        }
+        if ((oBoards[board] & bit) != 0) {
+            return O;
+        }
+        return EMPTY;
+    }
+
+    /**
+     * @param player Integer {@link #X} or {@link #O}
+     * @param board  Integer small board 0..8
+     * @return Integer 9 bit mask of the stones of the player on the small board
+     */
+    public int boardBits(int player, int board) {
+        return player == X ? xBoards[board] : oBoards[board];
+    }
+
+    /**
+     * @param player Integer {@link #X} or {@link #O}
+     * @return Integer 9 bit mask of the small boards won by the player (the big board)
+     */
+    public int wonBoards(int player) {
+        return player == X ? xWon : oWon;
+    }
+
+    /**
+     * @return Integer 9 bit mask of the small boards that are won or full
+     */
+    public int closedBoards() {
+        return closed;
+    }
+
+    /**
+     * @return Integer 9 bit mask of the small boards the player to move can play on, 0 if the game is over
+     */
+    public int activeBoards() {
+        if (winner != EMPTY) {
+            return 0;
+        }
+        if (moveCount > 0) {
+            int target = BIT_OF[moves[moveCount - 1]];
+            if ((closed & (1 << target)) == 0) {
+                return 1 << target;
+            }
+        }
+        return ~closed & GameState.FULL;
+    }
+
+    /**
+     * Write all legal moves, board by board
+     *
+     * @param out int[] with room for 81 cells
+     * @return Integer number of moves written
+     */
+    public int legalMoves(int[] out) {
+        int count = 0;
+        for (int boards = activeBoards(); boards != 0; boards &= boards - 1) {
+            int board = Integer.numberOfTrailingZeros(boards);
+            byte[] cells = CELL_OF[board];
+            for (int empty = ~(xBoards[board] | oBoards[board]) & GameState.FULL; empty != 0; empty &= empty - 1) {
+                out[count++] = cells[Integer.numberOfTrailingZeros(empty)];
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean isLegal(int cell) {
+        if (cell < 0 || cell >= CELLS) {
+            return false;
+        }
+        int board = BOARD_OF[cell];
+        return (activeBoards() & (1 << board)) != 0 && ((xBoards[board] | oBoards[board]) & (1 << BIT_OF[cell])) == 0;
+    }
+
+    @Override
+    public boolean play(int cell) {
+        if (!isLegal(cell)) {
+            throw new IllegalArgumentException("Illegal move: " + cell);
+        }
+        int board = BOARD_OF[cell];
+        int bit = 1 << BIT_OF[cell];
+        int player = sideToMove();
+        int mine;
+        int won;
+        if (player == X) {
+            mine = xBoards[board] |= bit;
+            won = WINS[mine] ? xWon |= 1 << board : xWon;
+        } else {
+            mine = oBoards[board] |= bit;
+            won = WINS[mine] ? oWon |= 1 << board : oWon;
+        }
+        if (WINS[mine] || ((xBoards[board] | oBoards[board]) == GameState.FULL)) {
+            closed |= 1 << board;
+        }
+        moves[moveCount++] = cell;
+        historySize = moveCount;
+        hash ^= Zobrist.key(cell, player);
+        if (WINS[won]) {
+            winner = player;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Undo the last move. A small board is only won or full after its last move, so undoing that move opens it again
+     */
+    @Override
+    public int undo() {
+        if (moveCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        int cell = moves[--moveCount];
+        int board = BOARD_OF[cell];
+        int clear = ~(1 << BIT_OF[cell]);
+        int open = ~(1 << board);
+        hash ^= Zobrist.key(cell, (moveCount & 1) == 0 ? X : O);
+        xBoards[board] &= clear;
+        oBoards[board] &= clear;
+        xWon &= open;
+        oWon &= open;
+        closed &= open;
+        winner = EMPTY;
+        return cell;
+    }
+
+    @Override
+    public int redo() {
+        if (moveCount == historySize) {
+            throw new IllegalStateException("No move to redo");
+        }
+        int size = historySize;
+        int cell = moves[moveCount];
+        play(cell);
+        historySize = size;
+        return cell;
+    }
+
+    @Override
+    public int redoCount() {
+        return historySize - moveCount;
+    }
+
+    /**
+     * Would a stone of the player on this empty cell win the whole game (its small board and 3 in a row on the big board)?
+     */
+    @Override
+    public boolean isWinningMove(int cell, int player) {
+        int board = BOARD_OF[cell];
+        int mine = (player == X ? xBoards[board] : oBoards[board]) | 1 << BIT_OF[cell];
+        return WINS[mine] && WINS[(player == X ? xWon : oWon) | 1 << board];
+    }
+
+    /**
+     * @return Long Zobrist hash of the stones and of the small boards the player to move can use,
+     * the same stones with an other last move are an other position
+     */
+    @Override
+    public long hash() {
+        int boards = activeBoards();
+        int target = Integer.bitCount(boards) == 1 ? Integer.numberOfTrailingZeros(boards) : GameState.CELLS;
+        return hash ^ Zobrist.key(CELLS + target, X);
+    }
+
+    @Override
+    public int sideToMove() {
+        return (moveCount & 1) == 0 ? X : O;
+    }
+
+    @Override
+    public int winner() {
+        return winner;
+    }
+
+    /**
+     * @return true if every small board is won or full, then there is no legal move
+     */
+    @Override
+    public boolean isFull() {
+        return closed == GameState.FULL;
+    }
+
+    @Override
+    public int moveCount() {
+        return moveCount;
+    }
+
+    @Override
+    public int moveAt(int index) {
+        return moves[index];
+    }
+
+    @Override
+    public void reset() {
+        for (int board = 0; board < GameState.CELLS; board++) {
+            xBoards[board] = 0;
+            oBoards[board] = 0;
+        }
+        xWon = 0;
+        oWon = 0;
+        closed = 0;
+        winner = EMPTY;
+        moveCount = 0;
+        historySize = 0;
+        hash = 0;
+    }
+
+    @Override
+    public UltimateGame copy() {
+        return new UltimateGame(this);
+    }
+}
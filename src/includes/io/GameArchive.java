@@ -0,0 +1,408 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.io;
+
+import includes.engine.Game;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Game Archive: all played games in one append-only file.
+ *
+ * <ol>
+ *      <li>The data file holds the games one after the other in the {@link GameFile} format, nothing is ever changed</li>
+ *      <li>The index file (<code>name.idx</code>) holds the offset of every game as a long, so the game id is the position in the index
+ *      and a game is found in O(1) {@link #record(long)}</li>
+ *      <li>Both files are read through a {@link MappedByteBuffer}, a record is a read-only view on the mapped file, nothing is copied</li>
+ *      <li>{@link #scan(long, long, RecordVisitor)} walks the games in file order without the index, the fastest way for statistics</li>
+ *      <li>A game is written first to the data file and then to the index, after a crash the missing index entries are found again
+ *      and a broken last game is cut off {@link #recover()}</li>
+ *      <li>A reader like the analytics opens it read-only {@link #openReadOnly(Path)}: nothing is recovered or cut off,
+ *      it only sees the indexed games that are complete</li>
+ * </ol>
+ * One archive must not be opened twice at the same time for writing, readers next to one writer are fine. Appending is synchronized, reading can be done from many threads.
+ * A mapping is limited to 2 GB, about 90 million 3x3 games. The time of append and load goes to the {@link Metrics}.
+ */
+public final class GameArchive implements Closeable {
+
+    /**
+     * Visitor of {@link #scan(long, long, RecordVisitor)}
+     */
+    @FunctionalInterface
+    public interface RecordVisitor {
+
+        /**
+         * @param id     Long game id
+         * @param record ByteBuffer read-only view of the game in the {@link GameFile} format, only valid during the call
+         */
+        void visit(long id, ByteBuffer record);
+    }
+
+    private static final Histogram APPEND_NANOS = Metrics.histogram("archive.append");
+    private static final Histogram LOAD_NANOS = Metrics.histogram("archive.load");
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final boolean readOnly;
+
+    private volatile long count;
+    private long dataSize;
+
+    private volatile MappedByteBuffer dataMap;
+    private volatile MappedByteBuffer indexMap;
+
+    /**
+     * Open or create an archive
+     *
+     * @param file Path of the data file, the index is next to it {@link #indexFile(Path)}
+     * @throws IOException if the files can not be opened
+     */
+    public GameArchive(Path file) throws IOException {
+        this(file, false);
+    }
+
+    /**
+     * Open an archive only to read it, the files are not changed, so a window can still append to it.
+     * Games after the index, like the one that is written right now, are not seen.
+     *
+     * @param file Path of the data file, the index is next to it {@link #indexFile(Path)}
+     * @return GameArchive that can not {@link #append(Game)}
+     * @throws IOException if the files do not exist or can not be read
+     */
+    public static GameArchive openReadOnly(Path file) throws IOException {
+        return new GameArchive(file, true);
+    }
+
+    private GameArchive(Path file, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+        StandardOpenOption[] options = readOnly
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        data = FileChannel.open(file, options);
+        try {
+            index = FileChannel.open(indexFile(file), options);
+        } catch (IOException e) {
+            data.close();
+            throw e;
+        }
+        try {
+            if (readOnly) {
+                findComplete();
+            } else {
+                recover();
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param file Path of the data file
+     * @return Path of the index file: same name with <code>.idx</code>
+     */
+    public static Path indexFile(Path file) {
+        return file.resolveSibling(file.getFileName() + ".idx");
+    }
+
+    /**
+     * Make the index fit the data file:
+     * <ol>
+     *      <li>Cut off a half written index entry</li>
+     *      <li>Forget index entries behind the end of the data</li>
+     *      <li>Check the last indexed game and all games after it, index them again</li>
+     *      <li>Cut off the data after the last complete game</li>
+     * </ol>
+     */
+    private void recover() throws IOException {
+        dataSize = data.size();
+        long entries = index.size() / Long.BYTES;
+        remapIndex(entries * Long.BYTES);
+        while (entries > 0 && offset(entries - 1) >= dataSize) {
+            entries--;
+        }
+        long position = 0;
+        if (entries > 0) {
+            position = offset(--entries);
+        }
+        indexMap = null;
+        index.truncate(entries * Long.BYTES);
+        count = entries;
+
+        ByteBuffer map = remapData(dataSize);
+        ByteBuffer offsets = ByteBuffer.allocate(1 << 12);
+        long indexPosition = entries * Long.BYTES;
+        while (position < dataSize) {
+            map.position((int) position);
+            try {
+                GameFile.read(map);
+            } catch (IOException e) {
+                break;
+            }
+            if (!offsets.hasRemaining()) {
+                indexPosition += writeFully(index, offsets, indexPosition);
+            }
+            offsets.putLong(position);
+            position = map.position();
+            count++;
+        }
+        writeFully(index, offsets, indexPosition);
+        if (position < dataSize) {
+            dataMap = null;
+            data.truncate(position);
+            dataSize = position;
+            remapData(dataSize);
+        }
+        remapIndex(count * Long.BYTES);
+    }
+
+    /**
+     * Read-only {@link #recover()}: count the indexed games up to the last one that is complete in the data file
+     */
+    private void findComplete() throws IOException {
+        dataSize = data.size();
+        long entries = index.size() / Long.BYTES;
+        remapIndex(entries * Long.BYTES);
+        ByteBuffer map = remapData(dataSize);
+        while (entries > 0) {
+            long offset = offset(entries - 1);
+            if (offset + GameFile.HEADER_BYTES <= dataSize && offset + GameFile.size(map, (int) offset) <= dataSize) {
+                break;
+            }
+            entries--;
+        }
+        count = entries;
+    }
+
+    /**
+     * @return Long number of games, the ids are 0..size() - 1
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Append a game, the id is the next free number
+     *
+     * @param game Game
+     * @return Long id of the game
+     * @throws IOException if the files can not be written or the archive is read-only
+     */
+    public synchronized long append(Game game) throws IOException {
+        checkWritable();
+        long start = System.nanoTime();
+        ByteBuffer record = ByteBuffer.allocate(GameFile.size(game));
+        GameFile.write(game, record);
+        long offset = dataSize;
+        dataSize += writeFully(data, record, offset);
+
+        ByteBuffer entry = ByteBuffer.allocate(Long.BYTES);
+        entry.putLong(offset);
+        long id = count;
+        writeFully(index, entry, id * Long.BYTES);
+        count = id + 1;
+        APPEND_NANOS.record(System.nanoTime() - start);
+        return id;
+    }
+
+    /**
+     * Write everything to the disk
+     *
+     * @throws IOException if the files can not be written or the archive is read-only
+     */
+    public synchronized void force() throws IOException {
+        checkWritable();
+        data.force(false);
+        index.force(false);
+    }
+
+    private void checkWritable() throws IOException {
+        if (readOnly) {
+            throw new IOException("The archive is open read-only");
+        }
+    }
+
+    /**
+     * @param id Long 0..{@link #size()} - 1
+     * @return Game with all moves replayed
+     * @throws IOException if the id is unknown or the record is broken
+     */
+    public Game load(long id) throws IOException {
+        long start = System.nanoTime();
+        Game game = GameFile.read(record(id));
+        LOAD_NANOS.record(System.nanoTime() - start);
+        return game;
+    }
+
+    /**
+     * Find a game with the index, O(1)
+     *
+     * @param id Long 0..{@link #size()} - 1
+     * @return ByteBuffer read-only view of the game in the {@link GameFile} format
+     * @throws IOException if the id is unknown
+     */
+    public ByteBuffer record(long id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IOException("Unknown game id: " + id + ", the archive has " + count + " games");
+        }
+        long offset = offset(id);
+        ByteBuffer map = mapped(offset);
+        return slice(map, (int) offset, GameFile.size(map, (int) offset));
+    }
+
+    /**
+     * Visit the games from one id to another in file order, the index is only used for the first game
+     *
+     * @param from    Long first id
+     * @param to      Long id after the last, at most {@link #size()}
+     * @param visitor RecordVisitor
+     * @throws IOException if the ids are out of range
+     */
+    public void scan(long from, long to, RecordVisitor visitor) throws IOException {
+        if (from < 0 || from > to || to > count) {
+            throw new IOException("Illegal game ids: " + from + ".." + to + ", the archive has " + count + " games");
+        }
+        if (from == to) {
+            return;
+        }
+        ByteBuffer map = mapped(offset(to - 1));
+        int position = (int) offset(from);
+        for (long id = from; id < to; id++) {
+            int size = GameFile.size(map, position);
+            visitor.visit(id, slice(map, position, size));
+            position += size;
+        }
+    }
+
+    /**
+     * Visit all games {@link #scan(long, long, RecordVisitor)}
+     *
+     * @param visitor RecordVisitor
+     * @throws IOException if the archive can not be read
+     */
+    public void scan(RecordVisitor visitor) throws IOException {
+        scan(0, count, visitor);
+    }
+
+    /**
+     * @param id Long
+     * @return Long offset of the game in the data file
+     */
+    private long offset(long id) throws IOException {
+        ByteBuffer map = indexMap;
+        long position = id * Long.BYTES;
+        if (position + Long.BYTES > map.capacity()) {
+            map = remapIndex(count * Long.BYTES);
+        }
+        return map.getLong((int) position);
+    }
+
+    /**
+     * @param offset Long offset of a game
+     * @return ByteBuffer a mapping of the data file that holds the whole game
+     */
+    private ByteBuffer mapped(long offset) throws IOException {
+        ByteBuffer map = dataMap;
+        if (offset + GameFile.HEADER_BYTES > map.capacity()) {
+            map = remapData(offset + GameFile.HEADER_BYTES);
+        }
+        long end = offset + GameFile.size(map, (int) offset);
+        if (end > map.capacity()) {
+            map = remapData(end);
+        }
+        return map;
+    }
+
+    /**
+     * Map the data file again if it has grown
+     *
+     * @param size Long bytes that must be mapped
+     * @return ByteBuffer the current mapping
+     */
+    private synchronized MappedByteBuffer remapData(long size) throws IOException {
+        if (dataMap == null || dataMap.capacity() < size) {
+            dataMap = map(data, Math.max(size, dataSize));
+        }
+        return dataMap;
+    }
+
+    /**
+     * Map the index file again if it has grown
+     *
+     * @param size Long bytes that must be mapped
+     * @return ByteBuffer the current mapping
+     */
+    private synchronized MappedByteBuffer remapIndex(long size) throws IOException {
+        if (indexMap == null || indexMap.capacity() < size) {
+            indexMap = map(index, Math.max(size, count * Long.BYTES));
+        }
+        return indexMap;
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Archive is larger than 2 GB");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private static ByteBuffer slice(ByteBuffer map, int offset, int size) {
+        ByteBuffer record = map.duplicate();
+        record.limit(offset + size).position(offset);
+        return record.slice();
+    }
+
+    /**
+     * Write the flipped or filled buffer at a position of the channel, the buffer is cleared after it
+     *
+     * @return Integer bytes written
+     */
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        int bytes = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.io;
+
+import includes.engine.Game;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Binary Game File.
+ *
+ * <p>Version 1, all numbers big endian:</p>
+ * <ol>
+ *      <li>Magic "TTT" (3 bytes) and the version (1 byte)</li>
+ *      <li>Rows, columns and win length (unsigned short each)</li>
+ *      <li>Number of moves (int)</li>
+ *      <li>The cells of the moves in the order they were played: 1 byte per move on boards up to 256 cells,
+ *      2 bytes up to 65536 cells, else 4 bytes {@link #moveBytes(int)}</li>
+ * </ol>
+ * A 3x3 game is at most 23 bytes. Reading replays the moves on a new {@link Game}, so X/O and the order come back exactly
+ * and an illegal move is reported as a broken file.
+ */
+public final class GameFile {
+
+    /**
+     * Current version of the format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Bytes before the first move
+     */
+    public static final int HEADER_BYTES = 14;
+
+    private static final byte[] MAGIC = {'T', 'T', 'T'};
+
+    private GameFile() {
+    }
+
+    /**
+     * @param game Game
+     * @return Integer size of the game in bytes
+     */
+    public static int size(Game game) {
+        return HEADER_BYTES + game.moveCount() * moveBytes(game.cellCount());
+    }
+
+    /**
+     * @param cells Integer cells of the board
+     * @return Integer bytes per move: 1, 2 or 4
+     */
+    static int moveBytes(int cells) {
+        return cells <= 1 << 8 ? 1 : cells <= 1 << 16 ? 2 : 4;
+    }
+
+    /**
+     * Size of a stored game from its header, the moves are not read
+     *
+     * @param buffer ByteBuffer
+     * @param offset Integer absolute position of the game in the buffer
+     * @return Integer size of the game in bytes
+     */
+    public static int size(ByteBuffer buffer, int offset) {
+        long cells = (long) Short.toUnsignedInt(buffer.getShort(offset + 4)) * Short.toUnsignedInt(buffer.getShort(offset + 6));
+        return HEADER_BYTES + buffer.getInt(offset + 10) * moveBytes((int) Math.min(cells, Integer.MAX_VALUE));
+    }
+
+    /**
+     * @param game Game
+     * @return byte[] the game in the binary format
+     */
+    public static byte[] encode(Game game) {
+        ByteBuffer buffer = ByteBuffer.allocate(size(game));
+        write(game, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Write the game at the position of the buffer
+     *
+     * @param game   Game
+     * @param buffer ByteBuffer with at least {@link #size(Game)} bytes remaining
+     */
+    public static void write(Game game, ByteBuffer buffer) {
+        buffer.put(MAGIC).put((byte) VERSION);
+        buffer.putShort((short) game.rows()).putShort((short) game.cols()).putShort((short) game.winLength());
+        buffer.putInt(game.moveCount());
+        int moveBytes = moveBytes(game.cellCount());
+        for (int i = 0; i < game.moveCount(); i++) {
+            int cell = game.moveAt(i);
+            if (moveBytes == 1) {
+                buffer.put((byte) cell);
+            } else if (moveBytes == 2) {
+                buffer.putShort((short) cell);
+            } else {
+                buffer.putInt(cell);
+            }
+        }
+    }
+
+    /**
+     * Read one game at the position of the buffer, the position is moved after the game
+     *
+     * @param buffer ByteBuffer
+     * @return Game with all moves replayed
+     * @throws IOException if the data is not a game of this format
+     */
+    public static Game read(ByteBuffer buffer) throws IOException {
+        return read(buffer, null);
+    }
+
+    /**
+     * Read one game into a game that is used again and again, so reading many games allocates nothing
+     *
+     * @param buffer ByteBuffer, the position is moved after the game
+     * @param reuse  Game cleared and filled if the board has the same size and win length, else a new game is made; may be null
+     * @return Game with all moves replayed, reuse or a new one
+     * @throws IOException if the data is not a game of this format
+     */
+    public static Game read(ByteBuffer buffer, Game reuse) throws IOException {
+        try {
+            for (byte b : MAGIC) {
+                if (buffer.get() != b) {
+                    throw new IOException("Not a TicTacToe game file");
+                }
+            }
+            int version = buffer.get();
+            if (version != VERSION) {
+                throw new IOException("Unknown game file version: " + version);
+            }
+            int rows = Short.toUnsignedInt(buffer.getShort());
+            int cols = Short.toUnsignedInt(buffer.getShort());
+            int winLength = Short.toUnsignedInt(buffer.getShort());
+            int moves = buffer.getInt();
+            long cells = (long) rows * cols;
+            int moveBytes = moveBytes((int) Math.min(cells, Integer.MAX_VALUE));
+            if (moves < 0 || moves > cells || (long) moves * moveBytes > buffer.remaining()) {
+                throw new IOException("Broken game file: " + moves + " moves");
+            }
+            Game game;
+            if (reuse != null && reuse.rows() == rows && reuse.cols() == cols && reuse.winLength() == winLength) {
+                game = reuse;
+                game.reset();
+            } else {
+                game = Game.create(rows, cols, winLength);
+            }
+            for (int i = 0; i < moves; i++) {
+                int cell = moveBytes == 1 ? Byte.toUnsignedInt(buffer.get())
+                        : moveBytes == 2 ? Short.toUnsignedInt(buffer.getShort()) : buffer.getInt();
+                game.play(cell);
+            }
+            return game;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Broken game file", e);
+        }
+    }
+
+    /**
+     * @param bytes byte[] one game
+     * @return Game
+     * @throws IOException if the data is not a game of this format
+     */
+    public static Game decode(byte[] bytes) throws IOException {
+        return read(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Save a game to a file, the file is replaced
+     *
+     * @param game Game
+     * @param file Path
+     * @throws IOException if the file can not be written
+     */
+    public static void save(Game game, Path file) throws IOException {
+        Files.write(file, encode(game));
+    }
+
+    /**
+     * Load a game from a file
+     *
+     * @param file Path
+     * @return Game
+     * @throws IOException if the file can not be read or is broken
+     */
+    public static Game load(Path file) throws IOException {
+        return decode(Files.readAllBytes(file));
+    }
+}
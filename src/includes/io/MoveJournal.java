@@ -0,0 +1,334 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.io;
+
+import includes.engine.Game;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Move Journal: a write-ahead log of the running game, so it survives a crash without pressing "Save Game".
+ *
+ * <p>The journal is a list of entries: <code>type (1 byte), length (int), payload, CRC32C of all before (int)</code></p>
+ * <ol>
+ *      <li>{@link #SNAPSHOT}: the whole game in the {@link GameFile} format, always the first entry</li>
+ *      <li>{@link #MOVE}: the cell of one move (int)</li>
+ *      <li>{@link #UNDO}: no payload</li>
+ * </ol>
+ * An entry is written to the file at once (some microseconds), the fsync is done in a batch by a background thread
+ * every {@link #syncMillis}. Reading replays the entries on the snapshot, a torn entry at the end is cut off.
+ * After {@link #compactEntries} entries the journal is compacted: a new file with only a snapshot replaces the old one.
+ * The time of the writes and fsyncs and the number of compactions go to the {@link Metrics}.
+ */
+public final class MoveJournal implements Closeable {
+
+    /**
+     * Entry: the whole game
+     */
+    public static final byte SNAPSHOT = 1;
+
+    /**
+     * Entry: one move
+     */
+    public static final byte MOVE = 2;
+
+    /**
+     * Entry: undo of the last move
+     */
+    public static final byte UNDO = 3;
+
+    private static final Histogram WRITE_NANOS = Metrics.histogram("journal.write");
+    private static final Histogram FSYNC_NANOS = Metrics.histogram("journal.fsync");
+    private static final LongAdder COMPACTIONS = Metrics.counter("journal.compactions");
+
+    private static final int ENTRY_OVERHEAD = 1 + Integer.BYTES + Integer.BYTES;
+
+    private final Path file;
+    private final long syncMillis;
+    private final int compactEntries;
+    private final ByteBuffer entry = ByteBuffer.allocateDirect(ENTRY_OVERHEAD + Integer.BYTES);
+    private final CRC32C crc = new CRC32C();
+    private final ScheduledExecutorService syncer;
+
+    private volatile FileChannel channel;
+    private volatile boolean dirty;
+    private Game game;
+    private int entries;
+
+    /**
+     * Journal with an fsync every 50 ms and a compaction after 1024 entries
+     *
+     * @param file  Path
+     * @param empty Game empty board for a new journal
+     * @throws IOException if the file can not be read or written
+     */
+    public MoveJournal(Path file, Game empty) throws IOException {
+        this(file, empty, 50, 1024);
+    }
+
+    /**
+     * Open a journal and replay it {@link #game()}, a new journal starts with the empty board
+     *
+     * @param file           Path
+     * @param empty          Game empty board for a new journal
+     * @param syncMillis     Long time between two fsyncs, 0 for an fsync after every entry
+     * @param compactEntries Integer entries after the snapshot before the journal is compacted
+     * @throws IOException if the file can not be read or written
+     */
+    public MoveJournal(Path file, Game empty, long syncMillis, int compactEntries) throws IOException {
+        this.file = file;
+        this.syncMillis = syncMillis;
+        this.compactEntries = compactEntries;
+        this.game = replay(file);
+        if (game == null) {
+            game = empty.copy();
+            game.reset();
+            writeSnapshot();
+        } else {
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+        if (syncMillis > 0) {
+            syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "journal-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncer.scheduleWithFixedDelay(this::syncQuietly, syncMillis, syncMillis, TimeUnit.MILLISECONDS);
+        } else {
+            syncer = null;
+        }
+    }
+
+    /**
+     * Read the snapshot and replay all entries after it, the file is cut after the last good entry
+     *
+     * @param file Path
+     * @return Game or null if there is no good snapshot
+     */
+    private Game replay(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        Game replayed = null;
+        int good = 0;
+        try {
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                byte type = buffer.get();
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining() - Integer.BYTES) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.array(), start, 1 + Integer.BYTES + length);
+                ByteBuffer payload = buffer.slice();
+                payload.limit(length);
+                buffer.position(buffer.position() + length);
+                if (buffer.getInt() != (int) crc.getValue()) {
+                    break;
+                }
+                if (type == SNAPSHOT) {
+                    replayed = GameFile.read(payload);
+                    entries = 0;
+                } else if (replayed == null) {
+                    break;
+                } else if (type == MOVE) {
+                    replayed.play(payload.getInt());
+                    entries++;
+                } else if (type == UNDO) {
+                    replayed.undo();
+                    entries++;
+                } else {
+                    break;
+                }
+                good = buffer.position();
+            }
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException | IllegalStateException e) {
+            // torn or broken entry: everything before it is good
+        }
+        if (replayed == null) {
+            return null;
+        }
+        if (good < buffer.capacity()) {
+            try (FileChannel truncate = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                truncate.truncate(good);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * @return Game copy of the game in the journal
+     */
+    public synchronized Game game() {
+        return game.copy();
+    }
+
+    /**
+     * Write a move
+     *
+     * @param cell Integer
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void move(int cell) throws IOException {
+        game.play(cell);
+        entry.clear();
+        entry.put(MOVE).putInt(Integer.BYTES).putInt(cell);
+        writeEntry();
+    }
+
+    /**
+     * Write an undo
+     *
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void undo() throws IOException {
+        game.undo();
+        entry.clear();
+        entry.put(UNDO).putInt(0);
+        writeEntry();
+    }
+
+    /**
+     * Start again with a new game, like a new board or a loaded game: the journal is compacted to this game
+     *
+     * @param start Game
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void reset(Game start) throws IOException {
+        game = start.copy();
+        writeSnapshot();
+    }
+
+    /**
+     * Add the CRC to the entry, write it and compact the journal if it is long
+     */
+    private void writeEntry() throws IOException {
+        long start = System.nanoTime();
+        int end = entry.position();
+        crc.reset();
+        entry.flip();
+        crc.update(entry);
+        entry.limit(end + Integer.BYTES).position(end);
+        entry.putInt((int) crc.getValue());
+        entry.flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        if (syncMillis == 0) {
+            channel.force(false);
+        } else {
+            dirty = true;
+        }
+        WRITE_NANOS.record(System.nanoTime() - start);
+        if (++entries >= compactEntries) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Compaction: write the snapshot to a new file, fsync it and move it over the journal
+     */
+    private void writeSnapshot() throws IOException {
+        byte[] snapshot = GameFile.encode(game);
+        ByteBuffer buffer = ByteBuffer.allocate(ENTRY_OVERHEAD + snapshot.length);
+        buffer.put(SNAPSHOT).putInt(snapshot.length).put(snapshot);
+        crc.reset();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(false);
+        }
+        FileChannel old = channel;
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        if (old != null) {
+            old.close();
+        }
+        entries = 0;
+        dirty = false;
+        COMPACTIONS.increment();
+    }
+
+    /**
+     * Fsync now if something was written since the last fsync
+     *
+     * @throws IOException if the file can not be written
+     */
+    public void sync() throws IOException {
+        if (dirty) {
+            dirty = false;
+            long start = System.nanoTime();
+            channel.force(false);
+            FSYNC_NANOS.record(System.nanoTime() - start);
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            // maybe the channel was just replaced by a compaction: try again next time
+            dirty = true;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (syncer != null) {
+            syncer.shutdownNow();
+        }
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.io;
+
+import includes.engine.Game;
+
+import java.beans.XMLDecoder;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Import of the old XML saves (java.beans.XMLEncoder).
+ *
+ * <p>The XML file holds an <code>Object[][] data</code> with <code>data[x][y]</code> = the number of the move on that cell,
+ * null for an empty cell. The moves are replayed sorted by this number, so X/O and the order of the moves come back right.
+ * New games are saved with {@link GameFile}.</p>
+ */
+public final class XmlImport {
+
+    private XmlImport() {
+    }
+
+    /**
+     * Read a XML File and replay it
+     *
+     * @param file      Path like "recources/data.xml"
+     * @param winLength Integer k, the XML file does not know it
+     * @return Game
+     * @throws IOException if the file can not be read or is not a saved game
+     */
+    public static Game load(Path file, int winLength) throws IOException {
+        Object data;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+             XMLDecoder xdec = new XMLDecoder(in)) {
+            data = xdec.readObject();
+        } catch (RuntimeException e) {
+            throw new IOException("Not a saved game: " + file, e);
+        }
+        if (!(data instanceof Object[][])) {
+            throw new IOException("Not a saved game: " + file);
+        }
+        return replay((Object[][]) data, winLength);
+    }
+
+    /**
+     * Replay the moves of the data object in the order of their numbers
+     *
+     * @param data      Object[][] data[x][y] = move number or null
+     * @param winLength Integer k
+     * @return Game
+     * @throws IOException if two cells have the same number or a move is not legal
+     */
+    static Game replay(Object[][] data, int winLength) throws IOException {
+        int cols = data.length;
+        int rows = cols == 0 ? 0 : data[0].length;
+        int[] cellOfMove = new int[rows * cols + 1];
+        int moves = 0;
+        for (int x = 0; x < cols; x++) {
+            for (int y = 0; y < Math.min(rows, data[x].length); y++) {
+                if (data[x][y] instanceof Integer) {
+                    int number = (Integer) data[x][y];
+                    if (number < 1 || number > rows * cols || cellOfMove[number] != 0) {
+                        throw new IOException("Broken saved game: move number " + number);
+                    }
+                    cellOfMove[number] = y * cols + x + 1;
+                    moves = Math.max(moves, number);
+                }
+            }
+        }
+        try {
+            Game game = Game.create(rows, cols, winLength);
+            for (int number = 1; number <= moves; number++) {
+                if (cellOfMove[number] == 0) {
+                    throw new IOException("Broken saved game: move " + number + " is missing");
+                }
+                game.play(cellOfMove[number] - 1);
+            }
+            return game;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Broken saved game", e);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Metrics of the whole program: counters, gauges and latency histograms by name.
+ *
+ * <ol>
+ *      <li>Counter: a {@link LongAdder}, many threads can add without contention</li>
+ *      <li>Gauge: a function that is read for the report, like the number of games on the server</li>
+ *      <li>Histogram: times in nanoseconds {@link Histogram}</li>
+ * </ol>
+ * Get a metric once and keep it in a static field, the lookup by name is not for the hot path.
+ * The names are like <code>area.what</code>, the report is sorted by name.
+ * All metrics can be read with JMX {@link #registerMBean()} or printed {@link #report()}.
+ */
+public final class Metrics {
+
+    /**
+     * JMX name of the metrics MBean
+     */
+    public static final String OBJECT_NAME = "includes:type=Metrics";
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongSupplier> GAUGES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    /**
+     * @param name String
+     * @return LongAdder the counter with this name, created on the first call
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Set a gauge, an old gauge with the same name is replaced
+     *
+     * @param name  String
+     * @param gauge LongSupplier read for every report, must be thread safe
+     */
+    public static void gauge(String name, LongSupplier gauge) {
+        GAUGES.put(name, gauge);
+    }
+
+    /**
+     * @param name String
+     * @return Histogram of nanoseconds with this name, created on the first call
+     */
+    public static Histogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new Histogram());
+    }
+
+    static Map<String, LongAdder> counters() {
+        return COUNTERS;
+    }
+
+    static Map<String, LongSupplier> gauges() {
+        return GAUGES;
+    }
+
+    static Map<String, Histogram> histograms() {
+        return HISTOGRAMS;
+    }
+
+    /**
+     * Set all counters and histograms to 0
+     */
+    public static void reset() {
+        COUNTERS.values().forEach(LongAdder::reset);
+        HISTOGRAMS.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * Register the metrics in the platform MBean server as {@link #OBJECT_NAME}, only the first call does it
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsJmxBean(), name);
+            }
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return String all metrics, one per line, times in microseconds
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, LongAdder> counter : COUNTERS.entrySet()) {
+            sb.append(String.format("%-28s %,14d%n", counter.getKey(), counter.getValue().sum()));
+        }
+        for (Map.Entry<String, LongSupplier> gauge : GAUGES.entrySet()) {
+            sb.append(String.format("%-28s %,14d%n", gauge.getKey(), gauge.getValue().getAsLong()));
+        }
+        for (Map.Entry<String, Histogram> entry : HISTOGRAMS.entrySet()) {
+            Histogram histogram = entry.getValue();
+            sb.append(String.format("%-28s %,14d x  mean %,.1f  p50 %,.1f  p99 %,.1f  p999 %,.1f  max %,.1f us%n",
+                    entry.getKey(), histogram.count(), histogram.mean() / 1e3, histogram.percentile(0.5) / 1e3,
+                    histogram.percentile(0.99) / 1e3, histogram.percentile(0.999) / 1e3, histogram.max() / 1e3));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,144 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * JMX view of {@link Metrics}.
+ *
+ * <p>Every counter and gauge is a Long attribute with its name. Every histogram gives the attributes
+ * <code>name.count</code>, <code>name.p50</code>, <code>name.p99</code>, <code>name.p999</code> and <code>name.max</code>
+ * in nanoseconds. The operations <code>report</code> and <code>reset</code> call {@link Metrics#report()} and
+ * {@link Metrics#reset()}. The list of attributes is made again for every call, new metrics show up at once.</p>
+ */
+final class MetricsJmxBean implements DynamicMBean {
+
+    private static final String[] SUFFIXES = {".count", ".p50", ".p99", ".p999", ".max"};
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        LongAdder counter = Metrics.counters().get(attribute);
+        if (counter != null) {
+            return counter.sum();
+        }
+        LongSupplier gauge = Metrics.gauges().get(attribute);
+        if (gauge != null) {
+            return gauge.getAsLong();
+        }
+        int dot = attribute.lastIndexOf('.');
+        Histogram histogram = dot < 0 ? null : Metrics.histograms().get(attribute.substring(0, dot));
+        if (histogram != null) {
+            switch (attribute.substring(dot)) {
+                case ".count":
+                    return histogram.count();
+                case ".p50":
+                    return histogram.percentile(0.5);
+                case ".p99":
+                    return histogram.percentile(0.99);
+                case ".p999":
+                    return histogram.percentile(0.999);
+                case ".max":
+                    return histogram.max();
+                default:
+                    break;
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String name : attributes) {
+            try {
+                list.add(new Attribute(name, getAttribute(name)));
+            } catch (AttributeNotFoundException e) {
+                // left out, like the JMX spec says
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("report")) {
+            return Metrics.report();
+        }
+        if (actionName.equals("reset")) {
+            Metrics.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        for (String name : Metrics.counters().keySet()) {
+            attributes.add(attribute(name, "Counter"));
+        }
+        for (String name : Metrics.gauges().keySet()) {
+            attributes.add(attribute(name, "Gauge"));
+        }
+        for (String name : Metrics.histograms().keySet()) {
+            for (String suffix : SUFFIXES) {
+                attributes.add(attribute(name + suffix, "Histogram in nanoseconds"));
+            }
+        }
+        MBeanOperationInfo[] operations = {
+                new MBeanOperationInfo("report", "All metrics as text", new MBeanParameterInfo[0], String.class.getName(), MBeanOperationInfo.INFO),
+                new MBeanOperationInfo("reset", "Set all counters and histograms to 0", new MBeanParameterInfo[0], "void", MBeanOperationInfo.ACTION)
+        };
+        return new MBeanInfo(getClass().getName(), "TicTacToe metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, operations, null);
+    }
+
+    private static MBeanAttributeInfo attribute(String name, String description) {
+        return new MBeanAttributeInfo(name, Long.class.getName(), description, true, false, false);
+    }
+}
@@ -0,0 +1,750 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.net;
+
+import includes.engine.Game;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+import includes.session.GameBroadcaster;
+import includes.session.Spectator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless Game Server: many games in one process, played over TCP with a line protocol.
+ *
+ * <p>One line per request, ASCII, the answers come in the same order. A connection can send many requests without
+ * waiting (pipelining) and can play many games at the same time.</p>
+ * <ol>
+ *      <li><code>NEW [rows cols k]</code> &rarr; <code>GAME id</code>, 3x3 without the numbers</li>
+ *      <li><code>MOVE id cell</code> &rarr; <code>OK id TURN X|O</code>, <code>OK id WIN X|O</code> or <code>OK id DRAW</code></li>
+ *      <li><code>UNDO id</code> and <code>REDO id</code> &rarr; like MOVE</li>
+ *      <li><code>BOARD id</code> &rarr; <code>BOARD id rows cols k cells</code>, the cells as <code>.</code>, <code>X</code> and <code>O</code></li>
+ *      <li><code>END id</code> &rarr; <code>OK id END</code>, the game is removed</li>
+ *      <li>MOVE, UNDO, REDO and END only for the connection that made the game, the others can only look at it (BOARD, WATCH)</li>
+ *      <li><code>WATCH id</code> &rarr; <code>OK id WATCH</code>, then the changes of the game as they happen:
+ *      <code>SEE id GAME rows cols k cells...</code> (all moves in order, the first time and after missed changes),
+ *      <code>SEE id [UNDO n] [MOVE cells...]</code> (all changes since the last line) and <code>SEE id END</code></li>
+ *      <li><code>UNWATCH id</code> &rarr; <code>OK id UNWATCH</code></li>
+ *      <li><code>PING</code> &rarr; <code>PONG</code></li>
+ *      <li>Every error: <code>ERR message</code></li>
+ * </ol>
+ * <p>The server is one selector thread, the games are only touched by it, so there are no locks.
+ * A game is an engine object ({@link Game}, about 100 bytes on 3x3) in a slot of {@link #games}, free slots are used again.
+ * The games of a connection are removed when it is closed. A connection has at most {@link #maxGamesPerConnection} games,
+ * all games together at most {@link #maxGames} games and {@link #maxCells} cells, so one client can not fill the heap. A client that does not read its answers is not read anymore
+ * until its output is below {@link #MAX_OUTPUT}.</p>
+ * <p>A watched game has a {@link GameBroadcaster}, a watcher gets the changes only while its output is below
+ * {@link #MAX_OUTPUT}, so a slow watcher is skipped and later gets one snapshot. The players never wait for it.</p>
+ * <p>The time of every request, the connections and the games go to the {@link Metrics}.</p>
+ */
+public final class GameServer implements Runnable, Closeable {
+
+    /**
+     * Default TCP port
+     */
+    public static final int DEFAULT_PORT = 7333;
+
+    /**
+     * Longest request line
+     */
+    private static final int MAX_LINE = 256;
+
+    /**
+     * Pending output of one connection before it is not read anymore
+     */
+    private static final int MAX_OUTPUT = 1 << 16;
+
+    /**
+     * Largest board, 64x64
+     */
+    private static final int MAX_CELLS = 1 << 12;
+
+    /**
+     * Cells of all games together per game of {@link #maxGames}, a few big boards or many small ones
+     */
+    private static final int CELLS_PER_GAME = 64;
+
+    /**
+     * Default games at the same time
+     */
+    public static final int DEFAULT_MAX_GAMES = 100_000;
+
+    /**
+     * Default games of one connection at the same time
+     */
+    public static final int DEFAULT_GAMES_PER_CONNECTION = 1_000;
+
+    private static final Histogram REQUEST_NANOS = Metrics.histogram("server.request");
+    private static final LongAdder CONNECTIONS = Metrics.counter("server.connections");
+
+    private static final byte[] CHARS = {'.', 'X', 'O'};
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final int maxGames;
+    private final int maxGamesPerConnection;
+    private final long maxCells;
+
+    private Game[] games = new Game[1024];
+    private Connection[] owners = new Connection[1024];
+    private int[] ownerIndex = new int[1024];
+    private GameBroadcaster[] broadcasters = new GameBroadcaster[1024];
+    private int[] freeSlots = new int[1024];
+    private int freeCount;
+    private int slotCount;
+    private volatile int gameCount;
+    private long cellCount;
+    private volatile boolean running = true;
+
+    /**
+     * Open the server socket with {@link #DEFAULT_GAMES_PER_CONNECTION}, the games are played after {@link #run()}
+     *
+     * @param port     Integer TCP port, 0 for any free port
+     * @param maxGames Integer games at the same time
+     * @throws IOException if the port can not be used
+     */
+    public GameServer(int port, int maxGames) throws IOException {
+        this(port, maxGames, DEFAULT_GAMES_PER_CONNECTION);
+    }
+
+    /**
+     * Open the server socket, the games are played after {@link #run()}
+     *
+     * @param port                  Integer TCP port, 0 for any free port
+     * @param maxGames              Integer games at the same time
+     * @param maxGamesPerConnection Integer games of one connection at the same time
+     * @throws IOException if the port can not be used
+     */
+    public GameServer(int port, int maxGames, int maxGamesPerConnection) throws IOException {
+        this.maxGames = maxGames;
+        this.maxGamesPerConnection = maxGamesPerConnection;
+        this.maxCells = (long) maxGames * CELLS_PER_GAME;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        Metrics.gauge("server.games", this::getGameCount);
+    }
+
+    /**
+     * @return Integer the TCP port, useful with port 0
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * @return Integer games at the moment
+     */
+    public int getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * The selector loop, until {@link #close()}
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                connection.read();
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                connection.write();
+                            }
+                        } catch (IOException e) {
+                            connection.close();
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    ((Connection) key.attachment()).close();
+                }
+            }
+            try {
+                selector.close();
+                server.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            CONNECTIONS.increment();
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        }
+    }
+
+    /**
+     * Stop the selector loop, all connections are closed
+     */
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * @param owner Connection
+     * @param cells Integer cells of the new game
+     * @return String why the game can not be made, null if it can
+     */
+    private String refuseGame(Connection owner, int cells) {
+        if (owner.ownCount >= maxGamesPerConnection) {
+            return "too many games on this connection";
+        }
+        if (gameCount >= maxGames || cellCount + cells > maxCells) {
+            return "too many games";
+        }
+        return null;
+    }
+
+    /**
+     * @param owner Connection
+     * @param game  Game, allowed by {@link #refuseGame(Connection, int)}
+     * @return Integer id of the new game
+     */
+    private int addGame(Connection owner, Game game) {
+        int id;
+        if (freeCount > 0) {
+            id = freeSlots[--freeCount];
+        } else {
+            if (slotCount == games.length) {
+                games = Arrays.copyOf(games, slotCount * 2);
+                owners = Arrays.copyOf(owners, slotCount * 2);
+                ownerIndex = Arrays.copyOf(ownerIndex, slotCount * 2);
+                broadcasters = Arrays.copyOf(broadcasters, slotCount * 2);
+            }
+            id = slotCount++;
+        }
+        games[id] = game;
+        owners[id] = owner;
+        ownerIndex[id] = owner.addOwnGame(id);
+        gameCount++;
+        cellCount += game.cellCount();
+        return id;
+    }
+
+    /**
+     * Remove a game, also from the list of its connection, O(1)
+     *
+     * @param id Integer
+     */
+    private void removeGame(int id) {
+        GameBroadcaster broadcaster = broadcasters[id];
+        if (broadcaster != null) {
+            for (GameBroadcaster.Subscription subscription : broadcaster.getSubscriptions()) {
+                Watcher watcher = (Watcher) subscription.getSpectator();
+                watcher.connection.print("SEE ").print(id).print(" END").newLine();
+                watcher.connection.unwatch(subscription);
+                watcher.connection.requestWrite();
+            }
+            broadcasters[id] = null;
+        }
+        owners[id].removeOwnGame(ownerIndex[id]);
+        cellCount -= games[id].cellCount();
+        games[id] = null;
+        owners[id] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = id;
+        gameCount--;
+    }
+
+    /**
+     * Send the new changes of a watched game to all watchers that have room in their output
+     *
+     * @param id Integer
+     */
+    private void pump(int id) {
+        for (GameBroadcaster.Subscription subscription : broadcasters[id].getSubscriptions()) {
+            Connection connection = ((Watcher) subscription.getSpectator()).connection;
+            if (connection.out.position() < MAX_OUTPUT && subscription.drain()) {
+                connection.requestWrite();
+            }
+        }
+    }
+
+    /**
+     * Spectator of one game for one connection: the changes become SEE lines in its output
+     */
+    private static final class Watcher implements Spectator {
+
+        private final Connection connection;
+        private final int id;
+
+        Watcher(Connection connection, int id) {
+            this.connection = connection;
+            this.id = id;
+        }
+
+        @Override
+        public void onUpdate(int undos, int[] moves, int count) {
+            connection.print("SEE ").print(id);
+            if (undos > 0) {
+                connection.print(" UNDO ").print(undos);
+            }
+            if (count > 0) {
+                connection.print(" MOVE");
+                for (int i = 0; i < count; i++) {
+                    connection.print(" ").print(moves[i]);
+                }
+            }
+            connection.newLine();
+        }
+
+        @Override
+        public void onSnapshot(Game game) {
+            connection.print("SEE ").print(id).print(" GAME ").print(game.rows()).print(" ").print(game.cols())
+                    .print(" ").print(game.winLength());
+            for (int i = 0; i < game.moveCount(); i++) {
+                connection.print(" ").print(game.moveAt(i));
+            }
+            connection.newLine();
+        }
+    }
+
+    /**
+     * One client: its input and output buffers, its games and the games it watches
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(4096);
+        private ByteBuffer out = ByteBuffer.allocate(4096);
+        private int[] ownGames = new int[4];
+        private int ownCount;
+        private final List<GameBroadcaster.Subscription> watching = new ArrayList<>();
+        private SelectionKey key;
+
+        /**
+         * Position in the current line while it is parsed
+         */
+        private int cursor;
+        private int lineEnd;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Read what is there, answer all complete lines and try to send the answers
+         */
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            byte[] bytes = in.array();
+            int start = 0;
+            for (int i = 0; i < in.position(); i++) {
+                if (bytes[i] == '\n') {
+                    cursor = start;
+                    lineEnd = i > start && bytes[i - 1] == '\r' ? i - 1 : i;
+                    long begin = System.nanoTime();
+                    handle();
+                    REQUEST_NANOS.record(System.nanoTime() - begin);
+                    start = i + 1;
+                }
+            }
+            if (in.position() - start > MAX_LINE) {
+                error("line too long");
+                in.clear();
+            } else {
+                in.limit(in.position()).position(start);
+                in.compact();
+            }
+            write();
+        }
+
+        /**
+         * Send the answers, wait for OP_WRITE if the socket is full, stop reading if the client does not read
+         */
+        void write() throws IOException {
+            for (int i = 0; i < watching.size() && out.position() < MAX_OUTPUT; i++) {
+                watching.get(i).drain();
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_WRITE : 0;
+            if (out.position() < MAX_OUTPUT) {
+                ops |= SelectionKey.OP_READ;
+            }
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+
+        /**
+         * @param id Integer game of this connection
+         * @return Integer its index in {@link #ownGames}
+         */
+        int addOwnGame(int id) {
+            if (ownCount == ownGames.length) {
+                ownGames = Arrays.copyOf(ownGames, ownCount * 2);
+            }
+            ownGames[ownCount] = id;
+            return ownCount++;
+        }
+
+        /**
+         * @param index Integer index in {@link #ownGames}, the last game takes its place
+         */
+        void removeOwnGame(int index) {
+            int last = ownGames[--ownCount];
+            ownGames[index] = last;
+            ownerIndex[last] = index;
+        }
+
+        /**
+         * Write when the socket is ready
+         */
+        void requestWrite() {
+            if (key.isValid() && (key.interestOps() & SelectionKey.OP_WRITE) == 0) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            }
+        }
+
+        /**
+         * Stop watching, the broadcaster is removed with its last subscription
+         *
+         * @param subscription GameBroadcaster.Subscription of this connection
+         */
+        void unwatch(GameBroadcaster.Subscription subscription) {
+            subscription.close();
+            watching.remove(subscription);
+            int id = ((Watcher) subscription.getSpectator()).id;
+            if (broadcasters[id] != null && broadcasters[id].getSubscriptions().isEmpty()) {
+                broadcasters[id] = null;
+            }
+        }
+
+        /**
+         * Close the socket, remove all games of this connection and stop watching
+         */
+        void close() {
+            while (ownCount > 0) {
+                removeGame(ownGames[ownCount - 1]);
+            }
+            while (!watching.isEmpty()) {
+                unwatch(watching.get(watching.size() - 1));
+            }
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // closed anyway
+            }
+        }
+
+        /**
+         * Answer one request line
+         */
+        private void handle() {
+            String command = word();
+            switch (command) {
+                case "NEW":
+                    newGame();
+                    break;
+                case "MOVE":
+                case "UNDO":
+                case "REDO":
+                case "BOARD":
+                case "END":
+                case "WATCH":
+                case "UNWATCH":
+                    int id = number();
+                    Game game = id >= 0 && id < slotCount ? games[id] : null;
+                    if (game == null) {
+                        error("unknown game");
+                    } else if (owners[id] != this && !command.equals("BOARD") && !command.endsWith("WATCH")) {
+                        error("not your game");
+                    } else {
+                        gameCommand(command, id, game);
+                    }
+                    break;
+                case "PING":
+                    print("PONG").newLine();
+                    break;
+                default:
+                    error("unknown command");
+            }
+        }
+
+        private void newGame() {
+            int rows = 3;
+            int cols = 3;
+            int k = 3;
+            if (hasMore()) {
+                rows = number();
+                cols = number();
+                k = number();
+            }
+            if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS || k < 1 || k > Math.max(rows, cols)) {
+                error("illegal board");
+                return;
+            }
+            String refusal = refuseGame(this, rows * cols);
+            if (refusal != null) {
+                error(refusal);
+                return;
+            }
+            int id = addGame(this, Game.create(rows, cols, k));
+            print("GAME ").print(id).newLine();
+        }
+
+        private void gameCommand(String command, int id, Game game) {
+            GameBroadcaster broadcaster = broadcasters[id];
+            try {
+                switch (command) {
+                    case "MOVE":
+                        int cell = number();
+                        game.play(cell);
+                        if (broadcaster != null) {
+                            broadcaster.moved(cell);
+                        }
+                        break;
+                    case "UNDO":
+                        game.undo();
+                        if (broadcaster != null) {
+                            broadcaster.undone();
+                        }
+                        break;
+                    case "REDO":
+                        int redone = game.redo();
+                        if (broadcaster != null) {
+                            broadcaster.moved(redone);
+                        }
+                        break;
+                    case "BOARD":
+                        board(id, game);
+                        return;
+                    case "WATCH":
+                        watch(id, game);
+                        return;
+                    case "UNWATCH":
+                        for (GameBroadcaster.Subscription subscription : watching) {
+                            if (((Watcher) subscription.getSpectator()).id == id) {
+                                unwatch(subscription);
+                                break;
+                            }
+                        }
+                        print("OK ").print(id).print(" UNWATCH").newLine();
+                        return;
+                    default:
+                        removeGame(id);
+                        print("OK ").print(id).print(" END").newLine();
+                        return;
+                }
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                error("illegal " + command.toLowerCase());
+                return;
+            }
+            if (broadcaster != null) {
+                pump(id);
+            }
+            print("OK ").print(id);
+            if (game.winner() != Game.EMPTY) {
+                print(" WIN ").print(game.winner() == Game.X ? "X" : "O");
+            } else if (game.isFull()) {
+                print(" DRAW");
+            } else {
+                print(" TURN ").print(game.sideToMove() == Game.X ? "X" : "O");
+            }
+            newLine();
+        }
+
+        /**
+         * Watch a game, the first line is a snapshot
+         */
+        private void watch(int id, Game game) {
+            for (GameBroadcaster.Subscription subscription : watching) {
+                if (((Watcher) subscription.getSpectator()).id == id) {
+                    error("already watching");
+                    return;
+                }
+            }
+            if (broadcasters[id] == null) {
+                broadcasters[id] = new GameBroadcaster(game);
+            }
+            GameBroadcaster.Subscription subscription = broadcasters[id].subscribe(new Watcher(this, id));
+            watching.add(subscription);
+            print("OK ").print(id).print(" WATCH").newLine();
+            subscription.drain();
+        }
+
+        private void board(int id, Game game) {
+            print("BOARD ").print(id).print(" ").print(game.rows()).print(" ").print(game.cols()).print(" ").print(game.winLength()).print(" ");
+            ensure(game.cellCount());
+            for (int cell = 0; cell < game.cellCount(); cell++) {
+                out.put(CHARS[game.get(cell)]);
+            }
+            newLine();
+        }
+
+        private boolean hasMore() {
+            byte[] bytes = in.array();
+            while (cursor < lineEnd && bytes[cursor] == ' ') {
+                cursor++;
+            }
+            return cursor < lineEnd;
+        }
+
+        private String word() {
+            hasMore();
+            int start = cursor;
+            byte[] bytes = in.array();
+            while (cursor < lineEnd && bytes[cursor] != ' ') {
+                cursor++;
+            }
+            return new String(bytes, start, cursor - start, StandardCharsets.US_ASCII).toUpperCase();
+        }
+
+        /**
+         * @return Integer the next number of the line, -1 if there is none
+         */
+        private int number() {
+            if (!hasMore()) {
+                return -1;
+            }
+            byte[] bytes = in.array();
+            long value = 0;
+            int digits = 0;
+            while (cursor < lineEnd && bytes[cursor] >= '0' && bytes[cursor] <= '9' && digits < 10) {
+                value = value * 10 + bytes[cursor++] - '0';
+                digits++;
+            }
+            if (digits == 0 || value > Integer.MAX_VALUE || (cursor < lineEnd && bytes[cursor] != ' ')) {
+                cursor = lineEnd;
+                return -1;
+            }
+            return (int) value;
+        }
+
+        private void ensure(int bytes) {
+            if (out.remaining() < bytes) {
+                ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+                out.flip();
+                bigger.put(out);
+                out = bigger;
+            }
+        }
+
+        private Connection print(String text) {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                out.put((byte) text.charAt(i));
+            }
+            return this;
+        }
+
+        private Connection print(int number) {
+            ensure(11);
+            if (number == 0) {
+                out.put((byte) '0');
+                return this;
+            }
+            int start = out.position();
+            while (number > 0) {
+                out.put((byte) ('0' + number % 10));
+                number /= 10;
+            }
+            for (int i = start, j = out.position() - 1; i < j; i++, j--) {
+                byte b = out.get(i);
+                out.put(i, out.get(j));
+                out.put(j, b);
+            }
+            return this;
+        }
+
+        private void newLine() {
+            ensure(1);
+            out.put((byte) '\n');
+        }
+
+        private void error(String message) {
+            print("ERR ").print(message).newLine();
+        }
+    }
+
+    /**
+     * Run a server until the process is stopped, then print the metrics {@link Metrics#report()}
+     *
+     * @param args [port] [max games] [max games per connection]
+     * @throws IOException if the port can not be used
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxGames = args.length > 1 ? Integer.parseInt(args[1].replace("_", "")) : DEFAULT_MAX_GAMES;
+        int perConnection = args.length > 2 ? Integer.parseInt(args[2].replace("_", "")) : DEFAULT_GAMES_PER_CONNECTION;
+        GameServer server = new GameServer(port, maxGames, perConnection);
+        Metrics.registerMBean();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(Metrics.report())));
+        System.out.println("TicTacToe server on port " + server.getPort() + ", at most " + maxGames + " games, " + perConnection + " per connection");
+        server.run();
+    }
+}
@@ -0,0 +1,311 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.net;
+
+import includes.ai.RandomPlayer;
+import includes.engine.Game;
+import includes.metrics.Histogram;
+import includes.metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Load Generator for the {@link GameServer}.
+ *
+ * <ol>
+ *      <li>A number of games are played at the same time (the concurrency), spread over some connections</li>
+ *      <li>Every game has at most one request on the way, it plays random moves until the game is over, ends it and starts a new one</li>
+ *      <li>The time from sending a MOVE until its answer is recorded in a {@link Histogram}</li>
+ * </ol>
+ * One selector thread drives all connections, the requests of one select round are sent together.
+ */
+public final class LoadClient {
+
+    private static final int NEW_SENT = 0;
+    private static final int MOVE_SENT = 1;
+    private static final int END_SENT = 2;
+
+    private final InetSocketAddress address;
+    private final int concurrency;
+    private final int connections;
+    private final SplittableRandom random;
+    private final Histogram latency = new Histogram();
+
+    private long moves;
+    private long finishedGames;
+    private long errors;
+
+    /**
+     * @param address     InetSocketAddress of the server
+     * @param concurrency Integer games at the same time
+     * @param connections Integer TCP connections
+     * @param seed        Long seed of the random moves
+     */
+    public LoadClient(InetSocketAddress address, int concurrency, int connections, long seed) {
+        this.address = address;
+        this.concurrency = concurrency;
+        this.connections = Math.max(1, Math.min(connections, concurrency));
+        this.random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Play until the time is over and print the report
+     *
+     * @param millis Long duration
+     * @return String report
+     * @throws IOException if the server can not be reached
+     */
+    public String run(long millis) throws IOException {
+        try (Selector selector = Selector.open()) {
+            Connection[] all = new Connection[connections];
+            for (int c = 0; c < connections; c++) {
+                int size = concurrency / connections + (c < concurrency % connections ? 1 : 0);
+                SocketChannel channel = SocketChannel.open(address);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                all[c] = new Connection(channel, size);
+                all[c].key = channel.register(selector, SelectionKey.OP_READ, all[c]);
+            }
+            long start = System.nanoTime();
+            long deadline = start + millis * 1_000_000L;
+            for (Connection connection : all) {
+                for (int g = 0; g < connection.games.length; g++) {
+                    connection.sendNew(g, start);
+                }
+                connection.flush();
+            }
+            long pending = concurrency;
+            while (pending > 0) {
+                selector.select(100);
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        connection.read(System.nanoTime() < deadline);
+                    }
+                    connection.flush();
+                }
+                selector.selectedKeys().clear();
+                pending = 0;
+                for (Connection connection : all) {
+                    pending += connection.pendingCount;
+                }
+            }
+            long nanos = System.nanoTime() - start;
+            for (Connection connection : all) {
+                connection.channel.close();
+            }
+            return report(nanos);
+        }
+    }
+
+    private String report(long nanos) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%,d games at the same time on %d connections, %.1f s%n", concurrency, connections, nanos / 1e9));
+        sb.append(String.format("moves:   %,d (%,.0f moves/s)%n", moves, moves * 1e9 / nanos));
+        sb.append(String.format("games:   %,d (%,.0f games/s)%n", finishedGames, finishedGames * 1e9 / nanos));
+        sb.append(String.format("latency: p50 %,d us, p99 %,d us, p999 %,d us, max %,d us%n",
+                latency.percentile(0.5) / 1000, latency.percentile(0.99) / 1000,
+                latency.percentile(0.999) / 1000, latency.max() / 1000));
+        sb.append(String.format("errors:  %,d%n", errors));
+        return sb.toString();
+    }
+
+    /**
+     * @return Histogram of the move latencies in nanoseconds
+     */
+    public Histogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * One connection with its games and the queue of requests on the way
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocate(1 << 16);
+        private final ByteBuffer out;
+        private final Game[] games;
+        private final int[] ids;
+        private final int[] stages;
+        private final int[] cells;
+        private final int[] queue;
+        private final long[] sent;
+        private int head;
+        private int pendingCount;
+        private SelectionKey key;
+
+        Connection(SocketChannel channel, int size) {
+            this.channel = channel;
+            this.games = new Game[size];
+            this.ids = new int[size];
+            this.stages = new int[size];
+            this.cells = new int[size];
+            this.queue = new int[size];
+            this.sent = new long[size];
+            this.out = ByteBuffer.allocate(64 + 24 * size);
+            for (int g = 0; g < size; g++) {
+                games[g] = Game.create(3, 3, 3);
+            }
+        }
+
+        void read(boolean more) throws IOException {
+            if (channel.read(in) < 0) {
+                throw new IOException("Server closed the connection");
+            }
+            byte[] bytes = in.array();
+            int start = 0;
+            for (int i = 0; i < in.position(); i++) {
+                if (bytes[i] == '\n') {
+                    answer(bytes, start, i, more);
+                    start = i + 1;
+                }
+            }
+            in.limit(in.position()).position(start);
+            in.compact();
+        }
+
+        /**
+         * The answer of the oldest request
+         */
+        private void answer(byte[] bytes, int start, int end, boolean more) {
+            int g = queue[head];
+            head = (head + 1) % queue.length;
+            pendingCount--;
+            long now = System.nanoTime();
+            if (bytes[start] == 'E') {
+                errors++;
+                games[g].reset();
+                if (more) {
+                    sendNew(g, now);
+                }
+                return;
+            }
+            if (stages[g] == NEW_SENT) {
+                ids[g] = parse(bytes, start + 5, end);
+                sendMove(g, now);
+            } else if (stages[g] == MOVE_SENT) {
+                latency.record(now - sent[g]);
+                moves++;
+                games[g].play(cells[g]);
+                if (games[g].isOver()) {
+                    send(g, END_SENT, "END ", ids[g], -1, now);
+                } else if (more) {
+                    sendMove(g, now);
+                }
+            } else {
+                finishedGames++;
+                games[g].reset();
+                if (more) {
+                    sendNew(g, now);
+                }
+            }
+        }
+
+        void sendNew(int g, long now) {
+            send(g, NEW_SENT, "NEW", -1, -1, now);
+        }
+
+        private void sendMove(int g, long now) {
+            cells[g] = RandomPlayer.INSTANCE.selectMove(games[g], random);
+            send(g, MOVE_SENT, "MOVE ", ids[g], cells[g], now);
+        }
+
+        private void send(int g, int stage, String command, int a, int b, long now) {
+            stages[g] = stage;
+            sent[g] = now;
+            queue[(head + pendingCount) % queue.length] = g;
+            pendingCount++;
+            out.put(command.getBytes(StandardCharsets.US_ASCII));
+            if (a >= 0) {
+                out.put(Integer.toString(a).getBytes(StandardCharsets.US_ASCII));
+            }
+            if (b >= 0) {
+                out.put((byte) ' ').put(Integer.toString(b).getBytes(StandardCharsets.US_ASCII));
+            }
+            out.put((byte) '\n');
+        }
+
+        /**
+         * Send all requests of this round, the rest waits for OP_WRITE
+         */
+        void flush() throws IOException {
+            out.flip();
+            channel.write(out);
+            out.compact();
+            int ops = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+            if (key.interestOps() != ops) {
+                key.interestOps(ops);
+            }
+        }
+
+        private int parse(byte[] bytes, int from, int to) {
+            int value = 0;
+            for (int i = from; i < to && bytes[i] >= '0' && bytes[i] <= '9'; i++) {
+                value = value * 10 + bytes[i] - '0';
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Run the load test and print the report, and the metrics of this process {@link Metrics#report()}
+     *
+     * @param args [concurrency] [seconds] [connections] [host:port], without host:port a server is started in this process
+     * @throws IOException if the server can not be reached
+     */
+    public static void main(String[] args) throws IOException {
+        int concurrency = args.length > 0 ? Integer.parseInt(args[0].replace("_", "")) : 10_000;
+        long seconds = args.length > 1 ? Long.parseLong(args[1]) : 10;
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+        GameServer local = null;
+        InetSocketAddress address;
+        if (args.length > 3) {
+            String[] hostPort = args[3].split(":");
+            address = new InetSocketAddress(hostPort[0], hostPort.length > 1 ? Integer.parseInt(hostPort[1]) : GameServer.DEFAULT_PORT);
+        } else {
+            local = new GameServer(0, Math.max(concurrency, GameServer.DEFAULT_MAX_GAMES), Math.max(concurrency, GameServer.DEFAULT_GAMES_PER_CONNECTION));
+            Thread thread = new Thread(local, "game-server");
+            thread.setDaemon(true);
+            thread.start();
+            address = new InetSocketAddress("localhost", local.getPort());
+        }
+        try {
+            System.out.print(new LoadClient(address, concurrency, connections, System.nanoTime()).run(seconds * 1000));
+            System.out.print(Metrics.report());
+        } finally {
+            if (local != null) {
+                local.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.session;
+
+import includes.engine.Game;
+import includes.metrics.Metrics;
+
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Game Broadcaster: sends the moves of one game to any number of {@link Spectator}s.
+ *
+ * <ol>
+ *      <li>The players write every change to one ring of {@link #capacity} events (a long each), this is O(1) and never waits
+ *      for a spectator</li>
+ *      <li>Every subscription has only its own read position in the ring, there is no queue per spectator</li>
+ *      <li>A subscription reads all new events at once and folds them into one update (coalescing) {@link Subscription#drain()}</li>
+ *      <li>A spectator that is {@link #capacity} events behind gets a snapshot of the game instead (drop to snapshot).
+ *      Like a seqlock, the read events only count if {@link #head} did not move a whole ring past them after they were read</li>
+ *      <li>Push subscriptions are delivered on their own executor, a fan-out task wakes them up, so a publish only
+ *      starts that task if it is not running already</li>
+ * </ol>
+ * Pull subscriptions are drained by the owner, like a server that writes to a socket only when there is room.
+ * The numbers of updates and snapshots of all subscriptions go to the {@link Metrics}.
+ */
+public final class GameBroadcaster {
+
+    private static final int MOVE = 1;
+    private static final int UNDO = 2;
+    private static final int RESET = 3;
+
+    private static final LongAdder UPDATES = Metrics.counter("spectator.updates");
+    private static final LongAdder SNAPSHOTS = Metrics.counter("spectator.snapshots");
+
+    private static final ExecutorService FAN_OUT = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "spectator-fan-out");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int capacity;
+    private final long[] ring;
+    private final Executor fanOut;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean fanOutScheduled = new AtomicBoolean();
+    private final AtomicInteger pushSubscriptions = new AtomicInteger();
+
+    /**
+     * The game after all published events, guarded by this
+     */
+    private Game game;
+
+    /**
+     * Number of published events, the next event goes to <code>ring[head % capacity]</code>
+     */
+    private volatile long head;
+
+    /**
+     * Broadcaster with 64 events and the shared fan-out thread
+     *
+     * @param game Game current state, it is copied
+     */
+    public GameBroadcaster(Game game) {
+        this(game, 64, FAN_OUT);
+    }
+
+    /**
+     * @param game     Game current state, it is copied
+     * @param capacity Integer events a spectator can be behind before it gets a snapshot, a power of two
+     * @param fanOut   Executor that wakes up the push subscriptions
+     */
+    public GameBroadcaster(Game game, int capacity, Executor fanOut) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.game = game.copy();
+        this.capacity = capacity;
+        this.ring = new long[capacity];
+        this.fanOut = fanOut;
+    }
+
+    /**
+     * Publish a move
+     *
+     * @param cell Integer
+     */
+    public synchronized void moved(int cell) {
+        game.play(cell);
+        publish(MOVE, cell);
+    }
+
+    /**
+     * Publish an undo
+     */
+    public synchronized void undone() {
+        game.undo();
+        publish(UNDO, 0);
+    }
+
+    /**
+     * Publish a new game, like a new board or a loaded game: all spectators get a snapshot
+     *
+     * @param start Game it is copied
+     */
+    public synchronized void reset(Game start) {
+        game = start.copy();
+        publish(RESET, 0);
+    }
+
+    private void publish(int type, int cell) {
+        long seq = head;
+        ring[(int) (seq & (capacity - 1))] = (long) type << 32 | cell;
+        head = seq + 1;
+        if (pushSubscriptions.get() > 0 && !fanOutScheduled.getAndSet(true)) {
+            fanOut.execute(this::wakeUp);
+        }
+    }
+
+    /**
+     * Fan-out task: schedule every push subscription that is not scheduled already
+     */
+    private void wakeUp() {
+        fanOutScheduled.set(false);
+        for (Subscription subscription : subscriptions) {
+            subscription.schedule();
+        }
+    }
+
+    /**
+     * Subscribe, the spectator is called on the executor, never twice at the same time
+     *
+     * @param spectator Spectator
+     * @param executor  Executor of the calls, like a thread pool or <code>SwingUtilities::invokeLater</code>
+     * @return Subscription
+     */
+    public Subscription subscribe(Spectator spectator, Executor executor) {
+        Subscription subscription = new Subscription(spectator, executor);
+        subscriptions.add(subscription);
+        pushSubscriptions.incrementAndGet();
+        subscription.schedule();
+        return subscription;
+    }
+
+    /**
+     * Subscribe without calls, the owner calls {@link Subscription#drain()} when it wants the changes
+     *
+     * @param spectator Spectator
+     * @return Subscription
+     */
+    public Subscription subscribe(Spectator spectator) {
+        Subscription subscription = new Subscription(spectator, null);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * @return List of all subscriptions, read only
+     */
+    public List<Subscription> getSubscriptions() {
+        return subscriptions;
+    }
+
+    /**
+     * One spectator and its position in the ring
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final Spectator spectator;
+        private final Executor executor;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final int[] moves = new int[capacity];
+        private long cursor;
+        private boolean needsSnapshot = true;
+        private volatile boolean closed;
+
+        private long updates;
+        private long snapshots;
+
+        private Subscription(Spectator spectator, Executor executor) {
+            this.spectator = spectator;
+            this.executor = executor;
+        }
+
+        /**
+         * @return Spectator of this subscription
+         */
+        public Spectator getSpectator() {
+            return spectator;
+        }
+
+        /**
+         * @return true if there are events that the spectator has not got yet
+         */
+        public boolean isBehind() {
+            return needsSnapshot || cursor != head;
+        }
+
+        /**
+         * Give the spectator all new events as one update, or a snapshot if it missed some.
+         * Only one thread may drain a subscription at the same time.
+         *
+         * @return true if the spectator was called
+         */
+        public boolean drain() {
+            if (closed) {
+                return false;
+            }
+            long start = cursor;
+            long end = head;
+            if (!needsSnapshot && start == end) {
+                return false;
+            }
+            if (!needsSnapshot && end - start < capacity) {
+                int undos = 0;
+                int count = 0;
+                boolean reset = false;
+                for (long seq = start; seq < end && !reset; seq++) {
+                    long event = ring[(int) (seq & (capacity - 1))];
+                    int type = (int) (event >>> 32);
+                    if (type == MOVE) {
+                        moves[count++] = (int) event;
+                    } else if (type == UNDO) {
+                        if (count > 0) {
+                            count--;
+                        } else {
+                            undos++;
+                        }
+                    } else {
+                        reset = true;
+                    }
+                }
+                // the ring may have been written again while it was read, the next slot maybe just now.
+                // The fence keeps the plain reads of the ring before the read of head, else a torn event could pass the check
+                VarHandle.acquireFence();
+                if (!reset && head - start < capacity) {
+                    cursor = end;
+                    updates++;
+                    UPDATES.increment();
+                    spectator.onUpdate(undos, moves, count);
+                    return true;
+                }
+            }
+            Game copy;
+            synchronized (GameBroadcaster.this) {
+                copy = game.copy();
+                cursor = head;
+            }
+            needsSnapshot = false;
+            snapshots++;
+            SNAPSHOTS.increment();
+            spectator.onSnapshot(copy);
+            return true;
+        }
+
+        /**
+         * Start a delivery on the executor if none is running
+         */
+        private void schedule() {
+            if (executor != null && !closed && !scheduled.getAndSet(true)) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        private void deliver() {
+            try {
+                while (drain()) {
+                    // one more round: the events that came during the last call
+                }
+            } finally {
+                scheduled.set(false);
+            }
+            if (isBehind()) {
+                schedule();
+            }
+        }
+
+        /**
+         * @return Long number of updates
+         */
+        public long getUpdates() {
+            return updates;
+        }
+
+        /**
+         * @return Long number of snapshots, the first one included
+         */
+        public long getSnapshots() {
+            return snapshots;
+        }
+
+        /**
+         * Stop the calls, a running call ends normally
+         */
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                if (subscriptions.remove(this) && executor != null) {
+                    pushSubscriptions.decrementAndGet();
+                }
+            }
+        }
+    }
+}
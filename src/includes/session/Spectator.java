@@ -0,0 +1,53 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.session;
+
+import includes.engine.Game;
+
+/**
+ * Spectator of a game {@link GameBroadcaster}.
+ *
+ * <p>A spectator gets the changes of the game in batches: everything that happened since the last call is folded into
+ * one update, a move and its undo cancel each other. If it was too slow and missed events, it gets the whole game
+ * instead {@link #onSnapshot(Game)}. The first call is always a snapshot.</p>
+ */
+public interface Spectator {
+
+    /**
+     * The game changed: first undo some moves, then play some moves
+     *
+     * @param undos Integer moves to undo
+     * @param moves int[] cells to play in this order, only valid during the call
+     * @param count Integer number of cells in moves
+     */
+    void onUpdate(int undos, int[] moves, int count);
+
+    /**
+     * The whole game, after the subscription or after too many missed events
+     *
+     * @param game Game a copy that belongs to the spectator
+     */
+    void onSnapshot(Game game);
+}
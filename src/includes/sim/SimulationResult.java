@@ -0,0 +1,163 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.sim;
+
+import includes.engine.GameState;
+
+/**
+ * Simulation Result: counters of many games.
+ *
+ * <p>One result is filled by one thread only, results of different threads are added together with {@link #merge(SimulationResult)}.</p>
+ */
+public final class SimulationResult {
+
+    private long games;
+    private long xWins;
+    private long oWins;
+    private long draws;
+    private long nanos;
+    private final long[] lengths;
+
+    /**
+     * Empty result
+     *
+     * @param maxMoves Integer most moves a game can have, 9 on a 3x3 board
+     */
+    public SimulationResult(int maxMoves) {
+        this.lengths = new long[maxMoves + 1];
+    }
+
+    /**
+     * Count one finished game
+     *
+     * @param winner Integer {@link GameState#X}, {@link GameState#O} or {@link GameState#EMPTY} for a draw
+     * @param moves  Integer length of the game
+     */
+    public void add(int winner, int moves) {
+        games++;
+        if (winner == GameState.X) {
+            xWins++;
+        } else if (winner == GameState.O) {
+            oWins++;
+        } else {
+            draws++;
+        }
+        lengths[moves]++;
+    }
+
+    /**
+     * Add the counters of an other result to this one
+     *
+     * @param other SimulationResult
+     * @return this
+     */
+    public SimulationResult merge(SimulationResult other) {
+        games += other.games;
+        xWins += other.xWins;
+        oWins += other.oWins;
+        draws += other.draws;
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] += other.lengths[i];
+        }
+        return this;
+    }
+
+    /**
+     * @param nanos Long wall clock time of the whole simulation
+     */
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return Long number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * @return Long games won by X
+     */
+    public long getXWins() {
+        return xWins;
+    }
+
+    /**
+     * @return Long games won by O
+     */
+    public long getOWins() {
+        return oWins;
+    }
+
+    /**
+     * @return Long games without winner
+     */
+    public long getDraws() {
+        return draws;
+    }
+
+    /**
+     * @param moves Integer length of a game
+     * @return Long number of games with this length
+     */
+    public long getLengthCount(int moves) {
+        return lengths[moves];
+    }
+
+    /**
+     * @return Double games per second, 0 if the time is unknown
+     */
+    public double getGamesPerSecond() {
+        return nanos == 0 ? 0 : games * 1e9 / nanos;
+    }
+
+    /**
+     * @return String report with games/sec, the win/draw/loss split and the histogram of game lengths
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Games:     %,d in %.3f s (%,.0f games/sec)%n", games, nanos / 1e9, getGamesPerSecond()));
+        sb.append(String.format("X wins:    %,d (%.2f %%)%n", xWins, percent(xWins)));
+        sb.append(String.format("O wins:    %,d (%.2f %%)%n", oWins, percent(oWins)));
+        sb.append(String.format("Draws:     %,d (%.2f %%)%n", draws, percent(draws)));
+        sb.append("Game length:").append(System.lineSeparator());
+        long max = 1;
+        for (long count : lengths) {
+            max = Math.max(max, count);
+        }
+        for (int moves = 0; moves < lengths.length; moves++) {
+            if (lengths[moves] > 0) {
+                sb.append(String.format("  %3d moves %,14d %s%n", moves, lengths[moves], "#".repeat((int) (40 * lengths[moves] / max))));
+            }
+        }
+        return sb.toString();
+    }
+
+    private double percent(long count) {
+        return games == 0 ? 0 : 100.0 * count / games;
+    }
+}
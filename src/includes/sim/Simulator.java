@@ -0,0 +1,147 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.sim;
+
+import includes.ai.Player;
+import includes.engine.GameState;
+import includes.metrics.Metrics;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Headless Self-Play Simulator.
+ *
+ * <ol>
+ *      <li>The games are cut in chunks of {@link #CHUNK} games</li>
+ *      <li>Every chunk runs on the fork join pool with its own {@link GameState}, {@link SplittableRandom} and {@link SimulationResult}</li>
+ *      <li>At the end all results are merged {@link SimulationResult#merge(SimulationResult)}</li>
+ * </ol>
+ * The same seed gives the same result, no matter how many threads are used.
+ */
+public final class Simulator {
+
+    /**
+     * Games per task
+     */
+    private static final int CHUNK = 4096;
+
+    private final Player xPlayer;
+    private final Player oPlayer;
+    private final long seed;
+    private final int threads;
+
+    /**
+     * @param xPlayer Player who starts
+     * @param oPlayer Player
+     * @param seed    Long seed of all random generators
+     * @param threads Integer number of worker threads
+     */
+    public Simulator(Player xPlayer, Player oPlayer, long seed, int threads) {
+        this.xPlayer = xPlayer;
+        this.oPlayer = oPlayer;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    /**
+     * Play many games on all worker threads
+     *
+     * @param games Long number of games
+     * @return SimulationResult
+     */
+    public SimulationResult run(long games) {
+        long chunks = (games + CHUNK - 1) / CHUNK;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            SimulationResult result = pool.submit(() -> LongStream.range(0, chunks)
+                    .parallel()
+                    .mapToObj(chunk -> runChunk(chunk, Math.min(CHUNK, games - chunk * CHUNK)))
+                    .reduce(SimulationResult::merge)
+                    .orElseGet(() -> new SimulationResult(GameState.CELLS))).get();
+            result.setNanos(System.nanoTime() - start);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Simulation failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play one chunk of games on the current thread
+     *
+     * @param chunk Long index of the chunk, used for the seed
+     * @param games Long number of games
+     * @return SimulationResult of this chunk
+     */
+    private SimulationResult runChunk(long chunk, long games) {
+        SplittableRandom random = new SplittableRandom(seed + chunk * 0x9E3779B97F4A7C15L);
+        SimulationResult result = new SimulationResult(GameState.CELLS);
+        GameState state = new GameState();
+        for (long g = 0; g < games; g++) {
+            playGame(state, random);
+            result.add(state.winner(), state.moveCount());
+        }
+        return result;
+    }
+
+    /**
+     * Play one game from the empty board until it is over
+     *
+     * @param state  GameState, reset first
+     * @param random SplittableRandom
+     */
+    private void playGame(GameState state, SplittableRandom random) {
+        state.reset();
+        while (!state.isOver()) {
+            Player player = state.sideToMove() == GameState.X ? xPlayer : oPlayer;
+            state.play(player.selectMove(state, random));
+        }
+    }
+
+    /**
+     * Run a simulation and print the report, and the metrics of the players {@link Metrics#report()}
+     *
+     * @param args [games] [x player] [o player] [seed] [threads], players are "random", "greedy" or "perfect"
+     */
+    public static void main(String[] args) {
+        long games = args.length > 0 ? Long.parseLong(args[0].replace("_", "")) : 1_000_000L;
+        Player xPlayer = Player.of(args.length > 1 ? args[1] : "random");
+        Player oPlayer = Player.of(args.length > 2 ? args[2] : "random");
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : System.nanoTime();
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        System.out.println(xPlayer.name() + " (X) vs. " + oPlayer.name() + " (O), seed " + seed + ", " + threads + " threads");
+        System.out.print(new Simulator(xPlayer, oPlayer, seed, threads).run(games));
+        System.out.print(Metrics.report());
+    }
+}
@@ -0,0 +1,198 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.sim;
+
+import includes.ai.Player;
+import includes.engine.Game;
+import includes.engine.GameState;
+import includes.engine.QubicGame;
+import includes.engine.UltimateGame;
+import includes.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * Round Robin Tournament: every player against every other player.
+ *
+ * <ol>
+ *      <li>Every pair plays the same number of games, the colours change every game, so both start equally often</li>
+ *      <li>Every game is one task on a work stealing {@link ForkJoinPool}, long games of slow players do not hold up the others</li>
+ *      <li>Every game gets its own {@link SplittableRandom} from the seed and the game number</li>
+ *      <li>At the end all results are merged and rated {@link TournamentResult}</li>
+ * </ol>
+ * With players that only use the random generator (random, greedy, perfect, tablebase) the same seed gives the same result,
+ * players with a time budget (alphabeta, mcts) depend on the speed of the machine.
+ */
+public final class Tournament {
+
+    private final List<Player> players;
+    private final int rows;
+    private final int cols;
+    private final int winLength;
+    private final long seed;
+    private final int threads;
+
+    /**
+     * @param players   List of at least 2 players, the same name twice gets the number of the player {@link Player#name()}
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @param seed      Long seed of all random generators
+     * @param threads   Integer number of worker threads
+     */
+    public Tournament(List<Player> players, int rows, int cols, int winLength, long seed, int threads) {
+        if (players.size() < 2) {
+            throw new IllegalArgumentException("A tournament needs at least 2 players");
+        }
+        this.players = players;
+        this.rows = rows;
+        this.cols = cols;
+        this.winLength = winLength;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    /**
+     * Play all games on all worker threads
+     *
+     * @param gamesPerPair Integer games of every pair
+     * @return TournamentResult
+     */
+    public TournamentResult run(int gamesPerPair) {
+        List<String> names = new ArrayList<>();
+        for (Player player : players) {
+            String name = player.name();
+            names.add(names.contains(name) ? name + "#" + (names.size() + 1) : name);
+        }
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < players.size(); i++) {
+            for (int j = i + 1; j < players.size(); j++) {
+                pairs.add(new int[]{i, j});
+            }
+        }
+        long games = (long) pairs.size() * gamesPerPair;
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            TournamentResult result = pool.submit(() -> LongStream.range(0, games)
+                    .parallel()
+                    .mapToObj(game -> {
+                        int[] pair = pairs.get((int) (game / gamesPerPair));
+                        boolean swap = game % gamesPerPair % 2 == 1;
+                        int x = swap ? pair[1] : pair[0];
+                        int o = swap ? pair[0] : pair[1];
+                        TournamentResult one = new TournamentResult(names);
+                        one.add(x, o, playGame(x, o, new SplittableRandom(seed + game * 0x9E3779B97F4A7C15L)));
+                        return one;
+                    })
+                    .reduce(TournamentResult::merge)
+                    .orElseGet(() -> new TournamentResult(names))).get();
+            result.setNanos(System.nanoTime() - start);
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tournament interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Tournament failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Play one game from the empty board until it is over
+     *
+     * @param x      Integer index of the player of X
+     * @param o      Integer index of the player of O
+     * @param random SplittableRandom of this game
+     * @return Integer {@link Game#X}, {@link Game#O} or {@link Game#EMPTY} for a draw
+     */
+    private int playGame(int x, int o, SplittableRandom random) {
+        Game game = Game.create(rows, cols, winLength);
+        while (!game.isOver()) {
+            Player player = players.get(game.sideToMove() == Game.X ? x : o);
+            game.play(player.selectMove(game, random));
+        }
+        return game.winner();
+    }
+
+    /**
+     * Run a tournament and print the ratings, and the metrics of the players {@link Metrics#report()}
+     *
+     * @param args [games per pair] [rows] [cols] [win length] [millis per move] [seed] [threads] [players...],
+     *             default 100 games on 3x3 with 20 ms between the players of the board {@link #defaultPlayers(int, int, int)}
+     * @throws IllegalArgumentException if "perfect" should play on an other board than 3x3
+     */
+    public static void main(String[] args) {
+        int gamesPerPair = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : rows;
+        int winLength = args.length > 3 ? Integer.parseInt(args[3]) : Math.min(Math.max(rows, cols), 5);
+        long millis = args.length > 4 ? Long.parseLong(args[4]) : 20;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : System.nanoTime();
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+        List<String> names = args.length > 7 ? Arrays.asList(Arrays.copyOfRange(args, 7, args.length))
+                : defaultPlayers(rows, cols, winLength);
+        boolean solved = Game.create(rows, cols, winLength) instanceof GameState;
+        if (!solved && names.contains("perfect")) {
+            throw new IllegalArgumentException("perfect only plays 3x3 with 3 in a row, not " + Game.describe(rows, cols, winLength));
+        }
+        List<Player> players = new ArrayList<>();
+        for (String name : names) {
+            players.add(Player.of(name, millis));
+        }
+        System.out.println(names + " on " + Game.describe(rows, cols, winLength) + ", " + gamesPerPair
+                + " games per pair, " + millis + " ms per move, seed " + seed + ", " + threads + " threads");
+        System.out.print(new Tournament(players, rows, cols, winLength, seed, threads).run(gamesPerPair));
+        System.out.print(Metrics.report());
+    }
+
+    /**
+     * @param rows      Integer m
+     * @param cols      Integer n
+     * @param winLength Integer k
+     * @return List of player names that can play on the board: perfect only on the solved 3x3 board,
+     * the search of Ultimate TicTacToe and Qubic on their boards
+     */
+    static List<String> defaultPlayers(int rows, int cols, int winLength) {
+        Game game = Game.create(rows, cols, winLength);
+        if (game instanceof GameState) {
+            return Arrays.asList("random", "greedy", "perfect", "alphabeta", "mcts:1");
+        }
+        if (game instanceof UltimateGame) {
+            return Arrays.asList("random", "greedy", "alphabeta", "mcts:1", "ultimate:1");
+        }
+        if (game instanceof QubicGame) {
+            return Arrays.asList("random", "greedy", "alphabeta", "mcts:1", "qubic");
+        }
+        return Arrays.asList("random", "greedy", "alphabeta", "mcts:1");
+    }
+}
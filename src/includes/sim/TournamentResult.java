@@ -0,0 +1,249 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.sim;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Tournament Result: the games of every pair of players and the Elo ratings computed from them.
+ *
+ * <ol>
+ *      <li>wins[i][j] counts the games player i won against player j, draws[i][j] the draws between them</li>
+ *      <li>The ratings are the maximum likelihood fit of the Elo model to all games {@link #ratings()},
+ *      a draw is half a win; one virtual draw per pair keeps a player who won every game from going to infinity</li>
+ *      <li>The 95 % confidence interval of a rating comes from the Fisher information of its games, the other ratings taken as fixed</li>
+ * </ol>
+ * One result is filled by one thread only, results of different threads are added together with {@link #merge(TournamentResult)}.
+ */
+public final class TournamentResult {
+
+    /**
+     * Average rating of the players
+     */
+    public static final double BASE = 1500;
+
+    private static final double LN10_400 = Math.log(10) / 400;
+
+    private final List<String> names;
+    private final long[][] wins;
+    private final long[][] draws;
+    private long nanos;
+
+    /**
+     * Empty result
+     *
+     * @param names List of the player names
+     */
+    public TournamentResult(List<String> names) {
+        this.names = names;
+        this.wins = new long[names.size()][names.size()];
+        this.draws = new long[names.size()][names.size()];
+    }
+
+    /**
+     * Count one game
+     *
+     * @param x      Integer index of the player of X
+     * @param o      Integer index of the player of O
+     * @param winner Integer 1 if X won, 2 if O won, 0 for a draw
+     */
+    public void add(int x, int o, int winner) {
+        if (winner == 1) {
+            wins[x][o]++;
+        } else if (winner == 2) {
+            wins[o][x]++;
+        } else {
+            draws[x][o]++;
+            draws[o][x]++;
+        }
+    }
+
+    /**
+     * Add the games of an other result to this one
+     *
+     * @param other TournamentResult of the same players
+     * @return this
+     */
+    public TournamentResult merge(TournamentResult other) {
+        for (int i = 0; i < names.size(); i++) {
+            for (int j = 0; j < names.size(); j++) {
+                wins[i][j] += other.wins[i][j];
+                draws[i][j] += other.draws[i][j];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @param nanos Long wall clock time of the whole tournament
+     */
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    /**
+     * @param i Integer player
+     * @param j Integer opponent
+     * @return Long games between them
+     */
+    public long games(int i, int j) {
+        return wins[i][j] + wins[j][i] + draws[i][j];
+    }
+
+    /**
+     * @param i Integer player
+     * @param j Integer opponent
+     * @return Double points of i against j, a draw is half a point
+     */
+    public double points(int i, int j) {
+        return wins[i][j] + 0.5 * draws[i][j];
+    }
+
+    /**
+     * Maximum likelihood Elo ratings, the average is {@link #BASE}
+     *
+     * @return double[] rating of every player
+     */
+    public double[] ratings() {
+        int n = names.size();
+        double[] rating = new double[n];
+        for (int iteration = 0; iteration < 10_000; iteration++) {
+            double change = 0;
+            for (int i = 0; i < n; i++) {
+                double gradient = 0;
+                double information = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j == i) {
+                        continue;
+                    }
+                    double games = games(i, j) + 1;
+                    double expected = expected(rating[i], rating[j]);
+                    gradient += points(i, j) + 0.5 - games * expected;
+                    information += games * expected * (1 - expected);
+                }
+                if (information > 0) {
+                    double step = gradient / (information * LN10_400);
+                    rating[i] += step;
+                    change = Math.max(change, Math.abs(step));
+                }
+            }
+            if (change < 1e-6) {
+                break;
+            }
+        }
+        double mean = Arrays.stream(rating).average().orElse(0);
+        for (int i = 0; i < n; i++) {
+            rating[i] += BASE - mean;
+        }
+        return rating;
+    }
+
+    /**
+     * @param ratings double[] from {@link #ratings()}
+     * @return double[] half width of the 95 % confidence interval of every rating
+     */
+    public double[] confidence(double[] ratings) {
+        int n = names.size();
+        double[] interval = new double[n];
+        for (int i = 0; i < n; i++) {
+            double information = 0;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    double expected = expected(ratings[i], ratings[j]);
+                    information += (games(i, j) + 1) * expected * (1 - expected);
+                }
+            }
+            interval[i] = information == 0 ? Double.POSITIVE_INFINITY : 1.96 / (LN10_400 * Math.sqrt(information));
+        }
+        return interval;
+    }
+
+    /**
+     * @return Double expected points of a player with rating a against one with rating b
+     */
+    private static double expected(double a, double b) {
+        return 1 / (1 + Math.pow(10, (b - a) / 400));
+    }
+
+    /**
+     * @return String report: the players by rating with the interval and their games, then the points of every pair
+     */
+    @Override
+    public String toString() {
+        int n = names.size();
+        double[] ratings = ratings();
+        double[] interval = confidence(ratings);
+        int[] order = IntStream.range(0, n).boxed()
+                .sorted(Comparator.comparingDouble((Integer i) -> ratings[i]).reversed())
+                .mapToInt(Integer::intValue).toArray();
+        long total = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                total += games(i, j);
+            }
+        }
+        int width = 12;
+        for (String name : names) {
+            width = Math.max(width, name.length());
+        }
+        String left = "%-" + width + "s";
+        String right = " %" + width + "s";
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Games: %,d in %.3f s (%,.0f games/sec)%n", total, nanos / 1e9, nanos == 0 ? 0 : total * 1e9 / nanos));
+        sb.append(String.format("%4s  " + left + " %7s %7s %9s %7s %7s %7s %7s%n", "Rank", "Player", "Elo", "+/-", "Games", "Score", "Wins", "Draws", "Losses"));
+        for (int rank = 0; rank < n; rank++) {
+            int i = order[rank];
+            long games = 0;
+            long won = 0;
+            long drawn = 0;
+            long lost = 0;
+            for (int j = 0; j < n; j++) {
+                games += j == i ? 0 : games(i, j);
+                won += wins[i][j];
+                drawn += draws[i][j];
+                lost += wins[j][i];
+            }
+            sb.append(String.format("%4d  " + left + " %7.0f %7.0f %,9d %6.1f%% %7d %7d %7d%n", rank + 1, names.get(i), ratings[i], interval[i],
+                    games, games == 0 ? 0 : 100.0 * (won + 0.5 * drawn) / games, won, drawn, lost));
+        }
+        sb.append("Points (row against column):").append(System.lineSeparator());
+        sb.append(String.format("  " + left, ""));
+        for (int j : order) {
+            sb.append(String.format(right, names.get(j)));
+        }
+        sb.append(System.lineSeparator());
+        for (int i : order) {
+            sb.append(String.format("  " + left, names.get(i)));
+            for (int j : order) {
+                sb.append(i == j ? String.format(right, "-") : String.format(right, points(i, j) + "/" + games(i, j)));
+            }
+            sb.append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,314 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ui;
+
+import includes.engine.Game;
+import includes.engine.LineCounts;
+import includes.engine.MnkGame;
+import includes.engine.QubicGame;
+import includes.engine.UltimateGame;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Board Component: the whole board is one component, painted from the engine {@link Game}.
+ *
+ * <ol>
+ *      <li>A click is mapped to its cell with one division per axis {@link #cellAt(int, int)}, the board size does not matter</li>
+ *      <li>After a move or an undo only the rectangle of that cell is painted again {@link #cellChanged(int)}</li>
+ *      <li>A paint only visits the cells inside the clip, so a small repaint of a 100x100 board is as cheap as on 3x3</li>
+ * </ol>
+ * Ultimate TicTacToe {@link UltimateGame} gets thick lines around the small boards, the boards that can be played are light yellow.
+ * Qubic {@link QubicGame} shows its 4 layers side by side, from the bottom layer on the left, with thick lines between them.
+ * Hints {@link #setHints(boolean)} on a {@link MnkGame}: a cell that wins at once gets the light colour of the player who wins there,
+ * so it is a win for the player to move and a cell to block for the other one, a cell with a double threat gets a dot of the player.
+ * They come from the line counts of the game {@link MnkGame#lines()}, a move only paints the cells up to k - 1 away again.
+ * The component only reads the game, the owner plays the moves and tells the component what changed.
+ * It must be used on the EDT like every Swing component.
+ */
+public class BoardComponent extends JComponent {
+
+    /**
+     * Listener of the clicks on the board
+     */
+    @FunctionalInterface
+    public interface CellListener {
+
+        /**
+         * @param cell Integer the clicked cell, <code>row * cols + col</code>
+         */
+        void cellClicked(int cell);
+    }
+
+    private static final Color GRID = new Color(120, 160, 158);
+    private static final Color X_COLOR = new Color(40, 40, 40);
+    private static final Color O_COLOR = new Color(200, 60, 60);
+    private static final Color ACTIVE = new Color(255, 250, 205);
+    private static final Color X_BOARD = new Color(210, 210, 210);
+    private static final Color O_BOARD = new Color(240, 200, 200);
+
+    private final Game game;
+    private final int cellSize;
+    private final Font font;
+    private final List<CellListener> listeners = new ArrayList<>();
+    private boolean hints;
+    private boolean paintedOver;
+
+    /**
+     * @param game Game to show
+     * @param size Integer the longer side of the board in pixels, every cell gets <code>size / max(rows, cols)</code>
+     */
+    public BoardComponent(Game game, int size) {
+        this.game = game;
+        this.cellSize = Math.max(1, size / Math.max(game.rows(), game.cols()));
+        this.font = new Font("Tahoma", Font.BOLD, Math.max(1, cellSize * 72 / 150));
+        setOpaque(true);
+        setPreferredSize(new Dimension(cellSize * game.cols() + 1, cellSize * game.rows() + 1));
+        setSize(getPreferredSize());
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cell = cellAt(e.getX(), e.getY());
+                if (cell >= 0 && isEnabled()) {
+                    for (CellListener listener : listeners) {
+                        listener.cellClicked(cell);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @param listener CellListener called on every click on a cell
+     */
+    public void addCellListener(CellListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return Integer width and height of one cell in pixels
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * @param x Integer pixel in the component
+     * @param y Integer pixel in the component
+     * @return Integer the cell under the pixel or -1 if the pixel is outside of the board
+     */
+    public int cellAt(int x, int y) {
+        if (x < 0 || y < 0) {
+            return -1;
+        }
+        int col = x / cellSize;
+        int row = y / cellSize;
+        if (col >= game.cols() || row >= game.rows()) {
+            return -1;
+        }
+        return row * game.cols() + col;
+    }
+
+    /**
+     * @param cell Integer
+     * @return Rectangle of the cell in the component, with its grid lines
+     */
+    public Rectangle cellBounds(int cell) {
+        int col = cell % game.cols();
+        int row = cell / game.cols();
+        return new Rectangle(col * cellSize, row * cellSize, cellSize + 1, cellSize + 1);
+    }
+
+    /**
+     * @param hints boolean show the threats and double threats of both players, only on a {@link MnkGame}
+     */
+    public void setHints(boolean hints) {
+        this.hints = hints;
+        repaint();
+    }
+
+    /**
+     * @return true if the hints are shown
+     */
+    public boolean isHints() {
+        return hints;
+    }
+
+    /**
+     * A cell was changed (move, undo or redo): paint only this cell again.
+     * In Ultimate TicTacToe a move also changes the small boards that can be played, so the whole board is painted.
+     * With hints a move changes the threats of all cells up to k - 1 away, this square is painted.
+     * When the game ends or goes on again the whole board is painted, there are no hints after the end
+     *
+     * @param cell Integer
+     */
+    public void cellChanged(int cell) {
+        if (game instanceof UltimateGame) {
+            repaint();
+            return;
+        }
+        if (hints && game instanceof MnkGame) {
+            if (game.isOver() != paintedOver) {
+                paintedOver = game.isOver();
+                repaint();
+                return;
+            }
+            int radius = game.winLength() - 1;
+            int col = cell % game.cols();
+            int row = cell / game.cols();
+            int firstCol = Math.max(0, col - radius);
+            int firstRow = Math.max(0, row - radius);
+            int lastCol = Math.min(game.cols() - 1, col + radius);
+            int lastRow = Math.min(game.rows() - 1, row + radius);
+            repaint(firstCol * cellSize, firstRow * cellSize,
+                    (lastCol - firstCol + 1) * cellSize + 1, (lastRow - firstRow + 1) * cellSize + 1);
+            return;
+        }
+        repaint(cellBounds(cell));
+    }
+
+    /**
+     * Many cells were changed (new game, loaded game): paint the whole board again
+     */
+    public void boardChanged() {
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+        g.setColor(getBackground());
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+        int firstCol = Math.max(0, clip.x / cellSize);
+        int firstRow = Math.max(0, clip.y / cellSize);
+        int lastCol = Math.min(game.cols() - 1, (clip.x + clip.width) / cellSize);
+        int lastRow = Math.min(game.rows() - 1, (clip.y + clip.height) / cellSize);
+
+        LineCounts lines = null;
+        if (hints && game instanceof MnkGame) {
+            paintedOver = game.isOver();
+            if (!paintedOver && game.winLength() > 1) {
+                lines = ((MnkGame) game).lines();
+            }
+        }
+
+        g.setFont(font);
+        FontMetrics metrics = g.getFontMetrics();
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int x = col * cellSize;
+                int y = row * cellSize;
+                if (game instanceof UltimateGame) {
+                    paintUltimate(g, (UltimateGame) game, row * game.cols() + col, x, y);
+                } else if (lines != null && game.get(row * game.cols() + col) == Game.EMPTY) {
+                    paintHints(g, lines, row * game.cols() + col, x, y);
+                }
+                g.setColor(GRID);
+                g.drawRect(x, y, cellSize, cellSize);
+                int player = game.get(row * game.cols() + col);
+                if (player != Game.EMPTY) {
+                    String text = player == Game.X ? "X" : "O";
+                    g.setColor(player == Game.X ? X_COLOR : O_COLOR);
+                    g.drawString(text, x + (cellSize - metrics.stringWidth(text)) / 2,
+                            y + (cellSize - metrics.getHeight()) / 2 + metrics.getAscent());
+                }
+            }
+        }
+        if (game instanceof UltimateGame) {
+            g.setColor(X_COLOR);
+            for (int line = 0; line <= UltimateGame.SIZE; line += 3) {
+                g.fillRect(line * cellSize - 1, 0, 3, game.rows() * cellSize);
+                g.fillRect(0, line * cellSize - 1, game.cols() * cellSize, 3);
+            }
+        } else if (game instanceof QubicGame) {
+            g.setColor(X_COLOR);
+            for (int layer = 0; layer <= QubicGame.SIZE; layer++) {
+                g.fillRect(layer * QubicGame.SIZE * cellSize - 1, 0, 3, game.rows() * cellSize);
+            }
+        }
+    }
+
+    /**
+     * Background of an Ultimate cell: the colour of the player who won its small board, or light yellow if it can be played now
+     */
+    private void paintUltimate(Graphics g, UltimateGame ultimate, int cell, int x, int y) {
+        int board = 1 << UltimateGame.boardOf(cell);
+        Color background = (ultimate.wonBoards(Game.X) & board) != 0 ? X_BOARD
+                : (ultimate.wonBoards(Game.O) & board) != 0 ? O_BOARD
+                : (ultimate.activeBoards() & board) != 0 ? ACTIVE : null;
+        if (background != null) {
+            g.setColor(background);
+            g.fillRect(x, y, cellSize, cellSize);
+        }
+    }
+
+    /**
+     * Hints of an empty cell: the light colour of the player who wins here, half and half if both do,
+     * a dot of the player who gets a double threat here
+     */
+    private void paintHints(Graphics g, LineCounts lines, int cell, int x, int y) {
+        boolean xWins = lines.wins(Game.X, cell) > 0;
+        boolean oWins = lines.wins(Game.O, cell) > 0;
+        if (xWins) {
+            g.setColor(X_BOARD);
+            g.fillRect(x, y, cellSize, oWins ? cellSize / 2 : cellSize);
+        }
+        if (oWins) {
+            g.setColor(O_BOARD);
+            int top = xWins ? cellSize / 2 : 0;
+            g.fillRect(x, y + top, cellSize, cellSize - top);
+        }
+        int dot = Math.max(2, cellSize / 5);
+        int dotY = y + (cellSize - dot) / 2;
+        boolean xFork = lines.isDoubleThreat(Game.X, cell);
+        boolean oFork = lines.isDoubleThreat(Game.O, cell);
+        if (xFork) {
+            g.setColor(X_COLOR);
+            g.fillOval(x + (oFork ? cellSize / 4 : cellSize / 2) - dot / 2, dotY, dot, dot);
+        }
+        if (oFork) {
+            g.setColor(O_COLOR);
+            g.fillOval(x + (xFork ? cellSize * 3 / 4 : cellSize / 2) - dot / 2, dotY, dot, dot);
+        }
+    }
+}
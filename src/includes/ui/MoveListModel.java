@@ -0,0 +1,84 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ui;
+
+import includes.engine.Game;
+
+import javax.swing.AbstractListModel;
+
+/**
+ * Move List Model: the list of all movements, read straight from the moves of the engine {@link Game#moveAt(int)}.
+ *
+ * <ol>
+ *      <li>No string is kept, a row is formatted only when the list paints it {@link #getElementAt(int)}</li>
+ *      <li>The memory stays the same for any number of moves, the moves are already in the engine</li>
+ *      <li>After every change {@link #update()} fires one event for the added or removed rows only</li>
+ * </ol>
+ * Use it in a JList with a fixed cell height ({@link javax.swing.JList#setPrototypeCellValue(Object)}),
+ * else the list asks for every row to measure it.
+ */
+public class MoveListModel extends AbstractListModel<String> {
+
+    private final Game game;
+    private int size;
+
+    /**
+     * @param game Game to show, its moves are the rows
+     */
+    public MoveListModel(Game game) {
+        this.game = game;
+        this.size = game.moveCount();
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @param index Integer row
+     * @return String like <code>Move n 3:    ( 2, 0 )    X</code>
+     */
+    @Override
+    public String getElementAt(int index) {
+        int cell = game.moveAt(index);
+        return "Move n " + (index + 1) + ":    ( " + cell % game.cols() + ", " + cell / game.cols() + " )" + "    " + ((index & 1) == 0 ? "X" : "O");
+    }
+
+    /**
+     * Tell the list that moves were played or undone: one interval event for the new or the removed rows.
+     * Call it after every change of the game, a new game with the same number of moves in between is not seen.
+     */
+    public void update() {
+        int moves = game.moveCount();
+        int old = size;
+        size = moves;
+        if (moves > old) {
+            fireIntervalAdded(this, old, moves - 1);
+        } else if (moves < old) {
+            fireIntervalRemoved(this, moves, old - 1);
+        }
+    }
+}
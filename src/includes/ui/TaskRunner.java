@@ -0,0 +1,267 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ui;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Task Runner: runs blocking work (files, AI, network) off the Event Dispatch Thread.
+ *
+ * <ol>
+ *      <li>The work runs on a pool of daemon threads {@link #run(String, Work, Consumer)}</li>
+ *      <li>The result and the error come back on the EDT, so they can change the components, the listener gets the name of the running task</li>
+ *      <li>A task can be cancelled {@link Task#cancel()}, its thread is interrupted and its result is thrown away:
+ *      the work stops at the next check of {@link Thread#isInterrupted()}, the players check it in their search loops</li>
+ *      <li>File tasks are never interrupted {@link #runUninterruptible(String, Work, Consumer)}: an interrupt closes a {@link java.nio.channels.FileChannel},
+ *      a cancel only throws the result away and the owner can wait for them before the exit {@link #awaitUninterruptible(long)}</li>
+ * </ol>
+ * All methods must be called on the EDT.
+ */
+public final class TaskRunner {
+
+    /**
+     * Work of a task, it runs on a pool thread
+     *
+     * @param <T> result
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+
+        /**
+         * @return T result, given to the done function on the EDT
+         * @throws Exception any error, given to the error function of the runner on the EDT
+         */
+        T call() throws Exception;
+    }
+
+    /**
+     * Listener of the running tasks, called on the EDT
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+
+        /**
+         * @param name String name of the task, null if no task is running anymore
+         */
+        void progress(String name);
+    }
+
+    private final ExecutorService executor;
+    private final ProgressListener listener;
+    private final BiConsumer<String, Throwable> onError;
+    private final List<Task<?>> running = new ArrayList<>();
+
+    /**
+     * Tasks that can not be interrupted and are not done yet, also when they were cancelled
+     */
+    private final Set<Task<?>> uninterruptible = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param threads  Integer pool threads
+     * @param listener ProgressListener
+     * @param onError  Consumer of the name and the error of all failed tasks, on the EDT
+     */
+    public TaskRunner(int threads, ProgressListener listener, BiConsumer<String, Throwable> onError) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ui-task");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.listener = listener;
+        this.onError = onError;
+    }
+
+    /**
+     * Start a task
+     *
+     * @param name String shown with the progress
+     * @param work Work runs on a pool thread
+     * @param done Consumer of the result on the EDT, not called if the task was cancelled
+     * @param <T>  result
+     * @return Task to cancel it
+     */
+    public <T> Task<T> run(String name, Work<T> work, Consumer<T> done) {
+        return run(name, work, done, e -> {
+        });
+    }
+
+    /**
+     * Start a task with its own error function, like to clean up the state of the owner
+     *
+     * @param name   String shown with the progress
+     * @param work   Work runs on a pool thread
+     * @param done   Consumer of the result on the EDT, not called if the task was cancelled
+     * @param failed Consumer of the error on the EDT before the error function of the runner, not called if the task was cancelled
+     * @param <T>    result
+     * @return Task to cancel it
+     */
+    public <T> Task<T> run(String name, Work<T> work, Consumer<T> done, Consumer<Throwable> failed) {
+        return start(new Task<>(name, work, done, failed, true));
+    }
+
+    /**
+     * Start a task that must not be interrupted, like a file write: a cancel only throws the result away
+     *
+     * @param name String shown with the progress
+     * @param work Work runs on a pool thread
+     * @param done Consumer of the result on the EDT, not called if the task was cancelled
+     * @param <T>  result
+     * @return Task to cancel it
+     */
+    public <T> Task<T> runUninterruptible(String name, Work<T> work, Consumer<T> done) {
+        return start(new Task<>(name, work, done, e -> {
+        }, false));
+    }
+
+    private <T> Task<T> start(Task<T> task) {
+        running.add(task);
+        if (!task.interruptible) {
+            uninterruptible.add(task);
+        }
+        listener.progress(task.name);
+        task.future = executor.submit(task);
+        return task;
+    }
+
+    /**
+     * Wait until the tasks that can not be interrupted are done, also the cancelled ones, before the exit.
+     * It blocks the EDT, the results of the tasks are not given to their done functions anymore
+     *
+     * @param timeoutMillis Long wait at most this long for all of them
+     * @return true if all of them are done
+     */
+    public boolean awaitUninterruptible(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        for (Task<?> task : uninterruptible) {
+            try {
+                if (!task.ended.await(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cancel all tasks
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(running)) {
+            task.cancel();
+        }
+    }
+
+    private void finished(Task<?> task) {
+        running.remove(task);
+        if (running.isEmpty()) {
+            listener.progress(null);
+        } else {
+            listener.progress(running.get(running.size() - 1).name);
+        }
+    }
+
+    /**
+     * One running task
+     *
+     * @param <T> result
+     */
+    public final class Task<T> implements Callable<Void> {
+
+        private final String name;
+        private final Work<T> work;
+        private final Consumer<T> done;
+        private final Consumer<Throwable> failed;
+        private final boolean interruptible;
+        private final CountDownLatch ended = new CountDownLatch(1);
+        private volatile boolean cancelled;
+        private Future<?> future;
+
+        private Task(String name, Work<T> work, Consumer<T> done, Consumer<Throwable> failed, boolean interruptible) {
+            this.name = name;
+            this.work = work;
+            this.done = done;
+            this.failed = failed;
+            this.interruptible = interruptible;
+        }
+
+        @Override
+        public Void call() {
+            try {
+                if (cancelled) {
+                    return null;
+                }
+                T result = work.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (!cancelled) {
+                        finished(this);
+                        done.accept(result);
+                    }
+                });
+            } catch (Exception | Error e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!cancelled) {
+                        finished(this);
+                        failed.accept(e);
+                        onError.accept(name, e);
+                    }
+                });
+            } finally {
+                uninterruptible.remove(this);
+                ended.countDown();
+            }
+            return null;
+        }
+
+        /**
+         * Cancel the task: interrupt it unless it was started with {@link #runUninterruptible(String, Work, Consumer)}, forget the result, on the EDT
+         */
+        public void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                if (interruptible) {
+                    future.cancel(true);
+                }
+                if (running.contains(this)) {
+                    finished(this);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Position Cache Test: the lock-free cache with CLOCK eviction.
+ *
+ * <ol>
+ *      <li>A value is found again, a second put replaces it, an unknown key is a miss</li>
+ *      <li>A full bucket keeps the entries that were read since the last round of its hand and replaces the others</li>
+ *      <li>Many threads that read and write the same small cache never read a value of an other key</li>
+ * </ol>
+ */
+class PositionCacheTest {
+
+    /**
+     * Memory of exactly one bucket
+     */
+    private static final long ONE_BUCKET = PositionCache.WAYS * PositionCache.ENTRY_BYTES + Integer.BYTES;
+
+    @Test
+    void storesAndReplaces() {
+        PositionCache cache = new PositionCache(1 << 20);
+        cache.put(42, 7);
+        cache.put(43, 8);
+        assertEquals(7, cache.get(42));
+        assertEquals(8, cache.get(43));
+        cache.put(42, 9);
+        assertEquals(9, cache.get(42));
+        assertEquals(0, cache.get(44));
+        assertEquals(2, cache.getSize());
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertThrows(IllegalArgumentException.class, () -> cache.put(45, 0));
+        cache.clear();
+        assertEquals(0, cache.get(42));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    void clockKeepsReadEntries() {
+        PositionCache cache = new PositionCache(ONE_BUCKET);
+        assertEquals(PositionCache.WAYS, cache.getCapacity());
+        for (long key = 1; key <= 4; key++) {
+            cache.put(key, key * 10);
+        }
+        cache.get(1);
+        cache.get(3);
+        // the hand passes 1 (clears its bit) and replaces 2
+        cache.put(5, 50);
+        assertEquals(10, cache.get(1));
+        assertEquals(0, cache.get(2));
+        assertEquals(30, cache.get(3));
+        assertEquals(40, cache.get(4));
+        assertEquals(50, cache.get(5));
+        assertEquals(1, cache.getEvictions());
+        // all of them were read again: one round clears every bit and the hand stops where it began
+        cache.put(6, 60);
+        assertEquals(0, cache.get(3));
+        assertEquals(2, cache.getEvictions());
+        assertEquals(PositionCache.WAYS, cache.getSize());
+    }
+
+    @Test
+    void threadsNeverReadAValueOfAnOtherKey() throws InterruptedException {
+        PositionCache cache = new PositionCache(64 * ONE_BUCKET);
+        AtomicLong wrong = new AtomicLong();
+        AtomicLong found = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            threads.add(new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = random.nextInt(2_000);
+                    if (random.nextBoolean()) {
+                        cache.put(key, valueOf(key));
+                    } else {
+                        long value = cache.get(key);
+                        if (value != 0) {
+                            found.incrementAndGet();
+                            if (value != valueOf(key)) {
+                                wrong.incrementAndGet();
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, wrong.get());
+        assertTrue(found.get() > 0, "no hits");
+        assertTrue(cache.getEvictions() > 0, "no evictions");
+        assertTrue(cache.getSize() <= cache.getCapacity());
+    }
+
+    /**
+     * @return Long a value that only belongs to the key and is never 0
+     */
+    private static long valueOf(long key) {
+        return key * 0x9E3779B97F4A7C15L | 1;
+    }
+}
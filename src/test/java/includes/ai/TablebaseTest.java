@@ -0,0 +1,235 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.ai;
+
+import includes.engine.Game;
+import includes.engine.GameState;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tablebase Test: generate a table and check every reachable position against a live search.
+ *
+ * <ol>
+ *      <li>3x3: the score of every position is the score of the {@link Solver}</li>
+ *      <li>3x4 with 3 in a row: the score of every position is the score of a full negamax</li>
+ *      <li>4x4 with 3 in a row: too many positions for a full negamax, so every position (one of each symmetry class) must agree with
+ *      its moves: a finished game has the score of its result, any other the best score after one of its moves</li>
+ *      <li>The best move of every position that is not over is legal and keeps the score</li>
+ *      <li>The canonical key of a 4x4 position is the same under all 8 symmetries, and the cells map back {@link BoardSymmetry}</li>
+ * </ol>
+ */
+class TablebaseTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void matchesSolverOn3x3() throws IOException {
+        Tablebase table = generate(3, 3, 3);
+        int checked = walk(table, Game.create(3, 3, 3), new HashSet<>(), game -> Solver.score((GameState) game));
+        assertTrue(checked > 5000, "too few positions: " + checked);
+    }
+
+    @Test
+    void matchesNegamaxOn3x4() throws IOException {
+        Tablebase table = generate(3, 4, 3);
+        Map<Long, Integer> solved = new HashMap<>();
+        int checked = walk(table, Game.create(3, 4, 3), new HashSet<>(), game -> negamax(game, solved));
+        assertTrue(checked > 100_000, "too few positions: " + checked);
+    }
+
+    @Test
+    void consistentOn4x4() throws IOException {
+        Tablebase table = generate(4, 4, 3);
+        BoardSymmetry symmetry = new BoardSymmetry(4, 4);
+        int checked = walk(table, Game.create(4, 4, 3), symmetry, new HashSet<>());
+        assertEquals(table.positions(), checked);
+    }
+
+    @Test
+    void canonicalKeyRoundTripOn4x4() {
+        BoardSymmetry symmetry = new BoardSymmetry(4, 4);
+        assertEquals(8, symmetry.count());
+        SplittableRandom random = new SplittableRandom(7);
+        for (int n = 0; n < 10_000; n++) {
+            int xBits = 0;
+            int oBits = 0;
+            for (int cell = 0; cell < 16; cell++) {
+                int side = random.nextInt(3);
+                xBits |= (side == 1 ? 1 : 0) << cell;
+                oBits |= (side == 2 ? 1 : 0) << cell;
+            }
+            int key = symmetry.key(xBits, oBits);
+            int sym = symmetry.canonical(xBits, oBits);
+            assertEquals(key, symmetry.key(sym, xBits, oBits));
+            for (int s = 0; s < symmetry.count(); s++) {
+                int x = symmetry.apply(s, xBits);
+                int o = symmetry.apply(s, oBits);
+                assertEquals(key, symmetry.key(x, o));
+                for (int cell = 0; cell < 16; cell++) {
+                    assertEquals(cell, symmetry.unmap(s, symmetry.map(s, cell)));
+                    assertEquals((xBits >>> cell & 1) == 1, (x >>> symmetry.map(s, cell) & 1) == 1);
+                }
+            }
+        }
+    }
+
+    private Tablebase generate(int rows, int cols, int winLength) throws IOException {
+        Path file = directory.resolve(Tablebase.fileName(rows, cols, winLength));
+        int positions = Tablebase.generate(rows, cols, winLength, file);
+        Tablebase table = Tablebase.open(file);
+        assertEquals(positions, table.positions());
+        return table;
+    }
+
+    /**
+     * Score of a position from the reference search
+     */
+    private interface Reference {
+        int score(Game game);
+    }
+
+    /**
+     * Visit every reachable position once and compare it with the reference
+     *
+     * @return Integer number of checked positions
+     */
+    private static int walk(Tablebase table, Game game, Set<Long> seen, Reference reference) {
+        if (!seen.add(game.hash())) {
+            return 0;
+        }
+        int score = table.score(game);
+        assertEquals(reference.score(game), score, () -> "score of " + moves(game));
+        if (game.isOver()) {
+            return 1;
+        }
+        int best = table.bestMove(game);
+        assertTrue(game.isLegal(best), () -> "illegal best move " + best + " after " + moves(game));
+        assertEquals(score, -table.scoreAfter(game, best), () -> "best move " + best + " after " + moves(game));
+        int checked = 1;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (game.get(cell) == Game.EMPTY) {
+                game.play(cell);
+                checked += walk(table, game, seen, reference);
+                game.undo();
+            }
+        }
+        return checked;
+    }
+
+    /**
+     * Visit one position of every symmetry class and check it against its moves
+     *
+     * @return Integer number of checked positions
+     */
+    private static int walk(Tablebase table, Game game, BoardSymmetry symmetry, Set<Integer> seen) {
+        int xBits = 0;
+        int oBits = 0;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            xBits |= (game.get(cell) == Game.X ? 1 : 0) << cell;
+            oBits |= (game.get(cell) == Game.O ? 1 : 0) << cell;
+        }
+        if (!seen.add(symmetry.key(xBits, oBits))) {
+            return 0;
+        }
+        int score = table.score(game);
+        int empties = game.cellCount() - game.moveCount();
+        if (game.winner() != Game.EMPTY) {
+            assertEquals(-(empties + 1), score, () -> "won game " + moves(game));
+            return 1;
+        }
+        if (empties == 0) {
+            assertEquals(0, score, () -> "full board " + moves(game));
+            return 1;
+        }
+        int bestScore = -Integer.MAX_VALUE;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (game.get(cell) == Game.EMPTY) {
+                bestScore = Math.max(bestScore, -table.scoreAfter(game, cell));
+            }
+        }
+        assertEquals(bestScore, score, () -> "score of " + moves(game));
+        int best = table.bestMove(game);
+        assertTrue(game.isLegal(best), () -> "illegal best move " + best + " after " + moves(game));
+        assertEquals(score, -table.scoreAfter(game, best), () -> "best move " + best + " after " + moves(game));
+        int checked = 1;
+        for (int cell = 0; cell < game.cellCount(); cell++) {
+            if (game.get(cell) == Game.EMPTY) {
+                game.play(cell);
+                checked += walk(table, game, symmetry, seen);
+                game.undo();
+            }
+        }
+        return checked;
+    }
+
+    /**
+     * Full negamax without pruning, the scores of the table: a loss is -(empty cells + 1), so faster wins are bigger
+     */
+    private static int negamax(Game game, Map<Long, Integer> solved) {
+        Integer known = solved.get(game.hash());
+        if (known != null) {
+            return known;
+        }
+        int empties = game.cellCount() - game.moveCount();
+        int best;
+        if (game.winner() != Game.EMPTY) {
+            best = -(empties + 1);
+        } else if (empties == 0) {
+            best = 0;
+        } else {
+            best = -Integer.MAX_VALUE;
+            for (int cell = 0; cell < game.cellCount(); cell++) {
+                if (game.get(cell) == Game.EMPTY) {
+                    game.play(cell);
+                    best = Math.max(best, -negamax(game, solved));
+                    game.undo();
+                }
+            }
+        }
+        solved.put(game.hash(), best);
+        return best;
+    }
+
+    private static String moves(Game game) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < game.moveCount(); i++) {
+            sb.append(i == 0 ? "" : " ").append(game.moveAt(i));
+        }
+        return sb.toString();
+    }
+}
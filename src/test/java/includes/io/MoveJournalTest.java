@@ -0,0 +1,182 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.io;
+
+import includes.engine.Game;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Move Journal Test: the journal must give back the game after a crash at any point.
+ *
+ * <ol>
+ *      <li>Moves and undos are replayed on the snapshot</li>
+ *      <li>A torn last entry (the file ends inside it) is cut off, every entry before it is kept</li>
+ *      <li>A last entry with a wrong CRC32C or garbage after the last entry is cut off too</li>
+ *      <li>After a compaction the journal is only a snapshot, the moves in it can still be undone and the journal goes on</li>
+ * </ol>
+ * Every test uses an fsync per entry, so there is no background thread.
+ */
+class MoveJournalTest {
+
+    /**
+     * One move entry: type, length, cell and CRC
+     */
+    private static final int MOVE_BYTES = 1 + Integer.BYTES + Integer.BYTES + Integer.BYTES;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysMovesAndUndos() throws IOException {
+        Path file = directory.resolve("game.wal");
+        try (MoveJournal journal = open(file)) {
+            journal.move(12);
+            journal.move(6);
+            journal.move(7);
+            journal.undo();
+            journal.move(18);
+        }
+        try (MoveJournal journal = open(file)) {
+            assertArrayEquals(new int[]{12, 6, 18}, moves(journal.game()));
+        }
+    }
+
+    @Test
+    void cutsOffTornLastEntry() throws IOException {
+        Path file = directory.resolve("game.wal");
+        try (MoveJournal journal = open(file)) {
+            journal.move(12);
+            journal.move(6);
+            journal.move(7);
+        }
+        byte[] written = Files.readAllBytes(file);
+        for (int cut = 1; cut < MOVE_BYTES; cut++) {
+            Files.write(file, Arrays.copyOf(written, written.length - cut));
+            try (MoveJournal journal = open(file)) {
+                assertArrayEquals(new int[]{12, 6}, moves(journal.game()), "cut " + cut);
+                journal.move(8);
+            }
+            assertEquals(written.length, Files.size(file), "cut " + cut);
+            try (MoveJournal journal = open(file)) {
+                assertArrayEquals(new int[]{12, 6, 8}, moves(journal.game()), "cut " + cut);
+            }
+        }
+    }
+
+    @Test
+    void cutsOffEntryWithWrongCrc() throws IOException {
+        Path file = directory.resolve("game.wal");
+        try (MoveJournal journal = open(file)) {
+            journal.move(12);
+            journal.move(6);
+        }
+        byte[] written = Files.readAllBytes(file);
+        byte[] garbled = written.clone();
+        // the low byte of the cell of the last move, the length stays right
+        garbled[garbled.length - Integer.BYTES - 1] ^= 1;
+        Files.write(file, garbled);
+        try (MoveJournal journal = open(file)) {
+            assertArrayEquals(new int[]{12}, moves(journal.game()));
+        }
+        assertEquals(written.length - MOVE_BYTES, Files.size(file));
+    }
+
+    @Test
+    void cutsOffGarbageAfterTheLastEntry() throws IOException {
+        Path file = directory.resolve("game.wal");
+        try (MoveJournal journal = open(file)) {
+            journal.move(12);
+            journal.move(6);
+        }
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{MoveJournal.MOVE, 0, 0, 0, 4, 0, 0, 0, 7, 1, 2, 3, 4, 9, 9}));
+        }
+        try (MoveJournal journal = open(file)) {
+            assertArrayEquals(new int[]{12, 6}, moves(journal.game()));
+        }
+        assertEquals(size, Files.size(file));
+    }
+
+    @Test
+    void undoesAndReplaysAfterCompaction() throws IOException {
+        Path file = directory.resolve("game.wal");
+        try (MoveJournal journal = new MoveJournal(file, Game.create(5, 5, 4), 0, 4)) {
+            for (int cell : new int[]{12, 6, 7, 8, 13}) {
+                journal.move(cell);
+            }
+            // the 4th entry compacted the journal: a snapshot with 4 moves and one move after it
+            assertEquals(snapshotBytes(12, 6, 7, 8) + MOVE_BYTES, Files.size(file));
+            journal.undo();
+            journal.undo();
+            journal.undo();
+        }
+        try (MoveJournal journal = new MoveJournal(file, Game.create(5, 5, 4), 0, 4)) {
+            assertArrayEquals(new int[]{12, 6}, moves(journal.game()));
+            journal.undo();
+            journal.move(18);
+        }
+        try (MoveJournal journal = new MoveJournal(file, Game.create(5, 5, 4), 0, 4)) {
+            assertArrayEquals(new int[]{12, 18}, moves(journal.game()));
+            assertTrue(Files.size(file) < 10 * MOVE_BYTES, "not compacted: " + Files.size(file));
+        }
+    }
+
+    private static MoveJournal open(Path file) throws IOException {
+        return new MoveJournal(file, Game.create(5, 5, 4), 0, 1024);
+    }
+
+    /**
+     * @return Integer bytes of a snapshot entry of the game with these moves
+     */
+    private static int snapshotBytes(int... cells) {
+        Game game = Game.create(5, 5, 4);
+        for (int cell : cells) {
+            game.play(cell);
+        }
+        return 1 + Integer.BYTES + GameFile.encode(game).length + Integer.BYTES;
+    }
+
+    private static int[] moves(Game game) {
+        int[] moves = new int[game.moveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = game.moveAt(i);
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,202 @@
+/******************************************************************************
+ * MIT License                                                                *
+ *                                                                            *
+ * Copyright (c) 2018 Khaled Bakeer                                           *
+ *                                                                            *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell  *
+ * copies of the Software, and to permit persons to whom the Software is      *
+ * furnished to do so, subject to the following conditions:                   *
+ *                                                                            *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.                            *
+ *                                                                            *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR *
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,   *
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE*
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER     *
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.                                                                  *
+ ******************************************************************************/
+
+package includes.session;
+
+import includes.engine.Game;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Game Broadcaster Test: coalescing and the drop to snapshot.
+ *
+ * <ol>
+ *      <li>The first call is a snapshot, after it all new events come as one update, a move and its undo cancel each other</li>
+ *      <li>A spectator that is a whole ring behind, or that missed a new game, gets a snapshot</li>
+ *      <li>A push spectator on its own thread ends with the same game as the players, while they publish as fast as they can</li>
+ * </ol>
+ */
+class GameBroadcasterTest {
+
+    @Test
+    void coalescesEventsIntoOneUpdate() {
+        GameBroadcaster broadcaster = new GameBroadcaster(Game.create(5, 5, 4), 8, Runnable::run);
+        Recorder recorder = new Recorder();
+        GameBroadcaster.Subscription subscription = broadcaster.subscribe(recorder);
+        assertTrue(subscription.drain());
+        assertEquals(1, subscription.getSnapshots());
+        assertFalse(subscription.drain());
+
+        broadcaster.moved(12);
+        broadcaster.moved(6);
+        broadcaster.undone();
+        broadcaster.moved(7);
+        assertTrue(subscription.drain());
+        assertEquals(0, recorder.undos);
+        assertArrayEquals(new int[]{12, 7}, recorder.moves);
+
+        broadcaster.undone();
+        broadcaster.undone();
+        broadcaster.moved(18);
+        assertTrue(subscription.drain());
+        assertEquals(2, recorder.undos);
+        assertArrayEquals(new int[]{18}, recorder.moves);
+        assertEquals(2, subscription.getUpdates());
+        assertEquals(1, subscription.getSnapshots());
+        assertArrayEquals(new int[]{18}, moves(recorder.game));
+    }
+
+    @Test
+    void laggingSpectatorGetsSnapshot() {
+        GameBroadcaster broadcaster = new GameBroadcaster(Game.create(5, 5, 4), 8, Runnable::run);
+        Recorder recorder = new Recorder();
+        GameBroadcaster.Subscription subscription = broadcaster.subscribe(recorder);
+        subscription.drain();
+
+        // one event less than the ring: still an update
+        for (int cell = 0; cell < 7; cell++) {
+            broadcaster.moved(cell);
+        }
+        subscription.drain();
+        assertEquals(1, subscription.getUpdates());
+        assertEquals(7, recorder.moves.length);
+
+        // a whole ring (7 undos and a move): the oldest event is gone, so a snapshot
+        for (int i = 0; i < 7; i++) {
+            broadcaster.undone();
+        }
+        broadcaster.moved(24);
+        assertTrue(subscription.isBehind());
+        subscription.drain();
+        assertEquals(1, subscription.getUpdates());
+        assertEquals(2, subscription.getSnapshots());
+        assertArrayEquals(new int[]{24}, moves(recorder.game));
+        assertFalse(subscription.isBehind());
+    }
+
+    @Test
+    void newGameGivesSnapshot() {
+        GameBroadcaster broadcaster = new GameBroadcaster(Game.create(5, 5, 4), 8, Runnable::run);
+        Recorder recorder = new Recorder();
+        GameBroadcaster.Subscription subscription = broadcaster.subscribe(recorder);
+        subscription.drain();
+        broadcaster.moved(12);
+        Game loaded = Game.create(5, 5, 4);
+        loaded.play(3);
+        loaded.play(4);
+        broadcaster.reset(loaded);
+        subscription.drain();
+        assertEquals(0, subscription.getUpdates());
+        assertEquals(2, subscription.getSnapshots());
+        assertArrayEquals(new int[]{3, 4}, moves(recorder.game));
+    }
+
+    @Test
+    void pushSpectatorEndsWithTheGameOfThePlayers() throws InterruptedException {
+        ExecutorService fanOut = Executors.newSingleThreadExecutor();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            GameBroadcaster broadcaster = new GameBroadcaster(Game.create(7, 7, 5), 16, fanOut);
+            Recorder recorder = new Recorder();
+            GameBroadcaster.Subscription subscription = broadcaster.subscribe(recorder, executor);
+            SplittableRandom random = new SplittableRandom(3);
+            Game players = Game.create(7, 7, 5);
+            for (int i = 0; i < 200_000; i++) {
+                if (players.moveCount() > 0 && (players.moveCount() >= 6 || random.nextBoolean())) {
+                    players.undo();
+                    broadcaster.undone();
+                } else {
+                    int cell;
+                    do {
+                        cell = random.nextInt(players.cellCount());
+                    } while (!players.isLegal(cell));
+                    players.play(cell);
+                    broadcaster.moved(cell);
+                }
+            }
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!Arrays.equals(moves(players), recorder.moves()) && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            assertArrayEquals(moves(players), recorder.moves());
+            assertTrue(subscription.getUpdates() + subscription.getSnapshots() < 200_000, "nothing was coalesced");
+            subscription.close();
+        } finally {
+            fanOut.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private static int[] moves(Game game) {
+        int[] moves = new int[game.moveCount()];
+        for (int i = 0; i < moves.length; i++) {
+            moves[i] = game.moveAt(i);
+        }
+        return moves;
+    }
+
+    /**
+     * Spectator that keeps its own copy of the game and the last update
+     */
+    private static final class Recorder implements Spectator {
+
+        private Game game;
+        private int undos;
+        private int[] moves;
+
+        @Override
+        public synchronized void onUpdate(int undos, int[] moves, int count) {
+            this.undos = undos;
+            this.moves = Arrays.copyOf(moves, count);
+            for (int i = 0; i < undos; i++) {
+                game.undo();
+            }
+            for (int i = 0; i < count; i++) {
+                game.play(moves[i]);
+            }
+        }
+
+        @Override
+        public synchronized void onSnapshot(Game game) {
+            this.game = game;
+        }
+
+        /**
+         * @return int[] the moves of the game of the spectator, from any thread
+         */
+        synchronized int[] moves() {
+            return game == null ? new int[0] : GameBroadcasterTest.moves(game);
+        }
+    }
+}